@@ -5,6 +5,11 @@
 # to inspect multiple docker images without starting /
 # stopping the image inspector services for each one.
 # This approach results in significantly faster throughput.
+#
+# When running docker inspector directly (not via detect), the
+# batch.manifest property does the same thing in a single run:
+# it inspects every image listed in a JSON manifest, re-using the
+# image inspector services across images.
 ####################################################################
 
 ####################################################################
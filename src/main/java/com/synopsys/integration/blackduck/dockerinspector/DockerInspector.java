@@ -22,8 +22,10 @@
  */
 package com.synopsys.integration.blackduck.dockerinspector;
 
+import com.synopsys.integration.blackduck.dockerinspector.batch.BatchInspector;
 import com.synopsys.integration.blackduck.dockerinspector.config.DockerInspectorSystemProperties;
 import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
 import com.synopsys.integration.blackduck.dockerinspector.output.ResultFile;
 import com.synopsys.integration.blackduck.dockerinspector.programversion.ProgramVersion;
 import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
@@ -45,6 +47,7 @@ import org.springframework.context.annotation.ComponentScan;
 import com.google.gson.Gson;
 import com.synopsys.integration.blackduck.dockerinspector.blackduckclient.BlackDuckClient;
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.daemon.InspectionDaemon;
 import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
 import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
 import com.synopsys.integration.blackduck.dockerinspector.config.UsageFormatter;
@@ -83,6 +86,12 @@ public class DockerInspector {
     @Autowired
     private HttpClientInspector inspector;
 
+    @Autowired
+    private BatchInspector batchInspector;
+
+    @Autowired
+    private InspectionDaemon inspectionDaemon;
+
     @Autowired
     private UsageFormatter usageFormatter;
 
@@ -101,7 +110,15 @@ public class DockerInspector {
             if (!initAndValidate(config)) {
                 System.exit(0);
             }
-            returnCode = inspector.getBdio();
+            if (isDaemonMode()) {
+                returnCode = inspectionDaemon.serve();
+            } else if (isBatchMode()) {
+                returnCode = batchInspector.inspectImages();
+            } else {
+                final Result result = inspector.getBdio();
+                resultFile.write(new Gson(), programPaths.getDockerInspectorResultPath(), result);
+                returnCode = 0;
+            }
         } catch (final Throwable e) {
             final String msg = String.format("Error inspecting image: %s", e.getMessage());
             logger.error(msg);
@@ -110,6 +127,7 @@ public class DockerInspector {
             resultFile.write(new Gson(), programPaths.getDockerInspectorResultPath(), false, msg, ImageInspectorOsEnum.UBUNTU, "unknown", "unknown",
                     "unknown", "unknown");
         }
+        dockerClientManager.drainCleanups();
         logger.info(String.format("Returning %d", returnCode));
         System.exit(returnCode);
     }
@@ -168,12 +186,29 @@ public class DockerInspector {
                 logger.warn(String.format("Unable to phone home: %s", e.getMessage()));
             }
         }
-        initImageName();
-        logger.info(String.format("Inspecting image:tag %s:%s", config.getDockerImageRepo(), config.getDockerImageTag()));
+        if (StringUtils.isBlank(config.getImageInspectorUrl())) {
+            dockerClientManager.finishAbandonedCleanups();
+        }
+        if (isDaemonMode()) {
+            logger.info(String.format("Running as a daemon on port %d", config.getDaemonPort()));
+        } else if (isBatchMode()) {
+            logger.info(String.format("Inspecting the images listed in batch manifest %s", config.getBatchManifest()));
+        } else {
+            initImageName();
+            logger.info(String.format("Inspecting image:tag %s:%s", config.getDockerImageRepo(), config.getDockerImageTag()));
+        }
         blackDuckClient.testBlackDuckConnection();
         return true;
     }
 
+    private boolean isDaemonMode() {
+        return config.getDaemonPort() > 0;
+    }
+
+    private boolean isBatchMode() {
+        return StringUtils.isNotBlank(config.getBatchManifest());
+    }
+
     private void initImageName() {
         logger.debug(String.format("initImageName(): dockerImage: %s, dockerTar: %s", config.getDockerImage(), config.getDockerTar()));
         final ImageNameResolver resolver = new ImageNameResolver(config.getDockerImage());
@@ -0,0 +1,43 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+
+public class BatchImageResult {
+    private final String image;
+    private final Result result;
+
+    public BatchImageResult(final String image, final Result result) {
+        this.image = image;
+        this.result = result;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+}
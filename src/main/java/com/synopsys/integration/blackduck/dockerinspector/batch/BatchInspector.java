@@ -0,0 +1,124 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+import com.synopsys.integration.exception.IntegrationException;
+
+@Component
+public class BatchInspector {
+    private static final String BATCH_RESULTS_FILENAME = "batchResults.json";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private BatchManifestReader batchManifestReader;
+
+    @Autowired
+    private HttpClientInspector inspector;
+
+    @Autowired
+    private InspectionPipeline inspectionPipeline;
+
+    @Autowired
+    private Gson gson;
+
+    @Autowired
+    private SharedImageTarSaver sharedImageTarSaver;
+
+    public int inspectImages() throws IntegrationException {
+        final List<ImageInspectionRequest> requests = batchManifestReader.readManifest(new File(config.getBatchManifest()));
+        logger.info(String.format("Inspecting %d images", requests.size()));
+        final List<BatchImageResult> results = new ArrayList<>(requests.size());
+        inspector.holdServices();
+        try {
+            final List<Result> imageResults = inspectionPipeline.inspectImages(sharedImageTarSaver.saveSharedImageTars(requests));
+            for (int requestIndex = 0; requestIndex < requests.size(); requestIndex++) {
+                results.add(new BatchImageResult(requests.get(requestIndex).getTargetDescription(), imageResults.get(requestIndex)));
+            }
+        } finally {
+            inspector.releaseServices();
+        }
+        writeResults(results);
+        cleanup();
+        final long failureCount = results.stream().filter(result -> !result.getResult().isSucceeded()).count();
+        logger.info(String.format("Batch complete: %d of %d images inspected successfully", results.size() - failureCount, results.size()));
+        return failureCount == 0 ? 0 : -1;
+    }
+
+    private void writeResults(final List<BatchImageResult> results) {
+        final File outputDir;
+        if (StringUtils.isNotBlank(config.getOutputPath())) {
+            outputDir = new File(config.getOutputPath());
+        } else {
+            outputDir = new File(programPaths.getDockerInspectorDefaultOutputPath());
+        }
+        final File resultsFile = new File(outputDir, BATCH_RESULTS_FILENAME);
+        logger.info(String.format("Writing batch results to %s", resultsFile.getAbsolutePath()));
+        resultsFile.getParentFile().mkdirs();
+        try (JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8))) {
+            jsonWriter.setIndent("  ");
+            gson.toJson(results, new TypeToken<List<BatchImageResult>>() {}.getType(), jsonWriter);
+        } catch (final IOException e) {
+            logger.error(String.format("Error writing batch results file: %s", e.getMessage()));
+        }
+    }
+
+    // Unlike a single-image run, the output dir (holding the BDIO files and batch results) is kept
+    private void cleanup() {
+        if (!config.isCleanupWorkingDir()) {
+            return;
+        }
+        final File targetDir = new File(programPaths.getDockerInspectorTargetDirPath());
+        logger.debug(String.format("Removing %s", targetDir.getAbsolutePath()));
+        FileUtils.deleteQuietly(targetDir);
+        FileUtils.deleteQuietly(new File(programPaths.getDockerInspectorSharedImageTarDirPath()));
+    }
+}
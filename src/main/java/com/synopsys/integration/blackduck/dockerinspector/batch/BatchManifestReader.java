@@ -0,0 +1,91 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequestFactory;
+import com.synopsys.integration.exception.IntegrationException;
+
+@Component
+public class BatchManifestReader {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Gson gson;
+
+    @Autowired
+    private ImageInspectionRequestFactory imageInspectionRequestFactory;
+
+    public List<ImageInspectionRequest> readManifest(final File manifestFile) throws IntegrationException {
+        logger.debug(String.format("Reading batch manifest %s", manifestFile.getAbsolutePath()));
+        final List<Map<String, String>> entries;
+        try (Reader reader = new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8)) {
+            entries = parseEntries(reader);
+        } catch (final IOException e) {
+            throw new IntegrationException(String.format("Error reading batch manifest %s: %s", manifestFile.getAbsolutePath(), e.getMessage()), e);
+        }
+        final List<ImageInspectionRequest> requests = new ArrayList<>(entries.size());
+        for (int entryIndex = 0; entryIndex < entries.size(); entryIndex++) {
+            try {
+                requests.add(imageInspectionRequestFactory.createFromConfigWithOverrides(entries.get(entryIndex)));
+            } catch (final IntegrationException e) {
+                throw new IntegrationException(String.format("Invalid entry %d in batch manifest %s: %s", entryIndex + 1, manifestFile.getAbsolutePath(), e.getMessage()), e);
+            }
+        }
+        logger.info(String.format("Batch manifest %s lists %d images", manifestFile.getAbsolutePath(), requests.size()));
+        return requests;
+    }
+
+    List<Map<String, String>> parseEntries(final Reader reader) throws IntegrationException {
+        final Type entryListType = new TypeToken<List<Map<String, String>>>() {}.getType();
+        final List<Map<String, String>> entries;
+        try {
+            entries = gson.fromJson(reader, entryListType);
+        } catch (final JsonParseException e) {
+            throw new IntegrationException(String.format("Batch manifest is not a JSON array of objects: %s", e.getMessage()), e);
+        }
+        if (entries == null) {
+            throw new IntegrationException("Batch manifest is empty");
+        }
+        return entries;
+    }
+}
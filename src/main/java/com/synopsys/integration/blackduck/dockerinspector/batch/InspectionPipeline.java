@@ -0,0 +1,145 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.ImageInspection;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Inspects a list of images as a pipeline, so that while one image is being inspected the next can be pulled/saved
+ * and the previous one uploaded. Each stage has its own executor (and so its own queue and concurrency limit):
+ *   prepare (pull/save, copy to the shared dir): batch.prepare.concurrency
+ *   inspect (get, adjust and write the BDIO): batch.concurrency
+ *   upload: batch.upload.concurrency
+ * To bound the disk space used by image tarfiles, only batch.prepare.ahead images beyond those being inspected
+ * are allowed to be prepared; the submitting thread blocks until one is done.
+ */
+@Component
+public class InspectionPipeline {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private HttpClientInspector inspector;
+
+    private interface Stage<T> {
+        T run() throws IntegrationException;
+    }
+
+    // Results are returned in request order
+    public List<Result> inspectImages(final List<ImageInspectionRequest> requests) throws IntegrationException {
+        final int inspectConcurrency = Math.max(1, config.getBatchConcurrency());
+        final Semaphore tarfilePermits = new Semaphore(inspectConcurrency + Math.max(0, config.getBatchPrepareAhead()));
+        final ExecutorService prepareExecutor = Executors.newFixedThreadPool(Math.max(1, config.getBatchPrepareConcurrency()));
+        final ExecutorService inspectExecutor = Executors.newFixedThreadPool(inspectConcurrency);
+        final ExecutorService uploadExecutor = Executors.newFixedThreadPool(Math.max(1, config.getBatchUploadConcurrency()));
+        try {
+            final List<CompletableFuture<Result>> futures = new ArrayList<>(requests.size());
+            for (int requestIndex = 0; requestIndex < requests.size(); requestIndex++) {
+                final ImageInspectionRequest request = requests.get(requestIndex);
+                final File targetDir = new File(programPaths.getDockerInspectorTargetDirPath(), String.format("image%d", requestIndex + 1));
+                acquire(tarfilePermits);
+                final CompletableFuture<Result> future = CompletableFuture
+                    .supplyAsync(() -> runStage(() -> prepare(request, targetDir)), prepareExecutor)
+                    .thenApplyAsync(inspection -> runStage(() -> inspect(inspection)), inspectExecutor)
+                    .whenComplete((inspection, e) -> {
+                        tarfilePermits.release();
+                        if (config.isCleanupWorkingDir()) {
+                            FileUtils.deleteQuietly(targetDir);
+                        }
+                    })
+                    .thenApplyAsync(inspection -> runStage(() -> upload(inspection)), uploadExecutor)
+                    .exceptionally(e -> HttpClientInspector.toFailureResult(request, e));
+                futures.add(future);
+            }
+            final List<Result> results = new ArrayList<>(requests.size());
+            for (final CompletableFuture<Result> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } finally {
+            prepareExecutor.shutdownNow();
+            inspectExecutor.shutdownNow();
+            uploadExecutor.shutdownNow();
+        }
+    }
+
+    private ImageInspection prepare(final ImageInspectionRequest request, final File targetDir) throws IntegrationException {
+        logger.info(String.format("Preparing image %s", request.getTargetDescription()));
+        return inspector.prepare(request, targetDir);
+    }
+
+    private ImageInspection inspect(final ImageInspection inspection) throws IntegrationException {
+        logger.info(String.format("Inspecting image %s", inspection.getRequest().getTargetDescription()));
+        inspector.inspectPrepared(inspection);
+        return inspection;
+    }
+
+    private Result upload(final ImageInspection inspection) throws IntegrationException {
+        inspector.upload(inspection);
+        logger.info(String.format("Inspection of image %s succeeded; BDIO file: %s", inspection.getRequest().getTargetDescription(), inspection.getBdioFile().getName()));
+        return inspector.toResult(inspection);
+    }
+
+    private <T> T runStage(final Stage<T> stage) {
+        try {
+            return stage.run();
+        } catch (final IntegrationException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void acquire(final Semaphore tarfilePermits) throws IntegrationException {
+        try {
+            tarfilePermits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting for batch inspections to complete", e);
+        }
+    }
+}
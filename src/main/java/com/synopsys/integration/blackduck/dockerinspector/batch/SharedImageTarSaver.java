@@ -0,0 +1,193 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetricsCollector;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.dockerinspector.registry.RegistryImagePuller;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * batch.save.shared: images (given by repo:tag) that share a base layer are saved with one docker save, which writes the layers
+ * they share only once. Each is then inspected from that tarfile, which docker.image.repo/docker.image.tag select it from.
+ */
+@Component
+public class SharedImageTarSaver {
+    private static final String SHARED_IMAGE_TAR_FILENAME_FORMAT = "shared%d.tar";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private DockerClientManager dockerClientManager;
+
+    @Autowired
+    private RegistryImagePuller registryImagePuller;
+
+    @Autowired
+    private TransferMetricsCollector transferMetricsCollector;
+
+    // Returns the requests in the same order; each image that was saved to a shared tarfile gets a request for that tarfile
+    public List<ImageInspectionRequest> saveSharedImageTars(final List<ImageInspectionRequest> requests) {
+        final List<ImageInspectionRequest> resultingRequests = new ArrayList<>(requests);
+        if (!config.isBatchSaveShared()) {
+            return resultingRequests;
+        }
+        // Images are grouped before anything is pulled, so that an image that ends up in no group is left entirely to the normal (per-image) path
+        final Map<String, List<Integer>> requestIndexesByBaseLayer = new LinkedHashMap<>();
+        for (int requestIndex = 0; requestIndex < requests.size(); requestIndex++) {
+            final ImageInspectionRequest request = requests.get(requestIndex);
+            if (!isSaveable(request)) {
+                continue;
+            }
+            final Optional<ImageTarMetadata> image = findImageMetadataWithoutPulling(request);
+            if (image.isPresent() && image.get().getBaseLayerDiffId().isPresent()) {
+                requestIndexesByBaseLayer.computeIfAbsent(image.get().getBaseLayerDiffId().get(), baseLayerDiffId -> new ArrayList<>()).add(requestIndex);
+            }
+        }
+        int sharedImageTarCount = 0;
+        for (final List<Integer> requestIndexes : requestIndexesByBaseLayer.values()) {
+            if (requestIndexes.size() < 2) {
+                continue;
+            }
+            // The group's pulls and its one save are reported with each image in the group
+            transferMetricsCollector.start();
+            final List<String> pulledImageIds = new ArrayList<>();
+            final File sharedImageTarFile = new File(programPaths.getDockerInspectorSharedImageTarDirPath(), String.format(SHARED_IMAGE_TAR_FILENAME_FORMAT, ++sharedImageTarCount));
+            final boolean saved;
+            final List<TransferMetrics> groupTransferMetrics;
+            try {
+                for (final Integer requestIndex : requestIndexes) {
+                    pullTolerantly(requests.get(requestIndex)).ifPresent(pulledImageIds::add);
+                }
+                saved = saveImages(requests, requestIndexes, sharedImageTarFile);
+            } finally {
+                groupTransferMetrics = transferMetricsCollector.finish();
+            }
+            if (saved) {
+                for (final Integer requestIndex : requestIndexes) {
+                    resultingRequests.set(requestIndex, toSharedImageTarRequest(requests.get(requestIndex), sharedImageTarFile, groupTransferMetrics));
+                }
+                removePulledImages(pulledImageIds);
+            }
+        }
+        return resultingRequests;
+    }
+
+    // From the registry (manifest and config only) if registry.pull is on, else from the local docker image cache
+    private Optional<ImageTarMetadata> findImageMetadataWithoutPulling(final ImageInspectionRequest request) {
+        if (config.isRegistryPull() && !config.isOfflineMode()) {
+            try {
+                return Optional.of(registryImagePuller.getImageMetadata(request.getDockerImageRepo(), deriveTag(request)));
+            } catch (final IntegrationException e) {
+                logger.debug(String.format("Unable to get the layers of image %s from its registry: %s", request.getTargetDescription(), e.getMessage()));
+            }
+        }
+        return dockerClientManager.getLocalImageMetadata(deriveRepoTag(request));
+    }
+
+    private boolean isSaveable(final ImageInspectionRequest request) {
+        return StringUtils.isBlank(request.getDockerTar()) && StringUtils.isBlank(request.getDockerImageId()) && StringUtils.isNotBlank(request.getDockerImageRepo());
+    }
+
+    // Returns the ID of the pulled image; as when saving a single image, failure to pull is not fatal since the image might be local
+    private Optional<String> pullTolerantly(final ImageInspectionRequest request) {
+        if (config.isOfflineMode()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(dockerClientManager.pullImage(request.getDockerImageRepo(), deriveTag(request)));
+        } catch (final IntegrationException e) {
+            logger.info(String.format("Unable to pull %s; Proceeding anyway since the image might be in local docker image cache. Error on pull: %s", request.getTargetDescription(), e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    // If the shared save fails, the images are saved one at a time as usual
+    private boolean saveImages(final List<ImageInspectionRequest> requests, final List<Integer> requestIndexes, final File sharedImageTarFile) {
+        final Set<String> repoTags = new LinkedHashSet<>();
+        for (final Integer requestIndex : requestIndexes) {
+            repoTags.add(deriveRepoTag(requests.get(requestIndex)));
+        }
+        try {
+            dockerClientManager.saveImagesToFile(new ArrayList<>(repoTags), sharedImageTarFile);
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            logger.warn(String.format("Unable to save images %s to one tarfile; saving them separately: %s", repoTags, e.getMessage()));
+            FileUtils.deleteQuietly(sharedImageTarFile);
+            return false;
+        }
+    }
+
+    private void removePulledImages(final List<String> pulledImageIds) {
+        if (!config.isCleanupTargetImage()) {
+            return;
+        }
+        for (final String pulledImageId : pulledImageIds) {
+            try {
+                dockerClientManager.cleanUpImage(pulledImageId);
+            } catch (final IntegrationException e) {
+                logger.warn(String.format("Unable to remove target image with ID %s: %s", pulledImageId, e.getMessage()));
+            }
+        }
+    }
+
+    private ImageInspectionRequest toSharedImageTarRequest(final ImageInspectionRequest request, final File sharedImageTarFile, final List<TransferMetrics> groupTransferMetrics) {
+        return new ImageInspectionRequest(request.getDockerImage(), sharedImageTarFile.getAbsolutePath(), null, request.getDockerImageRepo(), deriveTag(request), request.getPlatformTopLayerId(),
+            request.getBlackDuckProjectName(), request.getBlackDuckProjectVersion(), request.getBlackDuckCodelocationName(), request.getBlackDuckCodelocationPrefix(), groupTransferMetrics);
+    }
+
+    private String deriveRepoTag(final ImageInspectionRequest request) {
+        return String.format("%s:%s", request.getDockerImageRepo(), deriveTag(request));
+    }
+
+    private String deriveTag(final ImageInspectionRequest request) {
+        return StringUtils.isBlank(request.getDockerImageTag()) ? "latest" : request.getDockerImageTag();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+/*
+ * The BDIO returned by the image inspector service for earlier runs, shared by all runs. The key covers everything the
+ * service's result depends on: the image ID, the repo:tag it was given, the inspection options, and the inspector image.
+ * The BDIO is stored as returned (before the project/version/code location names are adjusted), so each hit can be adjusted for its own run.
+ */
+@Component
+public class BdioResultCache {
+    private static final String CACHE_DIR = "bdio";
+    private static final String INDEX_FILENAME = "bdioResultCache.json";
+    private static final int MAX_ENTRIES = 1000;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    public boolean isEnabled() {
+        return config.isBdioResultCache() && !config.isOutputIncludeContainerfilesystem();
+    }
+
+    public String deriveKey(final String imageId, final String imageRepo, final String imageTag, final boolean organizeComponentsByLayer, final boolean includeRemovedComponents,
+        final String platformTopLayerId, final String inspectorImage) {
+        final String keySource = String.join("\n", imageId, String.valueOf(imageRepo), String.valueOf(imageTag), String.valueOf(organizeComponentsByLayer), String.valueOf(includeRemovedComponents),
+            String.valueOf(platformTopLayerId), inspectorImage);
+        return DigestUtils.sha256Hex(keySource);
+    }
+
+    // Copies the cached BDIO to bdioFile (so another run evicting it can't pull it out from under this one), and returns bdioFile
+    public Optional<File> get(final String key, final File bdioFile) {
+        final File cachedFile = getFile(key);
+        if (!cachedFile.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            bdioFile.getParentFile().mkdirs();
+            Files.copy(cachedFile.toPath(), bdioFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            markUsed(key);
+            return Optional.of(bdioFile);
+        } catch (final IOException e) {
+            // Another run may have evicted it
+            logger.debug(String.format("Unable to read cached BDIO %s: %s", cachedFile.getAbsolutePath(), e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    public void put(final String key, final File bdioFile) {
+        final File cachedFile = getFile(key);
+        try {
+            cachedFile.getParentFile().mkdirs();
+            final File tempFile = File.createTempFile(cachedFile.getName(), ".tmp", cachedFile.getParentFile());
+            Files.copy(bdioFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            markUsed(key);
+            evict(key);
+        } catch (final IOException e) {
+            logger.warn(String.format("Unable to add BDIO to the BDIO result cache: %s", e.getMessage()));
+        }
+    }
+
+    private synchronized void markUsed(final String key) {
+        final CacheFile<Map<String, Long>> indexFile = getIndexFile();
+        final Map<String, Long> lastUsedTimes = indexFile.read();
+        lastUsedTimes.put(key, System.currentTimeMillis());
+        indexFile.write(lastUsedTimes);
+    }
+
+    // Remove least recently used entries (other than the one just stored) until at most MAX_ENTRIES remain
+    private synchronized void evict(final String keptKey) {
+        final CacheFile<Map<String, Long>> indexFile = getIndexFile();
+        final Map<String, Long> lastUsedTimes = indexFile.read();
+        if (lastUsedTimes.size() <= MAX_ENTRIES) {
+            return;
+        }
+        final List<String> evictionCandidates = new ArrayList<>(lastUsedTimes.keySet());
+        evictionCandidates.remove(keptKey);
+        evictionCandidates.sort((key1, key2) -> Long.compare(lastUsedTimes.get(key1), lastUsedTimes.get(key2)));
+        for (final String evictedKey : evictionCandidates) {
+            if (lastUsedTimes.size() <= MAX_ENTRIES) {
+                break;
+            }
+            lastUsedTimes.remove(evictedKey);
+            getFile(evictedKey).delete();
+        }
+        indexFile.write(lastUsedTimes);
+    }
+
+    private File getFile(final String key) {
+        return new File(new File(programPaths.getDockerInspectorCacheDirPath(), CACHE_DIR), String.format("%s.jsonld", key));
+    }
+
+    private CacheFile<Map<String, Long>> getIndexFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), INDEX_FILENAME), new TypeToken<HashMap<String, Long>>() {}.getType(), gson, HashMap::new);
+    }
+}
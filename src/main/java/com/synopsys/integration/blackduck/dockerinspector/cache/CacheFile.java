@@ -0,0 +1,117 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/*
+ * A JSON file in the cache dir, shared by concurrent and later runs.
+ * Callers re-read it before each update so entries written by other runs are kept; update() also holds
+ * a lock on a sidecar file meanwhile, so that a concurrent run's update is not lost.
+ */
+class CacheFile<T> {
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+    // A file lock is held by the whole JVM, so threads updating the same file take turns here first
+    private static final ConcurrentMap<String, Object> monitorsByPath = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final File file;
+    private final Type type;
+    private final Gson gson;
+    private final Supplier<T> emptyValueSupplier;
+
+    CacheFile(final File file, final Type type, final Gson gson, final Supplier<T> emptyValueSupplier) {
+        this.file = file;
+        this.type = type;
+        this.gson = gson;
+        this.emptyValueSupplier = emptyValueSupplier;
+    }
+
+    T read() {
+        if (!file.exists()) {
+            return emptyValueSupplier.get();
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            final T loaded = gson.fromJson(reader, type);
+            return loaded == null ? emptyValueSupplier.get() : loaded;
+        } catch (final IOException | JsonParseException e) {
+            logger.warn(String.format("Ignoring unreadable cache file %s: %s", file.getAbsolutePath(), e.getMessage()));
+            return emptyValueSupplier.get();
+        }
+    }
+
+    // The updater changes the value in place, and returns whether it changed anything
+    void update(final Predicate<T> updater) {
+        file.getParentFile().mkdirs();
+        final File lockFile = new File(file.getParentFile(), file.getName() + LOCK_FILE_SUFFIX);
+        synchronized (monitorsByPath.computeIfAbsent(lockFile.getAbsolutePath(), path -> new Object())) {
+            try (FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = lockChannel.lock()) {
+                readAndUpdate(updater);
+            } catch (final IOException e) {
+                logger.warn(String.format("Unable to lock cache file %s; updating it unlocked: %s", file.getAbsolutePath(), e.getMessage()));
+                readAndUpdate(updater);
+            }
+        }
+    }
+
+    private void readAndUpdate(final Predicate<T> updater) {
+        final T value = read();
+        if (updater.test(value)) {
+            write(value);
+        }
+    }
+
+    // Write a temp file and rename it, so a concurrent run never sees a partial file
+    void write(final T value) {
+        try {
+            file.getParentFile().mkdirs();
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(value, writer);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            logger.warn(String.format("Unable to update cache file %s: %s", file.getAbsolutePath(), e.getMessage()));
+        }
+    }
+}
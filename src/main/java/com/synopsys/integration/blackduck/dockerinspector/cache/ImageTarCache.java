@@ -0,0 +1,225 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.TarfileHandoff;
+
+/*
+ * The image tarfiles saved by earlier runs, keyed by image ID, shared by all runs.
+ * A tarfile's manifest names the repo:tag it was saved as (which the image inspector looks for), so an entry is only
+ * used for that repo:tag. Each entry records the tarfile's size and digest, computed once when it is cached, plus its modification
+ * time and file identity. A hit checks only those cheap properties; the digest is checked only if one has changed (or if
+ * image.tar.cache.verify is true), and a tarfile whose digest no longer matches is discarded.
+ * The least recently used tarfiles are removed when the cache exceeds image.tar.cache.size.mb.
+ */
+@Component
+public class ImageTarCache {
+    private static final String CACHE_DIR = "imageTars";
+    private static final String INDEX_FILENAME = "imageTarCache.json";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private TarfileHandoff tarfileHandoff;
+
+    @Autowired
+    private Gson gson;
+
+    static class Entry {
+        String repoTag;
+        long size;
+        String sha256;
+        long modifiedTime;
+        String fileKey;
+        long lastUsed;
+    }
+
+    public boolean isEnabled() {
+        return config.getImageTarCacheSizeMb() > 0L;
+    }
+
+    // Puts the cached tarfile (if any) for the image at imageTarFile; the cached tarfile itself is never handed out, since the run's tarfile may be moved
+    public boolean get(final String imageId, final String repoTag, final File imageTarFile) {
+        final Optional<Entry> entry = getEntry(imageId);
+        if (!entry.isPresent() || !repoTag.equals(entry.get().repoTag)) {
+            logger.debug(String.format("Image tarfile cache has no tarfile for %s (%s)", repoTag, imageId));
+            return false;
+        }
+        final File cachedFile = getFile(imageId);
+        try {
+            if (!isIntact(cachedFile, entry.get())) {
+                logger.warn(String.format("Discarding cached image tarfile %s: it does not match its recorded size and digest", cachedFile.getAbsolutePath()));
+                remove(imageId);
+                return false;
+            }
+            tarfileHandoff.handOff(cachedFile, imageTarFile, false);
+        } catch (final IOException e) {
+            // Another run may have evicted it
+            logger.debug(String.format("Unable to get cached image tarfile %s: %s", cachedFile.getAbsolutePath(), e.getMessage()));
+            return false;
+        }
+        markUsed(imageId, entry.get());
+        logger.info(String.format("Got image %s (%s) from the image tarfile cache; docker save was not needed", repoTag, imageId));
+        return true;
+    }
+
+    public void put(final String imageId, final String repoTag, final File imageTarFile) {
+        final File cachedFile = getFile(imageId);
+        File tempFile = null;
+        try {
+            final Entry entry = new Entry();
+            entry.repoTag = repoTag;
+            entry.size = imageTarFile.length();
+            entry.sha256 = computeDigest(imageTarFile);
+            // A unique name, since concurrent runs (not just threads) may cache the same image
+            cachedFile.getParentFile().mkdirs();
+            tempFile = File.createTempFile(cachedFile.getName() + ".", ".tmp", cachedFile.getParentFile());
+            tarfileHandoff.handOff(imageTarFile, tempFile, false);
+            Files.move(tempFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordFileAttributes(cachedFile, entry);
+            markUsed(imageId, entry);
+            logger.debug(String.format("Added %s (%s; %d bytes) to the image tarfile cache", repoTag, imageId, entry.size));
+            evict(imageId);
+        } catch (final IOException e) {
+            logger.warn(String.format("Unable to add image %s to the image tarfile cache: %s", repoTag, e.getMessage()));
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    // The full digest is computed only when the cheap checks fail (or verification is requested); a file that still matches it is re-recorded
+    private boolean isIntact(final File cachedFile, final Entry entry) throws IOException {
+        if (!cachedFile.isFile() || cachedFile.length() != entry.size) {
+            return false;
+        }
+        final BasicFileAttributes attributes = Files.readAttributes(cachedFile.toPath(), BasicFileAttributes.class);
+        if (!config.isImageTarCacheVerify() && attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS) == entry.modifiedTime && deriveFileKey(attributes).equals(entry.fileKey)) {
+            return true;
+        }
+        if (!entry.sha256.equals(computeDigest(cachedFile))) {
+            return false;
+        }
+        recordFileAttributes(cachedFile, entry);
+        return true;
+    }
+
+    private void recordFileAttributes(final File cachedFile, final Entry entry) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(cachedFile.toPath(), BasicFileAttributes.class);
+        entry.modifiedTime = attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+        entry.fileKey = deriveFileKey(attributes);
+    }
+
+    // The device and inode, where the file system provides them
+    private String deriveFileKey(final BasicFileAttributes attributes) {
+        return attributes.fileKey() == null ? "" : attributes.fileKey().toString();
+    }
+
+    private String computeDigest(final File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return DigestUtils.sha256Hex(inputStream);
+        }
+    }
+
+    private Optional<Entry> getEntry(final String imageId) {
+        return Optional.ofNullable(getIndexFile().read().get(imageId));
+    }
+
+    private synchronized void markUsed(final String imageId, final Entry entry) {
+        final CacheFile<Map<String, Entry>> indexFile = getIndexFile();
+        final Map<String, Entry> entries = indexFile.read();
+        entry.lastUsed = System.currentTimeMillis();
+        entries.put(imageId, entry);
+        indexFile.write(entries);
+    }
+
+    private synchronized void remove(final String imageId) {
+        final CacheFile<Map<String, Entry>> indexFile = getIndexFile();
+        final Map<String, Entry> entries = indexFile.read();
+        entries.remove(imageId);
+        indexFile.write(entries);
+        getFile(imageId).delete();
+    }
+
+    // Remove least recently used tarfiles (other than the one just cached) until the cache fits in its budget
+    private synchronized void evict(final String keptImageId) {
+        final long maxSize = config.getImageTarCacheSizeMb() * 1024L * 1024L;
+        final CacheFile<Map<String, Entry>> indexFile = getIndexFile();
+        final Map<String, Entry> entries = indexFile.read();
+        final List<String> evictionCandidates = new ArrayList<>();
+        long totalSize = 0L;
+        for (final Map.Entry<String, Entry> cachedImage : entries.entrySet()) {
+            totalSize += cachedImage.getValue().size;
+            if (!cachedImage.getKey().equals(keptImageId)) {
+                evictionCandidates.add(cachedImage.getKey());
+            }
+        }
+        evictionCandidates.sort((imageId1, imageId2) -> Long.compare(entries.get(imageId1).lastUsed, entries.get(imageId2).lastUsed));
+        for (final String evictedImageId : evictionCandidates) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            totalSize -= entries.remove(evictedImageId).size;
+            getFile(evictedImageId).delete();
+            logger.debug(String.format("Evicted %s from the image tarfile cache", evictedImageId));
+        }
+        indexFile.write(entries);
+    }
+
+    private File getFile(final String imageId) {
+        final File cacheDir = new File(programPaths.getDockerInspectorCacheDirPath(), CACHE_DIR);
+        return new File(cacheDir, String.format("%s.tar", imageId.replace("sha256:", "")));
+    }
+
+    private CacheFile<Map<String, Entry>> getIndexFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), INDEX_FILENAME), new TypeToken<HashMap<String, Entry>>() {}.getType(), gson, HashMap::new);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+/*
+ * When each pooled image inspector service container was last used, by any run.
+ * Docker labels can't be changed once a container is created, so the times are kept in the cache dir instead.
+ */
+@Component
+public class InspectorContainerUsage {
+    private static final String CACHE_FILENAME = "inspectorContainerUsage.json";
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    public synchronized void markUsed(final String containerId, final long usedTime) {
+        getCacheFile().update(lastUsedTimes -> {
+            lastUsedTimes.put(containerId, usedTime);
+            return true;
+        });
+    }
+
+    public synchronized Map<String, Long> getLastUsedTimes() {
+        return getCacheFile().read();
+    }
+
+    public synchronized void forget(final Collection<String> containerIds) {
+        getCacheFile().update(lastUsedTimes -> lastUsedTimes.keySet().removeAll(containerIds));
+    }
+
+    private CacheFile<Map<String, Long>> getCacheFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), CACHE_FILENAME), new TypeToken<HashMap<String, Long>>() {}.getType(), gson, HashMap::new);
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+
+/*
+ * Remembers which image inspector OS each image needs, keyed by image ID and by base layer,
+ * so later inspections of the same image (or another image built on the same base) skip the redirect.
+ * The cache file lives in the working dir (outside the run dir), and is shared by all runs.
+ */
+@Component
+public class InspectorOsCache {
+    private static final String CACHE_FILENAME = "inspectorOsCache.json";
+    private static final String IMAGE_KEY_PREFIX = "image:";
+    private static final String BASE_LAYER_KEY_PREFIX = "baselayer:";
+    private static final int MAX_ENTRY_COUNT = 10000;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    private Map<String, String> inspectorOsNamesByKey;
+
+    public synchronized Optional<ImageInspectorOsEnum> lookup(final ImageTarMetadata imageTarMetadata) {
+        if (!config.isImageInspectorDistroCache()) {
+            return Optional.empty();
+        }
+        if (inspectorOsNamesByKey == null) {
+            inspectorOsNamesByKey = load();
+        }
+        Optional<ImageInspectorOsEnum> inspectorOs = lookup(IMAGE_KEY_PREFIX + imageTarMetadata.getImageId());
+        if (!inspectorOs.isPresent() && imageTarMetadata.getBaseLayerDiffId().isPresent()) {
+            inspectorOs = lookup(BASE_LAYER_KEY_PREFIX + imageTarMetadata.getBaseLayerDiffId().get());
+        }
+        inspectorOs.ifPresent(os -> logger.debug(String.format("Image %s was last inspected on %s", imageTarMetadata.getImageId(), os.name())));
+        return inspectorOs;
+    }
+
+    public synchronized void store(final ImageTarMetadata imageTarMetadata, final ImageInspectorOsEnum inspectorOs) {
+        if (!config.isImageInspectorDistroCache()) {
+            return;
+        }
+        // Re-read first so entries written by other runs since we loaded are kept
+        inspectorOsNamesByKey = load();
+        put(IMAGE_KEY_PREFIX + imageTarMetadata.getImageId(), inspectorOs);
+        imageTarMetadata.getBaseLayerDiffId().ifPresent(baseLayerDiffId -> put(BASE_LAYER_KEY_PREFIX + baseLayerDiffId, inspectorOs));
+        save();
+    }
+
+    private Optional<ImageInspectorOsEnum> lookup(final String key) {
+        final String inspectorOsName = inspectorOsNamesByKey.get(key);
+        if (inspectorOsName == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ImageInspectorOsEnum.valueOf(inspectorOsName));
+        } catch (final IllegalArgumentException e) {
+            logger.debug(String.format("Ignoring unrecognized inspector OS %s in %s", inspectorOsName, CACHE_FILENAME));
+            return Optional.empty();
+        }
+    }
+
+    // Most recently stored last; the oldest entries are dropped when the cache is full
+    private void put(final String key, final ImageInspectorOsEnum inspectorOs) {
+        inspectorOsNamesByKey.remove(key);
+        inspectorOsNamesByKey.put(key, inspectorOs.name());
+        final Iterator<String> oldestKeys = inspectorOsNamesByKey.keySet().iterator();
+        while (inspectorOsNamesByKey.size() > MAX_ENTRY_COUNT) {
+            oldestKeys.next();
+            oldestKeys.remove();
+        }
+    }
+
+    private Map<String, String> load() {
+        return getCacheFile().read();
+    }
+
+    private void save() {
+        getCacheFile().write(inspectorOsNamesByKey);
+    }
+
+    private CacheFile<Map<String, String>> getCacheFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), CACHE_FILENAME), new TypeToken<LinkedHashMap<String, String>>() {}.getType(), gson, LinkedHashMap::new);
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+/*
+ * A content-addressed store of image layers (keyed by diffID) and image configs (keyed by image ID), shared by all runs.
+ * Both keys are the sha256 digest of the uncompressed content, so a stored file is never modified; it is written to a temp file
+ * and renamed into place once its digest is known. The least recently used files are removed when the store exceeds layer.store.size.mb.
+ */
+@Component
+public class LayerStore {
+    private static final String STORE_DIR = "layers";
+    private static final String INDEX_FILENAME = "layerStore.json";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String DIGEST_PREFIX = "sha256:";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    public boolean isEnabled() {
+        return config.getLayerStoreSizeMb() > 0L;
+    }
+
+    public boolean contains(final String digest) {
+        return getFile(digest).map(File::isFile).orElse(false);
+    }
+
+    public boolean containsAll(final Collection<String> digests) {
+        return digests.stream().allMatch(this::contains);
+    }
+
+    // The file may be evicted by another run at any time, so callers must be prepared for reading it to fail
+    public Optional<File> get(final String digest) {
+        final Optional<File> file = getFile(digest).filter(File::isFile);
+        file.ifPresent(storedFile -> markUsed(digest));
+        return file;
+    }
+
+    public String put(final InputStream content) throws IOException {
+        try (BlobWriter blobWriter = newBlobWriter()) {
+            IOUtils.copyLarge(content, blobWriter);
+            return blobWriter.commit();
+        }
+    }
+
+    public BlobWriter newBlobWriter() throws IOException {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(String.format("Unable to compute layer digests: %s", e.getMessage()), e);
+        }
+        final File storeDir = getStoreDir();
+        storeDir.mkdirs();
+        return new BlobWriter(File.createTempFile("blob", ".tmp", storeDir), messageDigest);
+    }
+
+    // Writes one blob; commit() stores it under its digest (unless it is already stored), and close() discards anything uncommitted
+    public class BlobWriter extends OutputStream {
+        private final File tempFile;
+        private final MessageDigest messageDigest;
+        private final DigestOutputStream digestOutputStream;
+
+        private BlobWriter(final File tempFile, final MessageDigest messageDigest) throws IOException {
+            this.tempFile = tempFile;
+            this.messageDigest = messageDigest;
+            digestOutputStream = new DigestOutputStream(new FileOutputStream(tempFile), messageDigest);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            digestOutputStream.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            digestOutputStream.write(b, off, len);
+        }
+
+        public String commit() throws IOException {
+            digestOutputStream.close();
+            final String digest = DIGEST_PREFIX + Hex.encodeHexString(messageDigest.digest());
+            final File storedFile = getFile(digest).get();
+            if (storedFile.isFile()) {
+                logger.debug(String.format("Layer store already contains %s", digest));
+            } else {
+                Files.move(tempFile.toPath(), storedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.debug(String.format("Added %s (%d bytes) to the layer store", digest, storedFile.length()));
+            }
+            markUsed(digest);
+            evict(digest);
+            return digest;
+        }
+
+        @Override
+        public void close() throws IOException {
+            digestOutputStream.close();
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private synchronized void markUsed(final String digest) {
+        final CacheFile<Map<String, Long>> indexFile = getIndexFile();
+        final Map<String, Long> lastUsedTimes = indexFile.read();
+        lastUsedTimes.put(digest, System.currentTimeMillis());
+        indexFile.write(lastUsedTimes);
+    }
+
+    // Remove least recently used files (other than the one just stored) until the store fits in its budget
+    private synchronized void evict(final String keptDigest) {
+        final long maxSize = config.getLayerStoreSizeMb() * 1024L * 1024L;
+        final CacheFile<Map<String, Long>> indexFile = getIndexFile();
+        final Map<String, Long> lastUsedTimes = indexFile.read();
+        final File[] storedFiles = getStoreDir().listFiles((dir, name) -> !name.endsWith(".tmp"));
+        if (storedFiles == null) {
+            return;
+        }
+        final List<File> evictionCandidates = new ArrayList<>();
+        long totalSize = 0L;
+        for (final File storedFile : storedFiles) {
+            totalSize += storedFile.length();
+            if (!storedFile.getName().equals(toFilename(keptDigest))) {
+                evictionCandidates.add(storedFile);
+            }
+        }
+        evictionCandidates.sort((file1, file2) -> Long.compare(lastUsedTimes.getOrDefault(toDigest(file1), 0L), lastUsedTimes.getOrDefault(toDigest(file2), 0L)));
+        for (final File evictedFile : evictionCandidates) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            final long evictedSize = evictedFile.length();
+            if (evictedFile.delete()) {
+                logger.debug(String.format("Evicted %s (%d bytes) from the layer store", toDigest(evictedFile), evictedSize));
+                totalSize -= evictedSize;
+            }
+            lastUsedTimes.remove(toDigest(evictedFile));
+        }
+        indexFile.write(lastUsedTimes);
+    }
+
+    private Optional<File> getFile(final String digest) {
+        if (digest == null || !digest.startsWith(DIGEST_PREFIX)) {
+            return Optional.empty();
+        }
+        return Optional.of(new File(getStoreDir(), toFilename(digest)));
+    }
+
+    private String toFilename(final String digest) {
+        return digest.substring(DIGEST_PREFIX.length());
+    }
+
+    private String toDigest(final File storedFile) {
+        return DIGEST_PREFIX + storedFile.getName();
+    }
+
+    private File getStoreDir() {
+        return new File(programPaths.getDockerInspectorCacheDirPath(), STORE_DIR);
+    }
+
+    private CacheFile<Map<String, Long>> getIndexFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), INDEX_FILENAME), new TypeToken<HashMap<String, Long>>() {}.getType(), gson, HashMap::new);
+    }
+}
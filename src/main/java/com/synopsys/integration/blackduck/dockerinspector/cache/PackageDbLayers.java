@@ -0,0 +1,115 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+/*
+ * Records, per layer diffID, whether the layer changes os-release or a package database: the only files the image inspector's
+ * result depends on. An image's result is therefore determined by its layers up to the last one that does (its "package chain"),
+ * so images that differ only in layers above that (typically the application layer) get the same result.
+ * The package chain is identified by its chain ID, computed as docker does: ChainID(L0) = DiffID(L0); ChainID(L0..n) = sha256(ChainID(L0..n-1) + " " + DiffID(Ln)).
+ */
+@Component
+public class PackageDbLayers {
+    private static final String INDEX_FILENAME = "packageDbLayers.json";
+    private static final String DIGEST_PREFIX = "sha256:";
+    private static final int MAX_ENTRIES = 20000;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    public synchronized void record(final List<String> layerDiffIds, final Set<String> packageDbLayerDiffIds) {
+        final CacheFile<LinkedHashMap<String, Boolean>> indexFile = getIndexFile();
+        final LinkedHashMap<String, Boolean> changesPackageDb = indexFile.read();
+        for (final String layerDiffId : layerDiffIds) {
+            changesPackageDb.remove(layerDiffId);
+            changesPackageDb.put(layerDiffId, packageDbLayerDiffIds.contains(layerDiffId));
+        }
+        // Oldest first
+        final Iterator<String> layerDiffIdIterator = changesPackageDb.keySet().iterator();
+        while (changesPackageDb.size() > MAX_ENTRIES && layerDiffIdIterator.hasNext()) {
+            layerDiffIdIterator.next();
+            layerDiffIdIterator.remove();
+        }
+        indexFile.write(changesPackageDb);
+    }
+
+    // Empty unless every layer has been recorded
+    public Optional<String> derivePackageChainId(final List<String> layerDiffIds, final String platformTopLayerId) {
+        final Map<String, Boolean> changesPackageDb = getIndexFile().read();
+        if (!changesPackageDb.keySet().containsAll(layerDiffIds)) {
+            return Optional.empty();
+        }
+        return derivePackageChainId(layerDiffIds, changesPackageDb::get, platformTopLayerId);
+    }
+
+    public Optional<String> derivePackageChainId(final List<String> layerDiffIds, final Set<String> packageDbLayerDiffIds, final String platformTopLayerId) {
+        return derivePackageChainId(layerDiffIds, packageDbLayerDiffIds::contains, platformTopLayerId);
+    }
+
+    // A platform top layer above the package chain would make the result depend on the layers above it, so there is no package chain then
+    private Optional<String> derivePackageChainId(final List<String> layerDiffIds, final Predicate<String> changesPackageDb, final String platformTopLayerId) {
+        if (layerDiffIds.isEmpty()) {
+            return Optional.empty();
+        }
+        int lastPackageDbLayerIndex = 0;
+        for (int layerIndex = 0; layerIndex < layerDiffIds.size(); layerIndex++) {
+            if (changesPackageDb.test(layerDiffIds.get(layerIndex))) {
+                lastPackageDbLayerIndex = layerIndex;
+            }
+        }
+        final List<String> packageChain = layerDiffIds.subList(0, lastPackageDbLayerIndex + 1);
+        if (StringUtils.isNotBlank(platformTopLayerId) && !packageChain.contains(platformTopLayerId)) {
+            return Optional.empty();
+        }
+        String chainId = packageChain.get(0);
+        for (final String layerDiffId : packageChain.subList(1, packageChain.size())) {
+            chainId = DIGEST_PREFIX + DigestUtils.sha256Hex(chainId + " " + layerDiffId);
+        }
+        return Optional.of(chainId);
+    }
+
+    private CacheFile<LinkedHashMap<String, Boolean>> getIndexFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), INDEX_FILENAME), new TypeToken<LinkedHashMap<String, Boolean>>() {}.getType(), gson, LinkedHashMap::new);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+/*
+ * The docker cleanups (container stop/remove, image removal) queued by cleanup.async and not yet done.
+ * Recorded in the cache dir, so that one left behind by a run that crashed or timed out draining its queue is finished by a later run.
+ */
+@Component
+public class PendingCleanups {
+    public static final String TYPE_CONTAINER = "container";
+    public static final String TYPE_IMAGE = "image";
+    private static final String RECORD_FILENAME = "pendingCleanups.json";
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    public static class PendingCleanup {
+        private String type;
+        private String id;
+        private long recordedAt;
+
+        public String getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        private boolean isSame(final PendingCleanup other) {
+            return type.equals(other.type) && id.equals(other.id);
+        }
+    }
+
+    public synchronized PendingCleanup add(final String type, final String id) {
+        final PendingCleanup pendingCleanup = new PendingCleanup();
+        pendingCleanup.type = type;
+        pendingCleanup.id = id;
+        pendingCleanup.recordedAt = System.currentTimeMillis();
+        getRecordFile().update(pendingCleanups -> {
+            pendingCleanups.removeIf(pendingCleanup::isSame);
+            pendingCleanups.add(pendingCleanup);
+            return true;
+        });
+        return pendingCleanup;
+    }
+
+    public synchronized void remove(final PendingCleanup pendingCleanup) {
+        getRecordFile().update(pendingCleanups -> pendingCleanups.removeIf(pendingCleanup::isSame));
+    }
+
+    // A cleanup recorded less than minAgeMillis ago may still be in the queue of a concurrent run, so it is left to that run
+    public synchronized List<PendingCleanup> takeAbandoned(final long minAgeMillis) {
+        final long cutoff = System.currentTimeMillis() - minAgeMillis;
+        final List<PendingCleanup> abandonedCleanups = new ArrayList<>();
+        getRecordFile().update(pendingCleanups -> {
+            final Iterator<PendingCleanup> iterator = pendingCleanups.iterator();
+            while (iterator.hasNext()) {
+                final PendingCleanup pendingCleanup = iterator.next();
+                if (pendingCleanup.recordedAt <= cutoff) {
+                    abandonedCleanups.add(pendingCleanup);
+                    iterator.remove();
+                }
+            }
+            return !abandonedCleanups.isEmpty();
+        });
+        return abandonedCleanups;
+    }
+
+    private CacheFile<List<PendingCleanup>> getRecordFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), RECORD_FILENAME), new TypeToken<ArrayList<PendingCleanup>>() {}.getType(), gson, ArrayList::new);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * The platform (base) images known to this host, with their layer diffIDs, shared by all runs. Images get in by being inspected
+ * with platform.image.catalog.add, or from the platform.image.catalog.import file. An image built on a platform image starts
+ * with all of its layers, so the platform top layer for an image is the top layer of the longest platform image its layers start with.
+ */
+@Component
+public class PlatformImageCatalog {
+    private static final String CATALOG_FILENAME = "platformImageCatalog.json";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ProgramPaths programPaths;
+
+    @Autowired
+    private Gson gson;
+
+    private boolean importDone = false;
+
+    static class PlatformImage {
+        String image;
+        List<String> layerDiffIds;
+    }
+
+    public boolean isEnabled() {
+        return config.isDockerPlatformTopLayerAuto() || config.isPlatformImageCatalogAdd();
+    }
+
+    // A platform image with exactly the image's layers is the image itself, which has no platform layers of its own
+    public Optional<String> findPlatformTopLayerId(final List<String> layerDiffIds) throws IntegrationException {
+        importIfNeeded();
+        String platformImageName = null;
+        List<String> platformLayerDiffIds = null;
+        for (final Map.Entry<String, List<String>> platformImage : getCatalogFile().read().entrySet()) {
+            final List<String> candidateLayerDiffIds = platformImage.getValue();
+            if (candidateLayerDiffIds == null || candidateLayerDiffIds.isEmpty() || candidateLayerDiffIds.size() >= layerDiffIds.size()) {
+                continue;
+            }
+            if ((platformLayerDiffIds == null || candidateLayerDiffIds.size() > platformLayerDiffIds.size()) && candidateLayerDiffIds.equals(layerDiffIds.subList(0, candidateLayerDiffIds.size()))) {
+                platformImageName = platformImage.getKey();
+                platformLayerDiffIds = candidateLayerDiffIds;
+            }
+        }
+        if (platformLayerDiffIds == null) {
+            logger.debug("The image is not built on any image in the platform image catalog");
+            return Optional.empty();
+        }
+        logger.debug(String.format("The image is built on platform image %s", platformImageName));
+        return Optional.of(platformLayerDiffIds.get(platformLayerDiffIds.size() - 1));
+    }
+
+    public void add(final String imageName, final List<String> layerDiffIds) throws IntegrationException {
+        importIfNeeded();
+        if (layerDiffIds.isEmpty()) {
+            return;
+        }
+        logger.info(String.format("Adding image %s to the platform image catalog", imageName));
+        update(imageName, layerDiffIds);
+    }
+
+    private synchronized void importIfNeeded() throws IntegrationException {
+        if (importDone || StringUtils.isBlank(config.getPlatformImageCatalogImport())) {
+            return;
+        }
+        final File importFile = new File(config.getPlatformImageCatalogImport());
+        final PlatformImage[] platformImages;
+        try (Reader reader = Files.newBufferedReader(importFile.toPath(), StandardCharsets.UTF_8)) {
+            platformImages = gson.fromJson(reader, PlatformImage[].class);
+        } catch (final IOException | JsonParseException e) {
+            throw new IntegrationException(String.format("Error reading platform image catalog import file %s: %s", importFile.getAbsolutePath(), e.getMessage()), e);
+        }
+        if (platformImages != null) {
+            for (final PlatformImage platformImage : platformImages) {
+                if (StringUtils.isBlank(platformImage.image) || platformImage.layerDiffIds == null || platformImage.layerDiffIds.isEmpty()) {
+                    throw new IntegrationException(String.format("Each platform image in %s must have an image and layerDiffIds", importFile.getAbsolutePath()));
+                }
+                update(platformImage.image, platformImage.layerDiffIds);
+            }
+            logger.info(String.format("Imported %d platform images from %s", platformImages.length, importFile.getAbsolutePath()));
+        }
+        importDone = true;
+    }
+
+    private synchronized void update(final String imageName, final List<String> layerDiffIds) {
+        final CacheFile<Map<String, List<String>>> catalogFile = getCatalogFile();
+        final Map<String, List<String>> platformImages = catalogFile.read();
+        platformImages.put(imageName, layerDiffIds);
+        catalogFile.write(platformImages);
+    }
+
+    private CacheFile<Map<String, List<String>>> getCatalogFile() {
+        return new CacheFile<>(new File(programPaths.getDockerInspectorCacheDirPath(), CATALOG_FILENAME), new TypeToken<HashMap<String, List<String>>>() {}.getType(), gson, HashMap::new);
+    }
+}
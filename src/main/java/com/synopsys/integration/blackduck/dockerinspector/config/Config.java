@@ -228,6 +228,14 @@ public class Config {
     @Value("${cleanup.inspector.image:false}")
     private Boolean cleanupInspectorImage = Boolean.FALSE;
 
+    @ValueDescription(description = "Stop/remove inspector containers and images, and remove target images, on a background thread, so the BDIO is written and uploaded without waiting for them. Cleanups still pending when a run ends (see cleanup.async.drain.timeout.seconds) or crashes are finished by the next run", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${cleanup.async:false}")
+    private Boolean cleanupAsync = Boolean.FALSE;
+
+    @ValueDescription(description = "With cleanup.async: the maximum number of seconds a run waits, when it is done, for its background cleanups to finish", defaultValue = "60", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${cleanup.async.drain.timeout.seconds:60}")
+    private Long cleanupAsyncDrainTimeoutSeconds = 60L;
+
     @ValueDescription(description = "In generated BDIO, organize components by layer?", defaultValue = "false", group = Config.GROUP_PRIVATE, deprecated = false)
     @Value("${bdio.organize.components.by.layer:false}")
     private Boolean organizeComponentsByLayer = Boolean.FALSE;
@@ -244,10 +252,24 @@ public class Config {
     @Value("${shared.dir.path.imageinspector:/opt/blackduck/blackduck-imageinspector/shared}")
     private String sharedDirPathImageInspector = "/opt/blackduck/blackduck-imageinspector/shared";
 
-    @ValueDescription(description = "The URL of the (already running) imageinspector service to use", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
+    @ValueDescription(description = "The URL of the (already running) imageinspector service to use. When using existing services, this can be a comma-separated list of URLs; requests are balanced across them", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
     @Value("${imageinspector.service.url:}")
     private String imageInspectorUrl = "";
 
+    // Properties for balancing requests across existing imageinspector services:
+
+    @ValueDescription(description = "Resolve the host in each imageinspector.service.url to all of its addresses (for example, a Kubernetes headless service), and balance requests across them", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.url.resolve.all:false}")
+    private Boolean imageInspectorUrlResolveAll = Boolean.FALSE;
+
+    @ValueDescription(description = "Seconds between background health checks of existing imageinspector services (and re-resolution of their addresses)", defaultValue = "10", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.health.check.interval:10}")
+    private Long imageInspectorHealthCheckInterval = 10L;
+
+    @ValueDescription(description = "Seconds for which an existing imageinspector service that fails a request or health check is taken out of rotation", defaultValue = "30", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.ejection.time:30}")
+    private Long imageInspectorEjectionTime = 30L;
+
     // Properties for pull/start services/containers as needed mode:
 
     @ValueDescription(description = "Start ImageInspector services (containers) as needed?", defaultValue = "true", group = Config.GROUP_PUBLIC, deprecated = false)
@@ -283,10 +305,147 @@ public class Config {
     @Value("${imageinspector.service.distro.default:ubuntu}")
     private String imageInspectorDefaultDistro = INSPECTOR_OS_UBUNTU;
 
+    // In "start containers" mode, further containers (on dynamically allocated host ports) are started when all running ones for that distro are busy
+    @ValueDescription(description = "Maximum number of image inspector service containers to run per image inspector Linux distro", defaultValue = "1", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.replicas:1}")
+    private Integer imageInspectorServiceReplicas = 1;
+
+    @ValueDescription(description = "In batch and daemon modes, start the image inspector services for all Linux distros concurrently at startup, rather than each one when first needed", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.start.eager:false}")
+    private Boolean imageInspectorServiceStartEager = Boolean.FALSE;
+
+    @ValueDescription(description = "Remember which image inspector Linux distro each image (and base layer) needs, so that later inspections of it go straight to the right service", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.distro.cache:false}")
+    private Boolean imageInspectorDistroCache = Boolean.FALSE;
+
+    @ValueDescription(description = "Determine which image inspector Linux distro an image needs by looking for its package manager database in the image tarfile, before sending it to a service", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.distro.detect:false}")
+    private Boolean imageInspectorDistroDetect = Boolean.FALSE;
+
+    @ValueDescription(description = "Leave the image inspector service containers this run starts running for later runs to reuse (regardless of container name), and stop pooled containers that have been idle longer than imageinspector.service.pool.idle.timeout", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.pool:false}")
+    private Boolean imageInspectorServicePool = Boolean.FALSE;
+
+    @ValueDescription(description = "Pooled image inspector service container idle timeout (milliseconds)", defaultValue = "1800000", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.pool.idle.timeout:1800000}")
+    private Long imageInspectorServicePoolIdleTimeout = 1800000L;
+
+    @ValueDescription(description = "Batch and daemon modes: pause (docker pause) an image inspector service container that has had no requests for this many milliseconds, and unpause it when a request is routed to it. 0 means never pause", defaultValue = "0", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.pause.after:0}")
+    private Long imageInspectorServicePauseAfter = 0L;
+
+    @ValueDescription(description = "Speed up image inspector service starts with a class data sharing (AppCDS) archive, generated by the first container started on each inspector image version and kept in a directory next to the shared directory. Requires a Java 13 or later JVM in the inspector image; older JVMs start as usual", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.cds:false}")
+    private Boolean imageInspectorServiceCds = Boolean.FALSE;
+
+    @ValueDescription(description = "Image inspector service container CPU/memory limits and JVM heap/GC flags: none (no limits), small (1 CPU, 1GB), large (4 CPUs, 4GB), or auto (an equal share of the docker host's CPUs and half its memory per service container)", defaultValue = "none", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.resource.profile:none}")
+    private String imageInspectorServiceResourceProfile = "none";
+
+    @ValueDescription(description = "Size (MB) of a tmpfs mounted at /tmp in each image inspector service container for scratch space (counted against its memory limit). 0 means no tmpfs", defaultValue = "0", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${imageinspector.service.tmpfs.size.mb:0}")
+    private Long imageInspectorServiceTmpfsSizeMb = 0L;
+
     @ValueDescription(description = "Make no attempts to access network-based resources (the Black Duck server, docker repository)", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
     @Value("${offline.mode:false}")
     private Boolean offlineMode = Boolean.FALSE;
 
+    @ValueDescription(description = "Maximum size (in megabytes) of the layer store: the image layers and configs saved by earlier runs, kept in the working dir so that an image whose layers are all stored can be assembled without docker save. 0 disables the layer store", defaultValue = "0", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${layer.store.size.mb:0}")
+    private Long layerStoreSizeMb = 0L;
+
+    @ValueDescription(description = "Maximum size (in megabytes) of the image tarfile cache: the tarfiles saved by earlier runs, keyed by image ID and kept in the working dir so that an unchanged image is not saved again. Its space is not shared with the layer store. 0 disables the image tarfile cache", defaultValue = "0", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${image.tar.cache.size.mb:0}")
+    private Long imageTarCacheSizeMb = 0L;
+
+    @ValueDescription(description = "Check the full SHA-256 digest of a cached image tarfile each time it is used. Otherwise the digest is checked only when the tarfile's size, modification time or file identity has changed since it was cached", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${image.tar.cache.verify:false}")
+    private Boolean imageTarCacheVerify = Boolean.FALSE;
+
+    @ValueDescription(description = "Reuse the BDIO from an earlier run (kept in the working dir) when the image ID, image repo:tag, inspection options, and inspector image are unchanged, skipping the image save and inspection. Not used when output.include.containerfilesystem is true", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${bdio.result.cache:false}")
+    private Boolean bdioResultCache = Boolean.FALSE;
+
+    @ValueDescription(description = "With bdio.result.cache, also reuse the BDIO of an earlier image that has the same layers up to the last layer that changes the package database or os-release (for example, an image that only differs in its application layer). Not used when bdio.organize.components.by.layer is true", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${bdio.result.cache.layers:false}")
+    private Boolean bdioResultCacheLayers = Boolean.FALSE;
+
+    @ValueDescription(description = "If docker.platform.top.layer.id is not set, set it to the top layer of the largest image in the platform image catalog that the target image is built on", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${docker.platform.top.layer.auto:false}")
+    private Boolean dockerPlatformTopLayerAuto = Boolean.FALSE;
+
+    @ValueDescription(description = "Add the target image(s) to the platform image catalog (kept in the working dir), for docker.platform.top.layer.auto. Use this when inspecting the platform (base) images", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${platform.image.catalog.add:false}")
+    private Boolean platformImageCatalogAdd = Boolean.FALSE;
+
+    @ValueDescription(description = "Path to a JSON file of platform images to add to the platform image catalog: an array of objects, each with an image name (image) and its layer diffIDs (layerDiffIds, as shown by docker inspect under RootFS.Layers)", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${platform.image.catalog.import:}")
+    private String platformImageCatalogImport = "";
+
+    @ValueDescription(description = "Keep an in-memory model of the docker daemon's containers and images, kept current from the docker event stream, rather than listing them for each lookup. Useful in daemon and batch modes on hosts with many containers", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${docker.state.cache:false}")
+    private Boolean dockerStateCache = Boolean.FALSE;
+
+    @ValueDescription(description = "Get the image (docker.image) straight from its registry over the Docker Registry v2 API, rather than through the docker daemon (docker pull + docker save). Falls back to the docker daemon if that fails", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${registry.pull:false}")
+    private Boolean registryPull = Boolean.FALSE;
+
+    @ValueDescription(description = "Registry username, for registry.pull (leave blank for anonymous access)", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${registry.username:}")
+    private String registryUsername = "";
+
+    @ValueDescription(description = "Registry password or access token, for registry.pull", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${registry.password:}")
+    private String registryPassword = "";
+
+    @ValueDescription(description = "Platform to choose when the image is multi-platform, for registry.pull", defaultValue = "linux/amd64", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${registry.platform:linux/amd64}")
+    private String registryPlatform = "linux/amd64";
+
+    @ValueDescription(description = "Maximum number of layers downloaded concurrently, for registry.pull", defaultValue = "3", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${registry.download.concurrency:3}")
+    private Integer registryDownloadConcurrency = 3;
+
+    // Properties for batch mode (inspect multiple images in one run):
+
+    @ValueDescription(description = "Path to a batch manifest: a JSON array of objects, one per image, each containing docker.image, docker.tar, or docker.image.id, and optionally docker.image.repo, docker.image.tag, docker.platform.top.layer.id, blackduck.project.name, blackduck.project.version, blackduck.codelocation.name, blackduck.codelocation.prefix", defaultValue = "", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.manifest:}")
+    private String batchManifest = "";
+
+    @ValueDescription(description = "Batch mode: maximum number of images inspected (by the image inspector service) concurrently", defaultValue = "2", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.concurrency:2}")
+    private Integer batchConcurrency = 2;
+
+    @ValueDescription(description = "Batch mode: maximum number of images pulled/saved concurrently", defaultValue = "1", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.prepare.concurrency:1}")
+    private Integer batchPrepareConcurrency = 1;
+
+    @ValueDescription(description = "Batch mode: maximum number of images prepared (saved to the working dir) ahead of the images being inspected", defaultValue = "1", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.prepare.ahead:1}")
+    private Integer batchPrepareAhead = 1;
+
+    @ValueDescription(description = "Batch mode: maximum number of BDIO files uploaded to Black Duck concurrently", defaultValue = "1", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.upload.concurrency:1}")
+    private Integer batchUploadConcurrency = 1;
+
+    @ValueDescription(description = "Batch mode: save images (given by docker.image or docker.image.repo/tag) that share a base layer with a single docker save, which writes their shared layers only once, and inspect each of them from that one tarfile", defaultValue = "false", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${batch.save.shared:false}")
+    private Boolean batchSaveShared = Boolean.FALSE;
+
+    // Properties for daemon mode (a long-running service that accepts inspection jobs over HTTP):
+
+    @ValueDescription(description = "Daemon mode: run as a long-running service that accepts inspection jobs over HTTP on this (localhost) port; 0 disables daemon mode", defaultValue = "0", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${daemon.port:0}")
+    private Integer daemonPort = 0;
+
+    @ValueDescription(description = "Daemon mode: maximum number of jobs inspected concurrently", defaultValue = "2", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${daemon.concurrency:2}")
+    private Integer daemonConcurrency = 2;
+
+    @ValueDescription(description = "Daemon mode: maximum number of jobs waiting to run; when the queue is full, new jobs are rejected (HTTP 429)", defaultValue = "50", group = Config.GROUP_PUBLIC, deprecated = false)
+    @Value("${daemon.queue.size:50}")
+    private Integer daemonQueueSize = 50;
+
     // Environment Variables
     @Value("${BD_HUB_PASSWORD:}")
     private String blackDuckLegacyPasswordEnvVar = "";
@@ -502,6 +661,18 @@ public class Config {
         return optionsByFieldName.get("imageInspectorUrl").getResolvedValue();
     }
 
+    public boolean isImageInspectorUrlResolveAll() {
+        return optionsByFieldName.get("imageInspectorUrlResolveAll").getResolvedValue().equals("true");
+    }
+
+    public Long getImageInspectorHealthCheckInterval() {
+        return new Long(optionsByFieldName.get("imageInspectorHealthCheckInterval").getResolvedValue());
+    }
+
+    public Long getImageInspectorEjectionTime() {
+        return new Long(optionsByFieldName.get("imageInspectorEjectionTime").getResolvedValue());
+    }
+
     public Integer getImageInspectorContainerPortAlpine() {
         return new Integer(optionsByFieldName.get("imageInspectorContainerPortAlpine").getResolvedValue());
     }
@@ -530,6 +701,46 @@ public class Config {
         return optionsByFieldName.get("imageInspectorDefaultDistro").getResolvedValue();
     }
 
+    public boolean isImageInspectorDistroCache() {
+        return optionsByFieldName.get("imageInspectorDistroCache").getResolvedValue().equals("true");
+    }
+
+    public boolean isImageInspectorDistroDetect() {
+        return optionsByFieldName.get("imageInspectorDistroDetect").getResolvedValue().equals("true");
+    }
+
+    public boolean isImageInspectorServicePool() {
+        return optionsByFieldName.get("imageInspectorServicePool").getResolvedValue().equals("true");
+    }
+
+    public Long getImageInspectorServicePoolIdleTimeout() {
+        return new Long(optionsByFieldName.get("imageInspectorServicePoolIdleTimeout").getResolvedValue());
+    }
+
+    public Long getImageInspectorServicePauseAfter() {
+        return new Long(optionsByFieldName.get("imageInspectorServicePauseAfter").getResolvedValue());
+    }
+
+    public boolean isImageInspectorServiceCds() {
+        return optionsByFieldName.get("imageInspectorServiceCds").getResolvedValue().equals("true");
+    }
+
+    public String getImageInspectorServiceResourceProfile() {
+        return optionsByFieldName.get("imageInspectorServiceResourceProfile").getResolvedValue();
+    }
+
+    public Long getImageInspectorServiceTmpfsSizeMb() {
+        return new Long(optionsByFieldName.get("imageInspectorServiceTmpfsSizeMb").getResolvedValue());
+    }
+
+    public Integer getImageInspectorServiceReplicas() {
+        return new Integer(optionsByFieldName.get("imageInspectorServiceReplicas").getResolvedValue());
+    }
+
+    public boolean isImageInspectorServiceStartEager() {
+        return optionsByFieldName.get("imageInspectorServiceStartEager").getResolvedValue().equals("true");
+    }
+
     public String getCallerVersion() {
         return optionsByFieldName.get("callerVersion").getResolvedValue();
     }
@@ -572,6 +783,14 @@ public class Config {
         return optionsByFieldName.get("cleanupInspectorImage").getResolvedValue().equals("true");
     }
 
+    public boolean isCleanupAsync() {
+        return optionsByFieldName.get("cleanupAsync").getResolvedValue().equals("true");
+    }
+
+    public Long getCleanupAsyncDrainTimeoutSeconds() {
+        return new Long(optionsByFieldName.get("cleanupAsyncDrainTimeoutSeconds").getResolvedValue());
+    }
+
     public boolean isOrganizeComponentsByLayer() {
         return optionsByFieldName.get("organizeComponentsByLayer").getResolvedValue().equals("true");
     }
@@ -584,10 +803,102 @@ public class Config {
         return optionsByFieldName.get("imageInspectorServiceStart").getResolvedValue().equals("true");
     }
 
+    public Long getLayerStoreSizeMb() {
+        return new Long(optionsByFieldName.get("layerStoreSizeMb").getResolvedValue());
+    }
+
+    public Long getImageTarCacheSizeMb() {
+        return new Long(optionsByFieldName.get("imageTarCacheSizeMb").getResolvedValue());
+    }
+
+    public boolean isImageTarCacheVerify() {
+        return optionsByFieldName.get("imageTarCacheVerify").getResolvedValue().equals("true");
+    }
+
+    public boolean isBdioResultCache() {
+        return optionsByFieldName.get("bdioResultCache").getResolvedValue().equals("true");
+    }
+
+    public boolean isBdioResultCacheLayers() {
+        return optionsByFieldName.get("bdioResultCacheLayers").getResolvedValue().equals("true");
+    }
+
+    public boolean isDockerPlatformTopLayerAuto() {
+        return optionsByFieldName.get("dockerPlatformTopLayerAuto").getResolvedValue().equals("true");
+    }
+
+    public boolean isPlatformImageCatalogAdd() {
+        return optionsByFieldName.get("platformImageCatalogAdd").getResolvedValue().equals("true");
+    }
+
+    public String getPlatformImageCatalogImport() {
+        return optionsByFieldName.get("platformImageCatalogImport").getResolvedValue();
+    }
+
+    public boolean isDockerStateCache() {
+        return optionsByFieldName.get("dockerStateCache").getResolvedValue().equals("true");
+    }
+
+    public boolean isRegistryPull() {
+        return optionsByFieldName.get("registryPull").getResolvedValue().equals("true");
+    }
+
+    public String getRegistryUsername() {
+        return optionsByFieldName.get("registryUsername").getResolvedValue();
+    }
+
+    public String getRegistryPassword() {
+        return optionsByFieldName.get("registryPassword").getResolvedValue();
+    }
+
+    public String getRegistryPlatform() {
+        return optionsByFieldName.get("registryPlatform").getResolvedValue();
+    }
+
+    public Integer getRegistryDownloadConcurrency() {
+        return new Integer(optionsByFieldName.get("registryDownloadConcurrency").getResolvedValue());
+    }
+
     public boolean isOfflineMode() {
         return optionsByFieldName.get("offlineMode").getResolvedValue().equals("true");
     }
 
+    public String getBatchManifest() {
+        return unEscape(optionsByFieldName.get("batchManifest").getResolvedValue());
+    }
+
+    public Integer getBatchConcurrency() {
+        return new Integer(optionsByFieldName.get("batchConcurrency").getResolvedValue());
+    }
+
+    public Integer getBatchPrepareConcurrency() {
+        return new Integer(optionsByFieldName.get("batchPrepareConcurrency").getResolvedValue());
+    }
+
+    public Integer getBatchPrepareAhead() {
+        return new Integer(optionsByFieldName.get("batchPrepareAhead").getResolvedValue());
+    }
+
+    public Integer getBatchUploadConcurrency() {
+        return new Integer(optionsByFieldName.get("batchUploadConcurrency").getResolvedValue());
+    }
+
+    public boolean isBatchSaveShared() {
+        return optionsByFieldName.get("batchSaveShared").getResolvedValue().equals("true");
+    }
+
+    public Integer getDaemonPort() {
+        return new Integer(optionsByFieldName.get("daemonPort").getResolvedValue());
+    }
+
+    public Integer getDaemonConcurrency() {
+        return new Integer(optionsByFieldName.get("daemonConcurrency").getResolvedValue());
+    }
+
+    public Integer getDaemonQueueSize() {
+        return new Integer(optionsByFieldName.get("daemonQueueSize").getResolvedValue());
+    }
+
     public void setDockerImageRepo(final String newValue) {
         optionsByFieldName.get("dockerImageRepo").setResolvedValue(newValue);
     }
@@ -648,6 +959,8 @@ public class Config {
         this.inspectorRepository = null;
         this.cleanupInspectorContainer = null;
         this.cleanupInspectorImage = null;
+        this.cleanupAsync = null;
+        this.cleanupAsyncDrainTimeoutSeconds = null;
         this.organizeComponentsByLayer = null;
         this.includeRemovedComponents = null;
         this.cleanupTargetImage = null;
@@ -656,6 +969,9 @@ public class Config {
         this.sharedDirPathImageInspector = null;
         this.sharedDirPathLocal = null;
         this.imageInspectorUrl = null;
+        this.imageInspectorUrlResolveAll = null;
+        this.imageInspectorHealthCheckInterval = null;
+        this.imageInspectorEjectionTime = null;
         this.imageInspectorServiceStart = null;
         this.imageInspectorContainerPortAlpine = null;
         this.imageInspectorContainerPortCentos = null;
@@ -664,6 +980,39 @@ public class Config {
         this.imageInspectorHostPortCentos = null;
         this.imageInspectorHostPortUbuntu = null;
         this.imageInspectorDefaultDistro = null;
+        this.imageInspectorServiceReplicas = null;
+        this.imageInspectorServiceStartEager = null;
+        this.imageInspectorDistroCache = null;
+        this.imageInspectorDistroDetect = null;
+        this.imageInspectorServicePool = null;
+        this.imageInspectorServicePoolIdleTimeout = null;
+        this.imageInspectorServicePauseAfter = null;
+        this.imageInspectorServiceCds = null;
+        this.imageInspectorServiceResourceProfile = null;
+        this.imageInspectorServiceTmpfsSizeMb = null;
         this.offlineMode = null;
+        this.layerStoreSizeMb = null;
+        this.imageTarCacheSizeMb = null;
+        this.imageTarCacheVerify = null;
+        this.bdioResultCache = null;
+        this.bdioResultCacheLayers = null;
+        this.dockerPlatformTopLayerAuto = null;
+        this.platformImageCatalogAdd = null;
+        this.platformImageCatalogImport = null;
+        this.dockerStateCache = null;
+        this.registryPull = null;
+        this.registryUsername = null;
+        this.registryPassword = null;
+        this.registryPlatform = null;
+        this.registryDownloadConcurrency = null;
+        this.batchManifest = null;
+        this.batchConcurrency = null;
+        this.batchPrepareConcurrency = null;
+        this.batchPrepareAhead = null;
+        this.batchUploadConcurrency = null;
+        this.batchSaveShared = null;
+        this.daemonPort = null;
+        this.daemonConcurrency = null;
+        this.daemonQueueSize = null;
     }
 }
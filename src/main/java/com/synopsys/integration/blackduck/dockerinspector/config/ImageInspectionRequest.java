@@ -0,0 +1,131 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+
+/*
+ * The per-image settings for one inspection. In single-image mode these come straight from Config;
+ * in batch mode each manifest entry produces one.
+ */
+public class ImageInspectionRequest {
+    private final String dockerImage;
+    private final String dockerTar;
+    private final String dockerImageId;
+    private final String dockerImageRepo;
+    private final String dockerImageTag;
+    private final String platformTopLayerId;
+    private final String blackDuckProjectName;
+    private final String blackDuckProjectVersion;
+    private final String blackDuckCodelocationName;
+    private final String blackDuckCodelocationPrefix;
+    // Pulls/saves done for this image before its inspection was prepared (batch.save.shared)
+    private final List<TransferMetrics> transferMetrics;
+
+    public ImageInspectionRequest(final String dockerImage, final String dockerTar, final String dockerImageId, final String dockerImageRepo, final String dockerImageTag, final String platformTopLayerId,
+        final String blackDuckProjectName, final String blackDuckProjectVersion, final String blackDuckCodelocationName, final String blackDuckCodelocationPrefix) {
+        this(dockerImage, dockerTar, dockerImageId, dockerImageRepo, dockerImageTag, platformTopLayerId, blackDuckProjectName, blackDuckProjectVersion, blackDuckCodelocationName, blackDuckCodelocationPrefix,
+            new ArrayList<>());
+    }
+
+    public ImageInspectionRequest(final String dockerImage, final String dockerTar, final String dockerImageId, final String dockerImageRepo, final String dockerImageTag, final String platformTopLayerId,
+        final String blackDuckProjectName, final String blackDuckProjectVersion, final String blackDuckCodelocationName, final String blackDuckCodelocationPrefix,
+        final List<TransferMetrics> transferMetrics) {
+        this.dockerImage = dockerImage;
+        this.dockerTar = dockerTar;
+        this.dockerImageId = dockerImageId;
+        this.dockerImageRepo = dockerImageRepo;
+        this.dockerImageTag = dockerImageTag;
+        this.platformTopLayerId = platformTopLayerId;
+        this.blackDuckProjectName = blackDuckProjectName;
+        this.blackDuckProjectVersion = blackDuckProjectVersion;
+        this.blackDuckCodelocationName = blackDuckCodelocationName;
+        this.blackDuckCodelocationPrefix = blackDuckCodelocationPrefix;
+        this.transferMetrics = transferMetrics;
+    }
+
+    public String getDockerImage() {
+        return dockerImage;
+    }
+
+    public String getDockerTar() {
+        return dockerTar;
+    }
+
+    public String getDockerImageId() {
+        return dockerImageId;
+    }
+
+    public String getDockerImageRepo() {
+        return dockerImageRepo;
+    }
+
+    public String getDockerImageTag() {
+        return dockerImageTag;
+    }
+
+    public String getPlatformTopLayerId() {
+        return platformTopLayerId;
+    }
+
+    public String getBlackDuckProjectName() {
+        return blackDuckProjectName;
+    }
+
+    public String getBlackDuckProjectVersion() {
+        return blackDuckProjectVersion;
+    }
+
+    public String getBlackDuckCodelocationName() {
+        return blackDuckCodelocationName;
+    }
+
+    public String getBlackDuckCodelocationPrefix() {
+        return blackDuckCodelocationPrefix;
+    }
+
+    public List<TransferMetrics> getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public String getTargetDescription() {
+        if (StringUtils.isNotBlank(dockerTar)) {
+            if (StringUtils.isNotBlank(dockerImageRepo)) {
+                return String.format("%s (%s:%s)", dockerTar, dockerImageRepo, dockerImageTag);
+            }
+            return dockerTar;
+        }
+        if (StringUtils.isNotBlank(dockerImageId)) {
+            return dockerImageId;
+        }
+        if (StringUtils.isNotBlank(dockerImage)) {
+            return dockerImage;
+        }
+        return String.format("%s:%s", dockerImageRepo, dockerImageTag);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.imageinspector.api.name.ImageNameResolver;
+import com.synopsys.integration.exception.IntegrationException;
+
+@Component
+public class ImageInspectionRequestFactory {
+    public static final String DOCKER_IMAGE_KEY = "docker.image";
+    public static final String DOCKER_TAR_KEY = "docker.tar";
+    public static final String DOCKER_IMAGE_ID_KEY = "docker.image.id";
+    public static final String DOCKER_IMAGE_REPO_KEY = "docker.image.repo";
+    public static final String DOCKER_IMAGE_TAG_KEY = "docker.image.tag";
+    public static final String DOCKER_PLATFORM_TOP_LAYER_ID_KEY = "docker.platform.top.layer.id";
+    public static final String BLACKDUCK_PROJECT_NAME_KEY = "blackduck.project.name";
+    public static final String BLACKDUCK_PROJECT_VERSION_KEY = "blackduck.project.version";
+    public static final String BLACKDUCK_CODELOCATION_NAME_KEY = "blackduck.codelocation.name";
+    public static final String BLACKDUCK_CODELOCATION_PREFIX_KEY = "blackduck.codelocation.prefix";
+    private static final List<String> SUPPORTED_OVERRIDE_KEYS = Arrays.asList(DOCKER_IMAGE_KEY, DOCKER_TAR_KEY, DOCKER_IMAGE_ID_KEY, DOCKER_IMAGE_REPO_KEY, DOCKER_IMAGE_TAG_KEY,
+        DOCKER_PLATFORM_TOP_LAYER_ID_KEY, BLACKDUCK_PROJECT_NAME_KEY, BLACKDUCK_PROJECT_VERSION_KEY, BLACKDUCK_CODELOCATION_NAME_KEY, BLACKDUCK_CODELOCATION_PREFIX_KEY);
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    public ImageInspectionRequest createFromConfig() {
+        return new ImageInspectionRequest(config.getDockerImage(), config.getDockerTar(), config.getDockerImageId(), config.getDockerImageRepo(), config.getDockerImageTag(), config.getDockerPlatformTopLayerId(),
+            config.getBlackDuckProjectName(), config.getBlackDuckProjectVersion(), config.getBlackDuckCodelocationName(), config.getBlackDuckCodelocationPrefix());
+    }
+
+    /*
+     * The image to inspect (docker.image, docker.tar, docker.image.id, docker.image.repo/tag) comes only from the given overrides.
+     * Project name, project version, platform top layer ID and code location prefix default to the Config values.
+     * Code location name does not, since a single code location name shared by every image would make them overwrite each other.
+     */
+    public ImageInspectionRequest createFromConfigWithOverrides(final Map<String, String> overrides) throws IntegrationException {
+        for (final String key : overrides.keySet()) {
+            if (!SUPPORTED_OVERRIDE_KEYS.contains(key)) {
+                throw new IntegrationException(String.format("Unsupported property %s; supported properties are: %s", key, StringUtils.join(SUPPORTED_OVERRIDE_KEYS, ", ")));
+            }
+        }
+        final String dockerImage = overrides.get(DOCKER_IMAGE_KEY);
+        final String dockerTar = overrides.get(DOCKER_TAR_KEY);
+        final String dockerImageId = overrides.get(DOCKER_IMAGE_ID_KEY);
+        if (StringUtils.isBlank(dockerImage) && StringUtils.isBlank(dockerTar) && StringUtils.isBlank(dockerImageId)) {
+            throw new IntegrationException(String.format("One of %s, %s, or %s must be specified", DOCKER_IMAGE_KEY, DOCKER_TAR_KEY, DOCKER_IMAGE_ID_KEY));
+        }
+        String dockerImageRepo = overrides.get(DOCKER_IMAGE_REPO_KEY);
+        String dockerImageTag = overrides.get(DOCKER_IMAGE_TAG_KEY);
+        if (StringUtils.isNotBlank(dockerImage)) {
+            final ImageNameResolver resolver = new ImageNameResolver(dockerImage);
+            dockerImageRepo = resolver.getNewImageRepo().orElse(dockerImageRepo);
+            dockerImageTag = resolver.getNewImageTag().orElse(dockerImageTag);
+        }
+        final ImageInspectionRequest request = new ImageInspectionRequest(dockerImage, dockerTar, dockerImageId, dockerImageRepo, dockerImageTag,
+            valueOrDefault(overrides, DOCKER_PLATFORM_TOP_LAYER_ID_KEY, config.getDockerPlatformTopLayerId()),
+            valueOrDefault(overrides, BLACKDUCK_PROJECT_NAME_KEY, config.getBlackDuckProjectName()),
+            valueOrDefault(overrides, BLACKDUCK_PROJECT_VERSION_KEY, config.getBlackDuckProjectVersion()),
+            overrides.get(BLACKDUCK_CODELOCATION_NAME_KEY),
+            valueOrDefault(overrides, BLACKDUCK_CODELOCATION_PREFIX_KEY, config.getBlackDuckCodelocationPrefix()));
+        logger.debug(String.format("Created inspection request for %s", request.getTargetDescription()));
+        return request;
+    }
+
+    private String valueOrDefault(final Map<String, String> overrides, final String key, final String defaultValue) {
+        final String value = overrides.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+}
@@ -47,6 +47,8 @@ public class ProgramPaths {
     public static final String OUTPUT_DIR = "output";
     private static final String TARGET_DIR = "target";
     private static final String CONFIG_DIR = "config";
+    private static final String CACHE_DIR = "cache";
+    private static final String SHARED_IMAGE_TAR_DIR = "sharedImageTars";
     private String dockerInspectorPgmDirPath;
     private String dockerInspectorRunDirName;
     private String dockerInspectorRunDirPath;
@@ -60,6 +62,8 @@ public class ProgramPaths {
     private String dockerInspectorTargetDirPath;
     private String dockerInspectorDefaultOutputPath;
     private String dockerInspectorResultPath;
+    private String dockerInspectorCacheDirPath;
+    private String dockerInspectorSharedImageTarDirPath;
 
     private String getProgramDirPath() {
         final File workingDir = new File(config.getWorkingDirPath());
@@ -80,6 +84,9 @@ public class ProgramPaths {
         dockerInspectorTargetDirPath = new File(runDir, TARGET_DIR).getAbsolutePath() + "/";
         dockerInspectorDefaultOutputPath = new File(runDir, OUTPUT_DIR).getAbsolutePath() + "/";
         dockerInspectorResultPath = dockerInspectorDefaultOutputPath + HOST_RESULT_JSON_FILENAME;
+        dockerInspectorSharedImageTarDirPath = new File(runDir, SHARED_IMAGE_TAR_DIR).getAbsolutePath() + "/";
+        // Outside the run dir, so it survives across runs
+        dockerInspectorCacheDirPath = new File(dockerInspectorPgmDirPath, CACHE_DIR).getAbsolutePath() + "/";
     }
 
     public String getUserOutputDirPath() {
@@ -121,6 +128,15 @@ public class ProgramPaths {
         return dockerInspectorResultPath;
     }
 
+    public String getDockerInspectorCacheDirPath() {
+        return dockerInspectorCacheDirPath;
+    }
+
+    // Image tarfiles that hold several images, each inspected in turn, so they must not be moved when handed off
+    public String getDockerInspectorSharedImageTarDirPath() {
+        return dockerInspectorSharedImageTarDirPath;
+    }
+
     void setConfig(final Config config) {
         this.config = config;
     }
@@ -0,0 +1,234 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.daemon;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Long-running mode: the Spring context, Docker client, Black Duck connection and image inspector services
+ * stay up between jobs. The job API (localhost only):
+ *   POST   /jobs              body: JSON object of per-image properties (same keys as a batch manifest entry); 202, or 429 when the queue is full
+ *   GET    /jobs/{id}         job status
+ *   GET    /jobs/{id}/result  job result (409 until the job has finished)
+ *   DELETE /jobs/{id}         cancel the job
+ *   GET    /health            worker/queue counts
+ */
+@Component
+public class InspectionDaemon {
+    private static final String JOBS_PATH = "/jobs";
+    private static final String HEALTH_PATH = "/health";
+    private static final String RESULT_SUFFIX = "/result";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_ACCEPTED = 202;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_CONFLICT = 409;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private InspectionJobManager jobManager;
+
+    @Autowired
+    private HttpClientInspector inspector;
+
+    @Autowired
+    private Gson gson;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+
+    // Blocks until the process is told to stop (SIGTERM/SIGINT)
+    public int serve() throws IntegrationException {
+        jobManager.start();
+        inspector.holdServices();
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getDaemonPort()), 0);
+        } catch (final IOException e) {
+            stop();
+            throw new IntegrationException(String.format("Unable to listen on port %d: %s", config.getDaemonPort(), e.getMessage()), e);
+        }
+        server.createContext(JOBS_PATH, this::handleJobsRequest);
+        server.createContext(HEALTH_PATH, this::handleHealthRequest);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        logger.info(String.format("Accepting inspection jobs at http://%s:%d%s", server.getAddress().getHostString(), server.getAddress().getPort(), JOBS_PATH));
+        try {
+            stopped.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        }
+        return 0;
+    }
+
+    private synchronized void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        logger.info("Stopping daemon");
+        if (server != null) {
+            server.stop(0);
+        }
+        jobManager.stop();
+        try {
+            inspector.releaseServices();
+        } catch (final IntegrationException e) {
+            logger.warn(String.format("Error stopping image inspector services: %s", e.getMessage()));
+        }
+        stopped.countDown();
+    }
+
+    private void handleJobsRequest(final HttpExchange exchange) throws IOException {
+        try {
+            final String method = exchange.getRequestMethod();
+            final String subPath = exchange.getRequestURI().getPath().substring(JOBS_PATH.length());
+            if (subPath.isEmpty() || "/".equals(subPath)) {
+                if ("POST".equals(method)) {
+                    submitJob(exchange);
+                } else {
+                    sendError(exchange, HTTP_METHOD_NOT_ALLOWED, String.format("Unsupported method %s", method));
+                }
+                return;
+            }
+            final boolean resultRequested = subPath.endsWith(RESULT_SUFFIX);
+            final String jobId = subPath.substring(1, resultRequested ? subPath.length() - RESULT_SUFFIX.length() : subPath.length());
+            if ("GET".equals(method) && resultRequested) {
+                sendJobResult(exchange, jobManager.getJob(jobId), jobId);
+            } else if ("GET".equals(method)) {
+                sendJob(exchange, HTTP_OK, jobManager.getJob(jobId), jobId);
+            } else if ("DELETE".equals(method) && !resultRequested) {
+                sendJob(exchange, HTTP_OK, jobManager.cancel(jobId), jobId);
+            } else {
+                sendError(exchange, HTTP_METHOD_NOT_ALLOWED, String.format("Unsupported method %s", method));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleHealthRequest(final HttpExchange exchange) throws IOException {
+        try {
+            final Map<String, Object> health = new HashMap<>();
+            health.put("status", "UP");
+            health.put("runningJobs", jobManager.getRunningJobCount());
+            health.put("queuedJobs", jobManager.getQueuedJobCount());
+            send(exchange, HTTP_OK, gson.toJson(health));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submitJob(final HttpExchange exchange) throws IOException {
+        final Map<String, String> properties;
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            properties = gson.fromJson(reader, new TypeToken<Map<String, String>>() {}.getType());
+        } catch (final JsonParseException e) {
+            sendError(exchange, HTTP_BAD_REQUEST, String.format("Request body must be a JSON object of property names to values: %s", e.getMessage()));
+            return;
+        }
+        if (properties == null) {
+            sendError(exchange, HTTP_BAD_REQUEST, "Request body must be a JSON object of property names to values");
+            return;
+        }
+        try {
+            final InspectionJob job = jobManager.submit(properties);
+            exchange.getResponseHeaders().set("Location", String.format("%s/%s", JOBS_PATH, job.getId()));
+            sendJob(exchange, HTTP_ACCEPTED, Optional.of(job), job.getId());
+        } catch (final IntegrationException e) {
+            sendError(exchange, HTTP_BAD_REQUEST, e.getMessage());
+        } catch (final RejectedExecutionException e) {
+            logger.warn("Job queue is full; rejecting job");
+            exchange.getResponseHeaders().set("Retry-After", "30");
+            sendError(exchange, HTTP_TOO_MANY_REQUESTS, "Job queue is full; try again later");
+        }
+    }
+
+    private void sendJob(final HttpExchange exchange, final int statusCode, final Optional<InspectionJob> job, final String jobId) throws IOException {
+        if (!job.isPresent()) {
+            sendError(exchange, HTTP_NOT_FOUND, String.format("Job %s not found", jobId));
+            return;
+        }
+        final String json;
+        synchronized (job.get()) {
+            json = gson.toJson(job.get());
+        }
+        send(exchange, statusCode, json);
+    }
+
+    private void sendJobResult(final HttpExchange exchange, final Optional<InspectionJob> job, final String jobId) throws IOException {
+        if (!job.isPresent()) {
+            sendError(exchange, HTTP_NOT_FOUND, String.format("Job %s not found", jobId));
+            return;
+        }
+        if (job.get().getResult() == null) {
+            sendError(exchange, HTTP_CONFLICT, String.format("Job %s has no result; status: %s", jobId, job.get().getStatus()));
+            return;
+        }
+        send(exchange, HTTP_OK, gson.toJson(job.get().getResult()));
+    }
+
+    private void sendError(final HttpExchange exchange, final int statusCode, final String message) throws IOException {
+        final Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        send(exchange, statusCode, gson.toJson(error));
+    }
+
+    private void send(final HttpExchange exchange, final int statusCode, final String json) throws IOException {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.daemon;
+
+import java.util.concurrent.Future;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+
+/*
+ * One job submitted to the daemon. The non-transient fields are what the job API reports (serialized with Gson).
+ */
+public class InspectionJob {
+    private final String id;
+    private final String image;
+    private InspectionJobStatus status = InspectionJobStatus.QUEUED;
+    private final long submittedTime;
+    private Long startedTime;
+    private Long finishedTime;
+    private Result result;
+    private final transient ImageInspectionRequest request;
+    private transient Future<?> future;
+
+    public InspectionJob(final String id, final ImageInspectionRequest request) {
+        this.id = id;
+        this.image = request.getTargetDescription();
+        this.request = request;
+        this.submittedTime = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ImageInspectionRequest getRequest() {
+        return request;
+    }
+
+    public synchronized InspectionJobStatus getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isCancelled() {
+        return status == InspectionJobStatus.CANCELLED;
+    }
+
+    public synchronized Result getResult() {
+        return result;
+    }
+
+    public synchronized Future<?> getFuture() {
+        return future;
+    }
+
+    public synchronized void setFuture(final Future<?> future) {
+        this.future = future;
+    }
+
+    // Returns false if the job was cancelled before it got a chance to run
+    public synchronized boolean markRunning() {
+        if (status != InspectionJobStatus.QUEUED) {
+            return false;
+        }
+        status = InspectionJobStatus.RUNNING;
+        startedTime = System.currentTimeMillis();
+        return true;
+    }
+
+    // Returns false if the job was cancelled while it was running
+    public synchronized boolean markFinished(final Result result) {
+        if (status.isFinished()) {
+            return false;
+        }
+        this.result = result;
+        status = result.isSucceeded() ? InspectionJobStatus.SUCCEEDED : InspectionJobStatus.FAILED;
+        finishedTime = System.currentTimeMillis();
+        return true;
+    }
+
+    // Returns false if the job had already finished
+    public synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        status = InspectionJobStatus.CANCELLED;
+        finishedTime = System.currentTimeMillis();
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.daemon;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequestFactory;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Runs daemon jobs on a fixed number of workers fed by a bounded queue.
+ * When the queue is full, submit() rejects the job rather than letting the backlog grow without limit.
+ */
+@Component
+public class InspectionJobManager {
+    private static final int MAX_RETAINED_FINISHED_JOBS = 1000;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30L;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ImageInspectionRequestFactory imageInspectionRequestFactory;
+
+    @Autowired
+    private HttpClientInspector inspector;
+
+    private final Map<String, InspectionJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong jobCounter = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    public synchronized void start() {
+        final int concurrency = Math.max(1, config.getDaemonConcurrency());
+        final int queueSize = Math.max(1, config.getDaemonQueueSize());
+        logger.info(String.format("Running up to %d jobs at a time, with up to %d more queued", concurrency, queueSize));
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+    }
+
+    public InspectionJob submit(final Map<String, String> properties) throws IntegrationException, RejectedExecutionException {
+        final ImageInspectionRequest request = imageInspectionRequestFactory.createFromConfigWithOverrides(properties);
+        final InspectionJob job = new InspectionJob(Long.toString(jobCounter.incrementAndGet()), request);
+        final FutureTask<Void> task = new FutureTask<>(() -> runJob(job), null);
+        job.setFuture(task);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info(String.format("Job %s: queued inspection of %s", job.getId(), job.getRequest().getTargetDescription()));
+        return job;
+    }
+
+    public Optional<InspectionJob> getJob(final String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Optional<InspectionJob> cancel(final String jobId) {
+        final InspectionJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.cancel()) {
+            logger.info(String.format("Job %s: cancelled", jobId));
+            executor.remove((Runnable) job.getFuture());
+            retire(job);
+        }
+        return Optional.of(job);
+    }
+
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunningJobCount() {
+        return executor.getActiveCount();
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        logger.info("Stopping job workers");
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn(String.format("Job workers did not stop within %d seconds", SHUTDOWN_WAIT_SECONDS));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runJob(final InspectionJob job) {
+        if (!job.markRunning()) {
+            return;
+        }
+        logger.info(String.format("Job %s: started", job.getId()));
+        final Result result = inspector.inspectTolerantly(job.getRequest(), String.format("job%s", job.getId()), job::isCancelled);
+        if (job.markFinished(result)) {
+            logger.info(String.format("Job %s: %s", job.getId(), job.getStatus()));
+            retire(job);
+        }
+    }
+
+    // Finished jobs stay queryable until enough newer jobs have finished
+    private void retire(final InspectionJob job) {
+        finishedJobIds.add(job.getId());
+        while (finishedJobIds.size() > MAX_RETAINED_FINISHED_JOBS) {
+            final String oldestJobId = finishedJobIds.poll();
+            if (oldestJobId != null) {
+                jobs.remove(oldestJobId);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.core.command.LogContainerResultCallback;
+
+/*
+ * Follows a container's log until a line matching the given pattern appears. A line may arrive split across frames,
+ * so the text since the last newline is kept.
+ */
+public class ContainerLogWatch extends LogContainerResultCallback implements Closeable {
+    private final Pattern linePattern;
+    private final CountDownLatch lineSeen = new CountDownLatch(1);
+    private final StringBuilder partialLine = new StringBuilder();
+
+    public ContainerLogWatch(final Pattern linePattern) {
+        this.linePattern = linePattern;
+    }
+
+    @Override
+    public void onNext(final Frame item) {
+        if (item.getPayload() != null) {
+            accept(new String(item.getPayload()));
+        }
+        super.onNext(item);
+    }
+
+    // Stops following the log
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } catch (final IOException e) {
+            // The stream is being abandoned anyway
+        }
+    }
+
+    // Returns true as soon as the line has appeared; false if it hasn't within timeoutMillis
+    public boolean awaitLine(final long timeoutMillis) throws InterruptedException {
+        return lineSeen.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isLineSeen() {
+        return lineSeen.getCount() == 0;
+    }
+
+    synchronized void accept(final String text) {
+        if (isLineSeen()) {
+            return;
+        }
+        partialLine.append(text);
+        int newlineIndex;
+        while ((newlineIndex = partialLine.indexOf("\n")) >= 0) {
+            final String line = partialLine.substring(0, newlineIndex);
+            partialLine.delete(0, newlineIndex + 1);
+            if (linePattern.matcher(line).find()) {
+                lineSeen.countDown();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.util.Optional;
+
+/*
+ * The CPU and memory limits, and matching JVM flags, for an image inspector service container.
+ * The heap gets 75% of the memory limit, leaving the rest for the JVM's own overhead.
+ */
+public class ContainerResourceProfile {
+    public static final String PROFILE_NONE = "none";
+    public static final String PROFILE_SMALL = "small";
+    public static final String PROFILE_LARGE = "large";
+    public static final String PROFILE_AUTO = "auto";
+    private static final double AUTO_MAX_CPUS = 8.0;
+    private static final long AUTO_MIN_MEMORY_MB = 512L;
+    private static final long AUTO_MAX_MEMORY_MB = 8192L;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final String name;
+    private final double cpus;
+    private final long memoryMb;
+
+    public ContainerResourceProfile(final String name, final double cpus, final long memoryMb) {
+        this.name = name;
+        this.cpus = cpus;
+        this.memoryMb = memoryMb;
+    }
+
+    // auto gives each of containerCount containers an equal share of the host's CPUs and half of its memory; an unknown name is empty, like none
+    public static Optional<ContainerResourceProfile> resolve(final String profileName, final int hostCpuCount, final long hostMemoryBytes, final int containerCount) {
+        if (PROFILE_SMALL.equalsIgnoreCase(profileName)) {
+            return Optional.of(new ContainerResourceProfile(PROFILE_SMALL, 1.0, 1024L));
+        }
+        if (PROFILE_LARGE.equalsIgnoreCase(profileName)) {
+            return Optional.of(new ContainerResourceProfile(PROFILE_LARGE, 4.0, 4096L));
+        }
+        if (PROFILE_AUTO.equalsIgnoreCase(profileName) && hostCpuCount > 0 && hostMemoryBytes > 0L) {
+            final int shareCount = Math.max(1, containerCount);
+            final double cpus = Math.min(AUTO_MAX_CPUS, Math.max(1.0, Math.floor((double) hostCpuCount / shareCount)));
+            final long memoryMb = Math.min(AUTO_MAX_MEMORY_MB, Math.max(AUTO_MIN_MEMORY_MB, hostMemoryBytes / BYTES_PER_MB / 2L / shareCount));
+            return Optional.of(new ContainerResourceProfile(PROFILE_AUTO, cpus, memoryMb));
+        }
+        return Optional.empty();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getCpus() {
+        return cpus;
+    }
+
+    public long getMemoryMb() {
+        return memoryMb;
+    }
+
+    public long getHeapMb() {
+        return memoryMb * 3L / 4L;
+    }
+
+    // The serial collector avoids GC threads contending for a single CPU
+    public String getJvmOptions() {
+        return String.format("-Xmx%dm -XX:+%s", getHeapMb(), cpus < 2.0 ? "UseSerialGC" : "UseParallelGC");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (cpus: %.1f, memory: %dMB, heap: %dMB)", name, cpus, memoryMb, getHeapMb());
+    }
+}
@@ -25,6 +25,7 @@ package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.InspectImageCmd;
 import com.github.dockerjava.api.command.InspectImageResponse;
 import com.github.dockerjava.api.command.PullImageCmd;
@@ -36,6 +37,7 @@ import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.AccessMode;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
@@ -43,15 +45,22 @@ import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.Info;
 import com.github.dockerjava.api.model.Ports;
 import com.github.dockerjava.api.model.Ports.Binding;
+import com.github.dockerjava.api.model.PullResponseItem;
 import com.github.dockerjava.api.model.Version;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DefaultDockerClientConfig.Builder;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.core.command.EventsResultCallback;
 import com.github.dockerjava.core.command.LogContainerResultCallback;
 import com.github.dockerjava.core.command.PullImageResultCallback;
+import com.synopsys.integration.blackduck.dockerinspector.cache.ImageTarCache;
+import com.synopsys.integration.blackduck.dockerinspector.cache.PendingCleanups;
+import com.synopsys.integration.blackduck.dockerinspector.cache.PendingCleanups.PendingCleanup;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarAssembler;
 import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarFilename;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
 import com.synopsys.integration.blackduck.dockerinspector.exception.DisabledException;
 import com.synopsys.integration.blackduck.exception.BlackDuckIntegrationException;
@@ -62,10 +71,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -77,6 +91,13 @@ import org.springframework.stereotype.Component;
 public class DockerClientManager {
     private static final String CONTAINER_APPNAME_LABEL_KEY = "app";
     private static final String CONTAINER_OS_LABEL_KEY = "os";
+    private static final String CONTAINER_POOL_LABEL_KEY = "pool";
+    private static final String PAUSED_STATE = "paused";
+    private static final String PAUSED_STATUS_SUFFIX = "(Paused)";
+    private static final long CPU_PERIOD_MICROSECONDS = 100000L;
+    private static final String CONTAINER_TMPFS_PATH = "/tmp";
+    // Allows for a daemon clock a little behind this one; events are replayed from this far back
+    private static final long DOCKER_EVENTS_SINCE_MARGIN_SECONDS = 5L;
     private final Logger logger = LoggerFactory.getLogger(DockerClientManager.class);
 
     @Autowired
@@ -85,21 +106,94 @@ public class DockerClientManager {
     @Autowired
     private ImageTarFilename dockerTarfile;
 
+    @Autowired
+    private ImageTarAssembler imageTarAssembler;
+
+    @Autowired
+    private ImageTarCache imageTarCache;
+
+    @Autowired
+    private TransferMetricsCollector transferMetricsCollector;
+
+    @Autowired
+    private PendingCleanups pendingCleanups;
+
+    @Autowired
+    private InspectorCdsArchives inspectorCdsArchives;
+
     private DockerClient dockerClient;
 
-    private DockerClient getDockerClient() {
+    private SaveImagesCmdExecFactory dockerCmdExecFactory;
+
+    private DockerStateCache dockerStateCache;
+
+    // cleanup.async: one thread, so cleanups run in the order queued (a container is removed before its image)
+    private ExecutorService cleanupExecutor;
+
+    // Cached only with docker.state.cache
+    private volatile String dockerJavaLibraryVersion;
+    private volatile String dockerEngineVersion;
+    private Optional<ContainerResourceProfile> resolvedResourceProfile;
+
+    private synchronized DockerClient getDockerClient() {
         if (dockerClient == null) {
             final Builder builder = DefaultDockerClientConfig.createDefaultConfigBuilder();
             final DockerClientConfig config = builder.build();
-            dockerClient = DockerClientBuilder.getInstance(config).build();
+            dockerCmdExecFactory = new SaveImagesCmdExecFactory();
+            dockerClient = DockerClientBuilder.getInstance(config).withDockerCmdExecFactory(dockerCmdExecFactory).build();
         }
         return dockerClient;
     }
 
+    // Null unless docker.state.cache is enabled. A cache whose event stream was lost is replaced
+    private synchronized DockerStateCache getDockerStateCache() {
+        if (!config.isDockerStateCache()) {
+            return null;
+        }
+        if (dockerStateCache == null || !dockerStateCache.isValid()) {
+            final DockerClient dockerClient = getDockerClient();
+            // The event stream opens asynchronously, so it starts from (a little before) now rather than from whenever it opens:
+            // a change made before the first listing is then replayed rather than missed. A replayed event only marks an entry stale
+            final long sinceSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - DOCKER_EVENTS_SINCE_MARGIN_SECONDS;
+            final DockerStateCache newDockerStateCache = new DockerStateCache(
+                () -> dockerClient.listContainersCmd().withShowAll(true).exec(),
+                containerIds -> dockerClient.listContainersCmd().withShowAll(true).withIdFilter(containerIds).exec(),
+                () -> dockerClient.listImagesCmd().exec());
+            dockerClient.eventsCmd().withSince(String.valueOf(sinceSeconds)).exec(new EventsResultCallback() {
+                @Override
+                public void onNext(final Event event) {
+                    newDockerStateCache.onEvent(event);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    logger.debug(String.format("Lost the docker event stream: %s", throwable.getMessage()));
+                    newDockerStateCache.invalidate();
+                    super.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    newDockerStateCache.invalidate();
+                    super.onComplete();
+                }
+            });
+            dockerStateCache = newDockerStateCache;
+        }
+        return dockerStateCache;
+    }
+
     public String getDockerJavaLibraryVersion() {
+        if (dockerJavaLibraryVersion != null) {
+            return dockerJavaLibraryVersion;
+        }
         try {
             final Version version = getDockerClient().versionCmd().exec();
-            return String.format("docker-java library version: %s; API version: %s", version.getApiVersion(), version.getVersion());
+            final String libraryVersion = String.format("docker-java library version: %s; API version: %s", version.getApiVersion(), version.getVersion());
+            if (config.isDockerStateCache()) {
+                dockerJavaLibraryVersion = libraryVersion;
+            }
+            return libraryVersion;
         } catch (Exception e) {
             return String.format("docker-java library version: <unknown>; Error getting version: %s", e.getMessage());
         }
@@ -124,25 +218,55 @@ public class DockerClientManager {
     }
 
     public File getTarFileFromDockerImage(final String imageName, final String tagName, final File imageTarDirectory) throws IntegrationException, IOException {
-        Optional<String> targetImageId = Optional.empty();
-        try {
-            targetImageId = Optional.ofNullable(pullImage(imageName, tagName));
-        } catch (final DisabledException disabledException) {
-            logger.info("Image pulling is disabled in offline mode");
-        } catch (final Exception e) {
-            logger.info(String.format("Unable to pull %s:%s; Proceeding anyway since the image might be in local docker image cache. Error on pull: %s", imageName, tagName, e.getMessage()));
+        return getTarFileFromDockerImage(imageName, tagName, imageTarDirectory, null);
+    }
+
+    // pulledImageId: the ID of the image if this run has just pulled it, in which case it is not pulled again
+    public File getTarFileFromDockerImage(final String imageName, final String tagName, final File imageTarDirectory, final String pulledImageId) throws IntegrationException, IOException {
+        Optional<String> targetImageId = Optional.ofNullable(pulledImageId);
+        if (!targetImageId.isPresent()) {
+            try {
+                targetImageId = Optional.ofNullable(pullImage(imageName, tagName));
+            } catch (final DisabledException disabledException) {
+                logger.info("Image pulling is disabled in offline mode");
+            } catch (final Exception e) {
+                logger.info(String.format("Unable to pull %s:%s; Proceeding anyway since the image might be in local docker image cache. Error on pull: %s", imageName, tagName, e.getMessage()));
+            }
         }
         final File imageTarFile = saveImageToDir(imageTarDirectory, dockerTarfile.deriveImageTarFilenameFromImageTag(imageName, tagName), imageName, tagName);
         if (config.isCleanupTargetImage() && targetImageId.isPresent()) {
             try {
-                removeImage(targetImageId.get());
-            } catch (final BlackDuckIntegrationException e) {
+                cleanUpImage(targetImageId.get());
+            } catch (final IntegrationException e) {
                 logger.warn(String.format("Unable to remove target image with ID %s: %s", targetImageId.get(), e.getMessage()));
             }
         }
         return imageTarFile;
     }
 
+    // Saves several (local) images into one tarfile, in which the layers they share appear only once
+    public void saveImagesToFile(final List<String> imageRefs, final File imageTarFile) throws IOException {
+        logger.info(String.format("Saving docker images %s to : %s", imageRefs, imageTarFile.getCanonicalPath()));
+        getDockerClient();
+        final TransferMetrics saveMetrics = new TransferMetrics(TransferMetrics.OPERATION_SAVE, StringUtils.join(imageRefs, ","));
+        try (InputStream tarInputStream = new MeteredInputStream(dockerCmdExecFactory.saveImages(imageRefs), saveMetrics)) {
+            FileUtils.copyInputStreamToFile(tarInputStream, imageTarFile);
+        }
+        transferMetricsCollector.record(saveMetrics);
+    }
+
+    // The image ID and layer diffIDs; empty if the image is not in the local docker image cache
+    public Optional<ImageTarMetadata> getLocalImageMetadata(final String imageNameOrId) {
+        try {
+            final InspectImageResponse imageDetails = getDockerClient().inspectImageCmd(imageNameOrId).exec();
+            final List<String> layerDiffIds = imageDetails.getRootFS() == null || imageDetails.getRootFS().getLayers() == null ? new ArrayList<>() : imageDetails.getRootFS().getLayers();
+            return Optional.of(new ImageTarMetadata(imageDetails.getId(), layerDiffIds, null, null));
+        } catch (final Exception e) {
+            logger.debug(String.format("Unable to get the ID of image %s: %s", imageNameOrId, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
     public String pullImage(final String imageName, final String tagName) throws IntegrationException {
         if (config.isOfflineMode()) {
             throw new DisabledException("Image pulling is disabled in offline mode");
@@ -150,8 +274,11 @@ public class DockerClientManager {
         logger.info(String.format("Pulling image %s:%s", imageName, tagName));
         final DockerClient dockerClient = getDockerClient();
         final PullImageCmd pull = dockerClient.pullImageCmd(imageName).withTag(tagName);
+        final TransferMetrics pullMetrics = new TransferMetrics(TransferMetrics.OPERATION_PULL, String.format("%s:%s", imageName, tagName));
         try {
-            pull.exec(new PullImageResultCallback()).awaitCompletion();
+            pull.exec(new MeteredPullImageResultCallback(pullMetrics)).awaitCompletion();
+            transferMetricsCollector.record(pullMetrics);
+            noteImagesChanged();
         } catch (final NotFoundException e) {
             throw new BlackDuckIntegrationException(String.format("Pull failed: Image %s:%s not found. Please check the image name/tag. Error: %s", imageName, tagName, e.getMessage()), e);
         } catch (final InterruptedException e) {
@@ -176,6 +303,7 @@ public class DockerClientManager {
             final RemoveImageCmd rmCmd = dockerClient.removeImageCmd(imageId);
             logger.info(String.format("Removing image %s", imageId));
             rmCmd.exec();
+            noteImagesChanged();
             logger.debug(String.format("Image %s removed", imageId));
         } catch (final Throwable e) {
             logger.warn(String.format("Unable to remove image with ID %s: %s", imageId, e.getMessage()));
@@ -183,7 +311,7 @@ public class DockerClientManager {
     }
 
     public String startContainerAsService(final String runOnImageName, final String runOnTagName, final String containerName, final ImageInspectorOsEnum inspectorOs, final int containerPort, final int hostPort,
-            final String appNameLabelValue,
+            final String appNameLabelValue, final boolean pooled,
             final String jarPath,
             final String inspectorUrlAlpine, final String inspectorUrlCentos, final String inspectorUrlUbuntu) {
         final String imageNameTag = String.format("%s:%s", runOnImageName, runOnTagName);
@@ -194,7 +322,16 @@ public class DockerClientManager {
 
         logger.debug(String.format("Creating container %s from image %s", containerName, imageNameTag));
         final String imageInspectorOsName = inspectorOs.name();
-        final String cmd = String.format("java -jar %s --logging.level.com.synopsys=%s --server.port=%d --current.linux.distro=%s --inspector.url.alpine=%s --inspector.url.centos=%s --inspector.url.ubuntu=%s",
+        final Optional<ContainerResourceProfile> resourceProfile = deriveResourceProfile();
+        final StringBuilder jvmOptions = new StringBuilder();
+        if (inspectorCdsArchives.isEnabled()) {
+            jvmOptions.append(inspectorCdsArchives.deriveJvmOptions(runOnImageName, runOnTagName, containerName)).append(" ");
+        }
+        if (resourceProfile.isPresent()) {
+            jvmOptions.append(resourceProfile.get().getJvmOptions()).append(" ");
+        }
+        final String cmd = String.format("java %s-jar %s --logging.level.com.synopsys=%s --server.port=%d --current.linux.distro=%s --inspector.url.alpine=%s --inspector.url.centos=%s --inspector.url.ubuntu=%s",
+                jvmOptions.toString(),
                 jarPath,
                 getLoggingLevelString(),
                 containerPort,
@@ -203,11 +340,29 @@ public class DockerClientManager {
         final Map<String, String> labels = new HashMap<>(1);
         labels.put(CONTAINER_APPNAME_LABEL_KEY, appNameLabelValue);
         labels.put(CONTAINER_OS_LABEL_KEY, imageInspectorOsName);
-        final Bind bindMount = createBindMount(config.getSharedDirPathLocal(), config.getSharedDirPathImageInspector());
+        if (pooled) {
+            labels.put(CONTAINER_POOL_LABEL_KEY, Boolean.TRUE.toString());
+        }
         final ExposedPort exposedPort = new ExposedPort(containerPort);
         final Ports portBindings = new Ports();
-        portBindings.bind(exposedPort, Binding.bindPort(hostPort));
-        HostConfig hostConfig = HostConfig.newHostConfig().withPortBindings(portBindings).withBinds(bindMount);
+        // A hostPort of 0 lets Docker allocate one (see getHostPort())
+        portBindings.bind(exposedPort, hostPort == 0 ? Binding.empty() : Binding.bindPort(hostPort));
+        final List<Bind> bindMounts = new ArrayList<>();
+        bindMounts.add(createBindMount(config.getSharedDirPathLocal(), config.getSharedDirPathImageInspector()));
+        if (inspectorCdsArchives.isEnabled()) {
+            bindMounts.add(createBindMount(inspectorCdsArchives.getCdsDirPathLocal(), inspectorCdsArchives.getCdsDirPathImageInspector()));
+        }
+        HostConfig hostConfig = HostConfig.newHostConfig().withPortBindings(portBindings).withBinds(bindMounts);
+        final long tmpfsSizeMb = config.getImageInspectorServiceTmpfsSizeMb();
+        if (resourceProfile.isPresent()) {
+            // tmpfs pages count against the container's memory; setting swap equal to memory means no swap
+            final long memoryBytes = (resourceProfile.get().getMemoryMb() + Math.max(0L, tmpfsSizeMb)) * 1024L * 1024L;
+            hostConfig = hostConfig.withCpuPeriod(CPU_PERIOD_MICROSECONDS).withCpuQuota((long) (resourceProfile.get().getCpus() * CPU_PERIOD_MICROSECONDS))
+                             .withMemory(memoryBytes).withMemorySwap(memoryBytes);
+        }
+        if (tmpfsSizeMb > 0L) {
+            hostConfig = hostConfig.withTmpFs(Collections.singletonMap(CONTAINER_TMPFS_PATH, String.format("rw,size=%dm", tmpfsSizeMb)));
+        }
         final CreateContainerCmd createContainerCmd = dockerClient.createContainerCmd(imageNameTag)
             .withName(containerName)
             .withLabels(labels)
@@ -222,19 +377,188 @@ public class DockerClientManager {
         createContainerCmd.withEnv(envAssignments);
         final CreateContainerResponse containerResponse = createContainerCmd.exec();
         final String containerId = containerResponse.getId();
+        inspectorCdsArchives.containerCreated(containerName, containerId);
 
         dockerClient.startContainerCmd(containerId).exec();
+        noteContainerChanged(containerId);
         logger.debug(String.format("Started container %s from image %s", containerId, imageNameTag));
 
         return containerId;
     }
 
+    // Resolved on first use; auto sizes from the docker host's capacity and the number of service containers this run may start
+    private synchronized Optional<ContainerResourceProfile> deriveResourceProfile() {
+        final String profileName = config.getImageInspectorServiceResourceProfile();
+        if (StringUtils.isBlank(profileName) || ContainerResourceProfile.PROFILE_NONE.equalsIgnoreCase(profileName)) {
+            return Optional.empty();
+        }
+        if (resolvedResourceProfile != null) {
+            return resolvedResourceProfile;
+        }
+        int hostCpuCount = 0;
+        long hostMemoryBytes = 0L;
+        if (ContainerResourceProfile.PROFILE_AUTO.equalsIgnoreCase(profileName)) {
+            try {
+                final Info dockerInfo = getDockerClient().infoCmd().exec();
+                hostCpuCount = dockerInfo.getNCPU() == null ? 0 : dockerInfo.getNCPU();
+                hostMemoryBytes = dockerInfo.getMemTotal() == null ? 0L : dockerInfo.getMemTotal();
+            } catch (final Exception e) {
+                logger.debug(String.format("Unable to get the docker host's capacity: %s", e.getMessage()));
+            }
+        }
+        final int serviceContainerCount = Math.max(1, config.getImageInspectorServiceReplicas()) * (config.isImageInspectorServiceStartEager() ? ImageInspectorOsEnum.values().length : 1);
+        resolvedResourceProfile = ContainerResourceProfile.resolve(profileName, hostCpuCount, hostMemoryBytes, serviceContainerCount);
+        if (resolvedResourceProfile.isPresent()) {
+            logger.info(String.format("Image inspector service resource profile: %s", resolvedResourceProfile.get()));
+        } else {
+            logger.warn(String.format("Unable to apply image inspector service resource profile %s; starting service containers without resource limits", profileName));
+        }
+        return resolvedResourceProfile;
+    }
+
+    public int getHostPort(final String containerId, final int containerPort) throws IntegrationException {
+        final DockerClient dockerClient = getDockerClient();
+        final InspectContainerResponse containerDetails = dockerClient.inspectContainerCmd(containerId).exec();
+        final Binding[] bindings = containerDetails.getNetworkSettings().getPorts().getBindings().get(new ExposedPort(containerPort));
+        if (bindings == null || bindings.length == 0) {
+            throw new BlackDuckIntegrationException(String.format("Container %s has no host port bound to container port %d", containerId, containerPort));
+        }
+        logger.debug(String.format("Container %s port %d is bound to host port %s", containerId, containerPort, bindings[0].getHostPortSpec()));
+        return Integer.parseInt(bindings[0].getHostPortSpec());
+    }
+
+    // Freezes the container's processes (docker pause); it keeps its memory, ports and filesystem
+    public void pauseContainer(final String containerId) throws IntegrationException {
+        logger.debug(String.format("Pausing container %s", containerId));
+        try {
+            getDockerClient().pauseContainerCmd(containerId).exec();
+        } catch (final Exception e) {
+            throw new BlackDuckIntegrationException(String.format("Error pausing container %s: %s", containerId, e.getMessage()), e);
+        }
+        noteContainerChanged(containerId);
+    }
+
+    public void unpauseContainer(final String containerId) throws IntegrationException {
+        logger.debug(String.format("Unpausing container %s", containerId));
+        try {
+            getDockerClient().unpauseContainerCmd(containerId).exec();
+        } catch (final Exception e) {
+            throw new BlackDuckIntegrationException(String.format("Error unpausing container %s: %s", containerId, e.getMessage()), e);
+        }
+        noteContainerChanged(containerId);
+    }
+
+    public boolean isPaused(final Container container) {
+        if (container.getState() != null) {
+            return PAUSED_STATE.equals(container.getState());
+        }
+        return container.getStatus() != null && container.getStatus().contains(PAUSED_STATUS_SUFFIX);
+    }
+
     public void stopRemoveContainer(final String containerId) throws IntegrationException {
         final DockerClient dockerClient = getDockerClient();
         stopContainer(dockerClient, containerId);
         removeContainer(dockerClient, containerId);
     }
 
+    // Like stopRemoveContainer(), but with cleanup.async it's done in the background
+    public void cleanUpContainer(final String containerId) throws IntegrationException {
+        if (!config.isCleanupAsync()) {
+            stopRemoveContainer(containerId);
+            return;
+        }
+        queueCleanup(PendingCleanups.TYPE_CONTAINER, containerId);
+    }
+
+    // Like removeImage(), but with cleanup.async it's done in the background
+    public void cleanUpImage(final String imageId) throws IntegrationException {
+        if (!config.isCleanupAsync()) {
+            removeImage(imageId);
+            return;
+        }
+        queueCleanup(PendingCleanups.TYPE_IMAGE, imageId);
+    }
+
+    // Queues the cleanups left pending by earlier runs that crashed or ran out of time to finish them
+    public void finishAbandonedCleanups() {
+        if (!config.isCleanupAsync()) {
+            return;
+        }
+        final List<PendingCleanup> abandonedCleanups = pendingCleanups.takeAbandoned(TimeUnit.SECONDS.toMillis(config.getCleanupAsyncDrainTimeoutSeconds()));
+        for (final PendingCleanup abandonedCleanup : abandonedCleanups) {
+            logger.info(String.format("Finishing the cleanup of %s %s left by an earlier run", abandonedCleanup.getType(), abandonedCleanup.getId()));
+            queueCleanup(abandonedCleanup.getType(), abandonedCleanup.getId());
+        }
+    }
+
+    // Waits (up to cleanup.async.drain.timeout.seconds) for the queued cleanups; any left over stay recorded for the next run
+    public void drainCleanups() {
+        final ExecutorService executorToDrain;
+        synchronized (this) {
+            executorToDrain = cleanupExecutor;
+            cleanupExecutor = null;
+        }
+        if (executorToDrain == null) {
+            return;
+        }
+        executorToDrain.shutdown();
+        try {
+            if (!executorToDrain.awaitTermination(config.getCleanupAsyncDrainTimeoutSeconds(), TimeUnit.SECONDS)) {
+                logger.warn(String.format("Background cleanups did not finish within %d seconds; the next run will finish them", config.getCleanupAsyncDrainTimeoutSeconds()));
+                executorToDrain.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorToDrain.shutdownNow();
+        }
+    }
+
+    private synchronized void queueCleanup(final String type, final String id) {
+        final PendingCleanup pendingCleanup = pendingCleanups.add(type, id);
+        if (cleanupExecutor == null) {
+            cleanupExecutor = Executors.newSingleThreadExecutor();
+        }
+        cleanupExecutor.submit(() -> {
+            try {
+                if (PendingCleanups.TYPE_CONTAINER.equals(type)) {
+                    stopRemoveContainer(id);
+                } else {
+                    removeImage(id);
+                }
+            } catch (final Exception e) {
+                logger.warn(String.format("Background cleanup of %s %s failed: %s", type, id, e.getMessage()));
+            }
+            pendingCleanups.remove(pendingCleanup);
+        });
+        logger.debug(String.format("Queued the cleanup of %s %s", type, id));
+    }
+
+    // Follows the container's log (from its start) until a line matching linePattern appears; the caller must close the returned watch
+    public ContainerLogWatch watchContainerLog(final String containerId, final Pattern linePattern) {
+        final ContainerLogWatch logWatch = new ContainerLogWatch(linePattern);
+        getDockerClient().logContainerCmd(containerId)
+            .withStdErr(true)
+            .withStdOut(true)
+            .withFollowStream(true)
+            .withTailAll()
+            .exec(logWatch);
+        return logWatch;
+    }
+
+    // Docker's health status (starting, healthy, unhealthy) for a container whose image defines a HEALTHCHECK
+    public Optional<String> getContainerHealthStatus(final String containerId) {
+        try {
+            final InspectContainerResponse.ContainerState state = getDockerClient().inspectContainerCmd(containerId).exec().getState();
+            if (state == null || state.getHealth() == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(state.getHealth().getStatus());
+        } catch (final Exception e) {
+            logger.debug(String.format("Unable to get the health status of container %s: %s", containerId, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
     public void logServiceLogAsDebug(final String containerId) {
         final StringBuilder stringBuilder = new StringBuilder();
         final StringBuilderLogReader callback = new StringBuilderLogReader(stringBuilder);
@@ -292,6 +616,26 @@ public class DockerClientManager {
         }
     }
 
+    // Feeds the per-layer download progress reported in the pull response frames to the metrics
+    private class MeteredPullImageResultCallback extends PullImageResultCallback {
+        private final TransferMetrics metrics;
+
+        public MeteredPullImageResultCallback(final TransferMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onNext(final PullResponseItem item) {
+            if (item.getId() != null && "Downloading".equals(item.getStatus()) && item.getProgressDetail() != null && item.getProgressDetail().getCurrent() != null) {
+                final Long total = item.getProgressDetail().getTotal();
+                metrics.updateLayer(item.getId(), item.getProgressDetail().getCurrent(), total == null ? 0L : total);
+            } else if (item.getId() != null && "Download complete".equals(item.getStatus())) {
+                logger.debug(String.format("Pull of %s: layer %s downloaded; %d bytes downloaded so far", metrics.getImage(), item.getId(), metrics.getBytes()));
+            }
+            super.onNext(item);
+        }
+    }
+
     private File saveImageToDir(final File imageTarDirectory, final String imageTarFilename, final String imageName, final String tagName) throws IOException, IntegrationException {
         final File imageTarFile = new File(imageTarDirectory, imageTarFilename);
         saveImageToFile(imageName, tagName, imageTarFile);
@@ -299,6 +643,10 @@ public class DockerClientManager {
     }
 
     private Image getLocalImage(final DockerClient dockerClient, final String imageName, final String tagName) {
+        final DockerStateCache dockerStateCache = getDockerStateCache();
+        if (dockerStateCache != null) {
+            return dockerStateCache.getImageByRepoTag(imageName, tagName).orElse(null);
+        }
         Image localImage = null;
         final List<Image> images = dockerClient.listImagesCmd().withImageNameFilter(imageName).exec();
         for (final Image image : images) {
@@ -331,6 +679,7 @@ public class DockerClientManager {
         final RemoveContainerCmd rmCmd = dockerClient.removeContainerCmd(containerId);
         logger.debug(String.format("Removing container %s", containerId));
         rmCmd.exec();
+        noteContainerChanged(containerId);
         logger.debug(String.format("Container %s removed", containerId));
     }
 
@@ -340,10 +689,15 @@ public class DockerClientManager {
         logger.debug(String.format("Stopping container %s", containerId));
         final StopContainerCmd stopCmd = dockerClient.stopContainerCmd(containerId).withTimeout(timeoutSeconds);
         stopCmd.exec();
+        noteContainerChanged(containerId);
+        inspectorCdsArchives.containerStopped(containerId);
         logger.debug(String.format("Container %s stopped", containerId));
     }
 
     public String getDockerEngineVersion() {
+        if (dockerEngineVersion != null) {
+            return dockerEngineVersion;
+        }
         logger.debug("Requesting version string from Docker engine");
         try {
             final DockerClient dockerClient = getDockerClient();
@@ -353,6 +707,9 @@ public class DockerClientManager {
             if (engineVersion == null) {
                 return "Unknown";
             } else {
+                if (config.isDockerStateCache()) {
+                    dockerEngineVersion = engineVersion;
+                }
                 return engineVersion;
             }
         } catch (final Exception e) {
@@ -373,6 +730,20 @@ public class DockerClientManager {
             }
             logger.debug("The extractor container exists; removing it");
             dockerClient.removeContainerCmd(oldContainerId).exec();
+            noteContainerChanged(oldContainerId);
+        }
+    }
+
+    // Our own changes are applied to the docker state cache right away, rather than when their events arrive
+    private synchronized void noteContainerChanged(final String containerId) {
+        if (dockerStateCache != null) {
+            dockerStateCache.markContainerStale(containerId);
+        }
+    }
+
+    private synchronized void noteImagesChanged() {
+        if (dockerStateCache != null) {
+            dockerStateCache.markImagesStale();
         }
     }
 
@@ -385,8 +756,13 @@ public class DockerClientManager {
     }
 
     public Container getRunningContainerByAppName(final String targetAppName, final ImageInspectorOsEnum targetInspectorOs) throws IntegrationException {
-        final DockerClient dockerClient = getDockerClient();
-        final List<Container> containers = dockerClient.listContainersCmd().withShowAll(true).exec();
+        final DockerStateCache dockerStateCache = getDockerStateCache();
+        final List<Container> containers;
+        if (dockerStateCache != null) {
+            containers = dockerStateCache.getContainersByLabels(Collections.singletonMap(CONTAINER_APPNAME_LABEL_KEY, targetAppName), false);
+        } else {
+            containers = getDockerClient().listContainersCmd().withShowAll(true).exec();
+        }
         for (final Container container : containers) {
             logger.debug(String.format("Checking container %s to see if it has labels app = %s, os = %s", container.getNames()[0], targetAppName, targetInspectorOs.name()));
             final String containerAppName = container.getLabels().get(CONTAINER_APPNAME_LABEL_KEY);
@@ -400,7 +776,31 @@ public class DockerClientManager {
         throw new BlackDuckIntegrationException(String.format("No running container found with app = %s, os = %s", targetAppName, targetInspectorOs.name()));
     }
 
+    // Running containers that later runs may reuse (started with pooled=true); inspectorOs == null matches every OS
+    public List<Container> getRunningPooledContainers(final String targetAppName, final ImageInspectorOsEnum targetInspectorOs) {
+        final DockerClient dockerClient = getDockerClient();
+        final Map<String, String> labelFilter = new HashMap<>();
+        labelFilter.put(CONTAINER_APPNAME_LABEL_KEY, targetAppName);
+        labelFilter.put(CONTAINER_POOL_LABEL_KEY, Boolean.TRUE.toString());
+        if (targetInspectorOs != null) {
+            labelFilter.put(CONTAINER_OS_LABEL_KEY, targetInspectorOs.name());
+        }
+        final DockerStateCache dockerStateCache = getDockerStateCache();
+        final List<Container> containers;
+        if (dockerStateCache != null) {
+            containers = dockerStateCache.getContainersByLabels(labelFilter, true);
+        } else {
+            containers = dockerClient.listContainersCmd().withLabelFilter(labelFilter).exec();
+        }
+        logger.debug(String.format("Found %d running pooled containers with labels %s", containers.size(), labelFilter));
+        return containers;
+    }
+
     private Container getRunningContainerByContainerName(final DockerClient dockerClient, final String extractorContainerName) {
+        final DockerStateCache dockerStateCache = getDockerStateCache();
+        if (dockerStateCache != null) {
+            return dockerStateCache.getContainerByName(extractorContainerName).orElse(null);
+        }
         Container extractorContainer = null;
         final List<Container> containers = dockerClient.listContainersCmd().withShowAll(true).exec();
         for (final Container container : containers) {
@@ -421,12 +821,56 @@ public class DockerClientManager {
     }
 
     private void saveImageToFile(final String imageName, final String tagName, final File imageTarFile) throws IOException {
-            logger.info(String.format("Saving the docker image to : %s", imageTarFile.getCanonicalPath()));
-            final DockerClient dockerClient = getDockerClient();
-            final String imageToSave = String.format("%s:%s", imageName, tagName);
-            final SaveImageCmd saveCommand = dockerClient.saveImageCmd(imageToSave);
-        try (InputStream tarInputStream = saveCommand.exec()) {
+        logger.info(String.format("Saving the docker image to : %s", imageTarFile.getCanonicalPath()));
+        final DockerClient dockerClient = getDockerClient();
+        final String imageToSave = String.format("%s:%s", imageName, tagName);
+        if (!imageTarCache.isEnabled()) {
+            saveImageToFile(dockerClient, imageToSave, imageTarFile);
+            return;
+        }
+        final String imageId = dockerClient.inspectImageCmd(imageToSave).exec().getId();
+        if (imageTarCache.get(imageId, imageToSave, imageTarFile)) {
+            return;
+        }
+        saveImageToFile(dockerClient, imageToSave, imageTarFile);
+        // The tag may have been moved to another image while it was being saved
+        if (imageId.equals(dockerClient.inspectImageCmd(imageToSave).exec().getId())) {
+            imageTarCache.put(imageId, imageToSave, imageTarFile);
+        }
+    }
+
+    private void saveImageToFile(final DockerClient dockerClient, final String imageToSave, final File imageTarFile) throws IOException {
+        if (imageTarAssembler.isEnabled()) {
+            saveImageToFileViaLayerStore(dockerClient, imageToSave, imageTarFile);
+            return;
+        }
+        final SaveImageCmd saveCommand = dockerClient.saveImageCmd(imageToSave);
+        final TransferMetrics saveMetrics = new TransferMetrics(TransferMetrics.OPERATION_SAVE, imageToSave);
+        try (InputStream tarInputStream = new MeteredInputStream(saveCommand.exec(), saveMetrics)) {
             FileUtils.copyInputStreamToFile(tarInputStream, imageTarFile);
         }
+        transferMetricsCollector.record(saveMetrics);
+    }
+
+    // If every layer (and the config) of the image is stored, docker save can be skipped; otherwise it still streams every layer, but fills the store
+    private void saveImageToFileViaLayerStore(final DockerClient dockerClient, final String imageToSave, final File imageTarFile) throws IOException {
+        final InspectImageResponse imageDetails = dockerClient.inspectImageCmd(imageToSave).exec();
+        final String imageId = imageDetails.getId();
+        final List<String> layerDiffIds = imageDetails.getRootFS() == null ? null : imageDetails.getRootFS().getLayers();
+        if (layerDiffIds != null && imageTarAssembler.canAssemble(imageId, layerDiffIds)) {
+            try {
+                imageTarAssembler.assemble(imageTarFile, imageId, layerDiffIds, imageToSave);
+                logger.info(String.format("Assembled image %s from the layer store; docker save was not needed", imageToSave));
+                return;
+            } catch (final IOException e) {
+                logger.debug(String.format("Unable to assemble image %s from the layer store (another run may have evicted part of it); saving it instead: %s", imageToSave, e.getMessage()));
+            }
+        }
+        final SaveImageCmd saveCommand = dockerClient.saveImageCmd(imageToSave);
+        final TransferMetrics saveMetrics = new TransferMetrics(TransferMetrics.OPERATION_SAVE, imageToSave);
+        try (InputStream tarInputStream = new MeteredInputStream(saveCommand.exec(), saveMetrics)) {
+            imageTarAssembler.copyAndStore(tarInputStream, imageTarFile);
+        }
+        transferMetricsCollector.record(saveMetrics);
     }
 }
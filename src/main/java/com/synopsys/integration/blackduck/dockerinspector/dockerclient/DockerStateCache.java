@@ -0,0 +1,228 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+
+/*
+ * An in-memory model of the daemon's containers and images, indexed by name, label and repo:tag, so lookups don't list
+ * every container (which takes seconds on hosts with thousands of stopped containers). It is kept current by the docker
+ * event stream: an event only marks the container (or the image list) stale, and stale entries are re-fetched (by ID) at the next lookup.
+ * Containers are listed once; images, which change rarely and are far fewer, are re-listed after any image event.
+ */
+class DockerStateCache {
+    private static final String RUNNING_STATE = "running";
+    private static final String PAUSED_STATE = "paused";
+    private static final String RUNNING_STATUS_PREFIX = "Up";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Supplier<List<Container>> allContainersLister;
+    private final Function<Collection<String>, List<Container>> containersByIdLister;
+    private final Supplier<List<Image>> allImagesLister;
+
+    private final Map<String, Container> containersById = new HashMap<>();
+    private final Map<String, String> containerIdsByName = new HashMap<>();
+    private final Map<String, Set<String>> containerIdsByLabel = new HashMap<>();
+    private final Map<String, Image> imagesByRepoTag = new HashMap<>();
+    private final Set<String> staleContainerIds = new HashSet<>();
+    private boolean containersLoaded = false;
+    private boolean imagesStale = true;
+    private volatile boolean valid = true;
+
+    DockerStateCache(final Supplier<List<Container>> allContainersLister, final Function<Collection<String>, List<Container>> containersByIdLister, final Supplier<List<Image>> allImagesLister) {
+        this.allContainersLister = allContainersLister;
+        this.containersByIdLister = containersByIdLister;
+        this.allImagesLister = allImagesLister;
+    }
+
+    synchronized void onEvent(final Event event) {
+        final String id = event.getActor() != null && event.getActor().getId() != null ? event.getActor().getId() : event.getId();
+        if (event.getType() == EventType.IMAGE) {
+            markImagesStale();
+        } else if ((event.getType() == EventType.CONTAINER || event.getType() == null) && id != null) {
+            markContainerStale(id);
+        }
+    }
+
+    synchronized void markContainerStale(final String containerId) {
+        staleContainerIds.add(containerId);
+    }
+
+    synchronized void markImagesStale() {
+        imagesStale = true;
+    }
+
+    // Once the event stream is lost, events may have been missed, so the whole model must be discarded
+    void invalidate() {
+        valid = false;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    // Containers (running or not) having all of the given labels
+    synchronized List<Container> getContainersByLabels(final Map<String, String> labels, final boolean runningOnly) {
+        refreshContainers();
+        Set<String> matchingIds = null;
+        for (final Map.Entry<String, String> label : labels.entrySet()) {
+            final Set<String> labelIds = containerIdsByLabel.getOrDefault(toLabelKey(label.getKey(), label.getValue()), Collections.emptySet());
+            if (matchingIds == null) {
+                matchingIds = new HashSet<>(labelIds);
+            } else {
+                matchingIds.retainAll(labelIds);
+            }
+        }
+        final Collection<String> containerIds = matchingIds == null ? containersById.keySet() : matchingIds;
+        final List<Container> containers = new ArrayList<>();
+        for (final String containerId : containerIds) {
+            final Container container = containersById.get(containerId);
+            if (!runningOnly || isRunning(container)) {
+                containers.add(container);
+            }
+        }
+        return containers;
+    }
+
+    // An exact name match, or else (as docker's name filter does) a container whose name contains the given name
+    synchronized Optional<Container> getContainerByName(final String containerName) {
+        refreshContainers();
+        final String containerId = containerIdsByName.get(containerName);
+        if (containerId != null) {
+            return Optional.of(containersById.get(containerId));
+        }
+        return containerIdsByName.entrySet().stream()
+                   .filter(nameEntry -> nameEntry.getKey().contains(containerName))
+                   .map(nameEntry -> containersById.get(nameEntry.getValue()))
+                   .findFirst();
+    }
+
+    // An exact repo:tag match, or else (as the image list was searched before) an image of the repo whose tag contains the given tag
+    synchronized Optional<Image> getImageByRepoTag(final String imageName, final String tagName) {
+        refreshImages();
+        final Image image = imagesByRepoTag.get(String.format("%s:%s", imageName, tagName));
+        if (image != null) {
+            return Optional.of(image);
+        }
+        return imagesByRepoTag.entrySet().stream()
+                   .filter(repoTagEntry -> repoTagEntry.getKey().startsWith(imageName + ":") && repoTagEntry.getKey().substring(imageName.length() + 1).contains(tagName))
+                   .map(Map.Entry::getValue)
+                   .findFirst();
+    }
+
+    private void refreshContainers() {
+        if (!containersLoaded) {
+            // Events that arrive while listing mark their containers stale again, so none are lost
+            staleContainerIds.clear();
+            final List<Container> containers = allContainersLister.get();
+            containers.forEach(this::addContainer);
+            containersLoaded = true;
+            logger.debug(String.format("Loaded %d containers into the docker state cache", containers.size()));
+            return;
+        }
+        if (staleContainerIds.isEmpty()) {
+            return;
+        }
+        final Set<String> refreshedIds = new HashSet<>(staleContainerIds);
+        staleContainerIds.clear();
+        refreshedIds.forEach(this::removeContainer);
+        for (final Container container : containersByIdLister.apply(refreshedIds)) {
+            // The ID filter matches ID prefixes, so a listed container may not be one of the refreshed ones
+            removeContainer(container.getId());
+            addContainer(container);
+        }
+        logger.debug(String.format("Refreshed %d containers in the docker state cache", refreshedIds.size()));
+    }
+
+    private void refreshImages() {
+        if (!imagesStale) {
+            return;
+        }
+        imagesStale = false;
+        imagesByRepoTag.clear();
+        for (final Image image : allImagesLister.get()) {
+            if (image == null || image.getRepoTags() == null) {
+                continue;
+            }
+            for (final String repoTag : image.getRepoTags()) {
+                if (repoTag != null) {
+                    imagesByRepoTag.put(repoTag, image);
+                }
+            }
+        }
+        logger.debug(String.format("Loaded %d image repo:tags into the docker state cache", imagesByRepoTag.size()));
+    }
+
+    private void addContainer(final Container container) {
+        containersById.put(container.getId(), container);
+        if (container.getNames() != null) {
+            for (final String name : container.getNames()) {
+                // docker prefixes names with '/'
+                containerIdsByName.put(name.startsWith("/") ? name.substring(1) : name, container.getId());
+            }
+        }
+        if (container.getLabels() != null) {
+            for (final Map.Entry<String, String> label : container.getLabels().entrySet()) {
+                containerIdsByLabel.computeIfAbsent(toLabelKey(label.getKey(), label.getValue()), labelKey -> new HashSet<>()).add(container.getId());
+            }
+        }
+    }
+
+    private void removeContainer(final String containerId) {
+        if (containersById.remove(containerId) == null) {
+            return;
+        }
+        containerIdsByName.values().removeIf(containerId::equals);
+        containerIdsByLabel.values().forEach(labelIds -> labelIds.remove(containerId));
+        containerIdsByLabel.values().removeIf(Set::isEmpty);
+    }
+
+    // A paused container still counts as running (as it does for docker ps); its status reads "Up ... (Paused)"
+    private boolean isRunning(final Container container) {
+        if (container.getState() != null) {
+            return RUNNING_STATE.equals(container.getState()) || PAUSED_STATE.equals(container.getState());
+        }
+        return container.getStatus() != null && container.getStatus().startsWith(RUNNING_STATUS_PREFIX);
+    }
+
+    private String toLabelKey(final String key, final String value) {
+        return String.format("%s=%s", key, value);
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+
+/*
+ * AppCDS (class data sharing) archives for the image inspector service JVMs, one per inspector image version,
+ * kept in a directory bind-mounted next to the shared dir. The first container started on a version writes a
+ * temporary archive when its JVM exits; once that container is stopped the archive is promoted, and later
+ * containers map it at startup. An archive left by a container another run stopped is promoted by the next
+ * start. -Xshare:auto and -XX:+IgnoreUnrecognizedVMOptions keep a JVM that can't use or write an archive
+ * starting normally.
+ */
+@Component
+public class InspectorCdsArchives {
+    private static final String CDS_DIR_NAME = "cds";
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long LEFTOVER_SETTLE_MILLIS = 60L * 1000L;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    private final Map<String, File[]> generatingArchivesByContainerName = new ConcurrentHashMap<>();
+    private final Map<String, File[]> generatingArchivesByContainerId = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return config.isImageInspectorServiceCds();
+    }
+
+    public String getCdsDirPathLocal() {
+        return new File(new File(config.getSharedDirPathLocal()).getParentFile(), CDS_DIR_NAME).getAbsolutePath();
+    }
+
+    public String getCdsDirPathImageInspector() {
+        return String.format("%s/%s", new File(config.getSharedDirPathImageInspector()).getParent(), CDS_DIR_NAME);
+    }
+
+    // The JVM options (space-separated) that use this image version's archive, or generate it if there is none yet
+    public String deriveJvmOptions(final String imageName, final String imageTag, final String containerName) {
+        final File cdsDir = createCdsDir();
+        final String archiveName = deriveArchiveName(imageName, imageTag);
+        final File archiveFile = new File(cdsDir, archiveName);
+        promoteLeftoverArchives(cdsDir, archiveName, archiveFile);
+        if (archiveFile.isFile() && archiveFile.length() > 0) {
+            logger.debug(String.format("Starting container %s with class data sharing archive %s", containerName, archiveFile.getAbsolutePath()));
+            return String.format("-XX:SharedArchiveFile=%s/%s -Xshare:auto", getCdsDirPathImageInspector(), archiveName);
+        }
+        final String tempArchiveName = String.format("%s.%s%s", archiveName, containerName, TEMP_SUFFIX);
+        final File tempArchiveFile = new File(cdsDir, tempArchiveName);
+        tempArchiveFile.delete();
+        generatingArchivesByContainerName.put(containerName, new File[] { tempArchiveFile, archiveFile });
+        logger.debug(String.format("Container %s will generate class data sharing archive %s", containerName, archiveFile.getAbsolutePath()));
+        return String.format("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=%s/%s", getCdsDirPathImageInspector(), tempArchiveName);
+    }
+
+    // The service may not run as the user that created the dir, so the dir gets the same permissions as the shared dir (owner-only if that can't be read)
+    private File createCdsDir() {
+        final File cdsDir = new File(getCdsDirPathLocal());
+        if (cdsDir.isDirectory()) {
+            return cdsDir;
+        }
+        cdsDir.mkdirs();
+        try {
+            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwx------");
+            final File sharedDir = new File(config.getSharedDirPathLocal());
+            if (sharedDir.isDirectory()) {
+                permissions = Files.getPosixFilePermissions(sharedDir.toPath());
+            }
+            Files.setPosixFilePermissions(cdsDir.toPath(), permissions);
+        } catch (final IOException | UnsupportedOperationException e) {
+            logger.debug(String.format("Unable to set the permissions of %s: %s", cdsDir.getAbsolutePath(), e.getMessage()));
+        }
+        return cdsDir;
+    }
+
+    void containerCreated(final String containerName, final String containerId) {
+        final File[] generatingArchive = generatingArchivesByContainerName.remove(containerName);
+        if (generatingArchive != null) {
+            generatingArchivesByContainerId.put(containerId, generatingArchive);
+        }
+    }
+
+    // The JVM writes the archive as it exits, so it is complete only once the container has stopped
+    void containerStopped(final String containerId) {
+        final File[] generatingArchive = generatingArchivesByContainerId.remove(containerId);
+        if (generatingArchive == null) {
+            return;
+        }
+        final File tempArchiveFile = generatingArchive[0];
+        final File archiveFile = generatingArchive[1];
+        if (!tempArchiveFile.isFile() || tempArchiveFile.length() == 0) {
+            logger.debug(String.format("Container %s did not write class data sharing archive %s", containerId, tempArchiveFile.getAbsolutePath()));
+            return;
+        }
+        try {
+            Files.move(tempArchiveFile.toPath(), archiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info(String.format("Saved class data sharing archive %s for later image inspector service starts", archiveFile.getAbsolutePath()));
+        } catch (final IOException e) {
+            logger.debug(String.format("Unable to save class data sharing archive %s: %s", archiveFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    /*
+     * A container stopped by another run (a pooled container, reaped later) leaves its archive as a temporary file. Once it has
+     * not changed for a while, its JVM has finished writing it, and the first one found is promoted; the rest are removed.
+     */
+    private void promoteLeftoverArchives(final File cdsDir, final String archiveName, final File archiveFile) {
+        final File[] tempArchiveFiles = cdsDir.listFiles((dir, name) -> name.startsWith(archiveName + ".") && name.endsWith(TEMP_SUFFIX));
+        if (tempArchiveFiles == null) {
+            return;
+        }
+        final long settledBefore = System.currentTimeMillis() - LEFTOVER_SETTLE_MILLIS;
+        for (final File tempArchiveFile : tempArchiveFiles) {
+            if (isGeneratedByThisRun(tempArchiveFile) || tempArchiveFile.lastModified() > settledBefore) {
+                continue;
+            }
+            if (archiveFile.isFile() || tempArchiveFile.length() == 0) {
+                tempArchiveFile.delete();
+                continue;
+            }
+            try {
+                Files.move(tempArchiveFile.toPath(), archiveFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                logger.info(String.format("Saved class data sharing archive %s, left by an earlier run", archiveFile.getAbsolutePath()));
+            } catch (final IOException e) {
+                // Another run may have promoted it first
+                logger.debug(String.format("Unable to save class data sharing archive %s: %s", archiveFile.getAbsolutePath(), e.getMessage()));
+            }
+        }
+    }
+
+    private boolean isGeneratedByThisRun(final File tempArchiveFile) {
+        return Stream.concat(generatingArchivesByContainerName.values().stream(), generatingArchivesByContainerId.values().stream())
+                   .anyMatch(generatingArchive -> generatingArchive[0].equals(tempArchiveFile));
+    }
+
+    private String deriveArchiveName(final String imageName, final String imageTag) {
+        return String.format("%s_%s%s", imageName, imageTag, ARCHIVE_SUFFIX).replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.github.dockerjava.jaxrs.JerseyDockerCmdExecFactory;
+import com.github.dockerjava.jaxrs.util.WrappedResponseInputStream;
+
+/*
+ * The docker-java default command executor, plus a save of several images in one request (docker-java's SaveImageCmd takes only one).
+ * The docker daemon writes each layer the images share only once.
+ */
+class SaveImagesCmdExecFactory extends JerseyDockerCmdExecFactory {
+    private static final int HTTP_OK = 200;
+
+    public InputStream saveImages(final List<String> imageRefs) throws IOException {
+        WebTarget webTarget = getBaseResource().path("/images/get");
+        for (final String imageRef : imageRefs) {
+            webTarget = webTarget.queryParam("names", imageRef);
+        }
+        final Response response = webTarget.request().accept(MediaType.APPLICATION_JSON).get();
+        if (response.getStatus() != HTTP_OK) {
+            final String responseBody = response.readEntity(String.class);
+            response.close();
+            throw new IOException(String.format("Save of images %s failed (status %d): %s", imageRefs, response.getStatus(), responseBody));
+        }
+        return new WrappedResponseInputStream(response);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * Throughput of one image pull or save. Time to first byte is mostly the daemon (or registry) getting started;
+ * bytes per second after that is the transfer itself. Written to the run result, so the timing fields are transient.
+ */
+public class TransferMetrics {
+    public static final String OPERATION_PULL = "pull";
+    public static final String OPERATION_SAVE = "save";
+
+    private final String operation;
+    private final String image;
+    private long bytes;
+    private Long timeToFirstByteMillis;
+    private long durationMillis;
+    private long bytesPerSecond;
+    private final Map<String, LayerProgress> layers = new LinkedHashMap<>();
+
+    private final transient LongSupplier nanoClock;
+    private final transient long startNanos;
+    private transient long firstByteNanos = -1L;
+
+    public TransferMetrics(final String operation, final String image) {
+        this(operation, image, System::nanoTime);
+    }
+
+    TransferMetrics(final String operation, final String image, final LongSupplier nanoClock) {
+        this.operation = operation;
+        this.image = image;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    public synchronized void addBytes(final long byteCount) {
+        if (byteCount <= 0) {
+            return;
+        }
+        noteFirstByte();
+        bytes += byteCount;
+    }
+
+    // Pull progress is reported per layer as a running total, so the overall count is the sum of the latest value for each layer
+    public synchronized void updateLayer(final String layerId, final long current, final long total) {
+        LayerProgress layer = layers.get(layerId);
+        if (layer == null) {
+            layer = new LayerProgress();
+            layers.put(layerId, layer);
+        }
+        if (current > layer.bytes) {
+            noteFirstByte();
+            bytes += current - layer.bytes;
+            layer.bytes = current;
+        }
+        if (total > 0) {
+            layer.size = total;
+        }
+    }
+
+    public synchronized void finish() {
+        final long endNanos = nanoClock.getAsLong();
+        durationMillis = (endNanos - startNanos) / 1000000L;
+        if (firstByteNanos >= 0) {
+            timeToFirstByteMillis = (firstByteNanos - startNanos) / 1000000L;
+            final long transferNanos = endNanos - firstByteNanos;
+            bytesPerSecond = transferNanos > 0 ? (long) (bytes * 1000000000.0 / transferNanos) : bytes;
+        }
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Null if no bytes were transferred (for example: every layer of a pulled image already existed)
+    public synchronized Long getTimeToFirstByteMillis() {
+        return timeToFirstByteMillis;
+    }
+
+    public synchronized long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public synchronized Map<String, Long> getLayerBytes() {
+        final Map<String, Long> layerBytes = new LinkedHashMap<>();
+        for (final Map.Entry<String, LayerProgress> layer : layers.entrySet()) {
+            layerBytes.put(layer.getKey(), layer.getValue().bytes);
+        }
+        return layerBytes;
+    }
+
+    public synchronized String getSummary() {
+        return String.format("%s of %s: %d bytes in %d ms (time to first byte: %s ms; %d bytes/sec; %d layers)", operation, image, bytes, durationMillis,
+            timeToFirstByteMillis == null ? "n/a" : timeToFirstByteMillis.toString(), bytesPerSecond, layers.size());
+    }
+
+    private void noteFirstByte() {
+        if (firstByteNanos < 0) {
+            firstByteNanos = nanoClock.getAsLong();
+        }
+    }
+
+    private static class LayerProgress {
+        private long bytes;
+        private long size;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/*
+ * Collects the pull/save metrics of the inspection being prepared on the current thread.
+ * Batch mode prepares several images at once, each on its own thread.
+ */
+@Component
+public class TransferMetricsCollector {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ThreadLocal<List<TransferMetrics>> collected = new ThreadLocal<>();
+
+    public void start() {
+        collected.set(new ArrayList<>());
+    }
+
+    public void record(final TransferMetrics metrics) {
+        metrics.finish();
+        logger.info(String.format("Transfer metrics: %s", metrics.getSummary()));
+        final List<TransferMetrics> metricsList = collected.get();
+        if (metricsList != null) {
+            metricsList.add(metrics);
+        }
+    }
+
+    public List<TransferMetrics> finish() {
+        final List<TransferMetrics> metricsList = collected.get();
+        collected.remove();
+        return metricsList == null ? new ArrayList<>() : metricsList;
+    }
+}
@@ -43,4 +43,13 @@ public class ContainerName {
     return processId.addProcessIdToName(extractorContainerName);
   }
 
+  // Replica 0 keeps the original name
+  public String deriveContainerNameFromImageInspectorRepo(final String imageInspectorRepo, final int replicaIndex) {
+    final String containerName = deriveContainerNameFromImageInspectorRepo(imageInspectorRepo);
+    if (replicaIndex == 0) {
+      return containerName;
+    }
+    return String.format("%s_%d", containerName, replicaIndex);
+  }
+
 }
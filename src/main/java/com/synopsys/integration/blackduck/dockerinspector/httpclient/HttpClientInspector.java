@@ -24,30 +24,46 @@ package com.synopsys.integration.blackduck.dockerinspector.httpclient;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.google.gson.Gson;
 import com.synopsys.integration.blackduck.dockerinspector.blackduckclient.BlackDuckClient;
+import com.synopsys.integration.blackduck.dockerinspector.cache.BdioResultCache;
+import com.synopsys.integration.blackduck.dockerinspector.cache.PackageDbLayers;
+import com.synopsys.integration.blackduck.dockerinspector.cache.PlatformImageCatalog;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetricsCollector;
+import com.synopsys.integration.blackduck.dockerinspector.output.BdioAdjuster;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageLookup;
 import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarFilename;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarReader;
 import com.synopsys.integration.blackduck.dockerinspector.output.OutputDir;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequestFactory;
 import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
 import com.synopsys.integration.blackduck.imageinspector.api.name.Names;
 import com.synopsys.integration.exception.IntegrationException;
-import com.synopsys.integration.bdio.BdioReader;
-import com.synopsys.integration.bdio.model.SimpleBdioDocument;
 
 @Component
 public class HttpClientInspector {
+    private static final String BDIO_SPOOL_FILENAME = "bdio.spool.jsonld";
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
@@ -59,6 +75,9 @@ public class HttpClientInspector {
     @Autowired
     private ProgramPaths programPaths;
 
+    @Autowired
+    private ImageInspectionRequestFactory imageInspectionRequestFactory;
+
     @Autowired
     private ImageTarFilename dockerTarfile;
 
@@ -72,65 +91,294 @@ public class HttpClientInspector {
     private OutputDir output;
 
     @Autowired
-    private Gson gson;
+    private BdioResultCache bdioResultCache;
+
+    @Autowired
+    private InspectorImages inspectorImages;
+
+    @Autowired
+    private PackageDbLayers packageDbLayers;
+
+    @Autowired
+    private ImageTarReader imageTarReader;
+
+    @Autowired
+    private PlatformImageCatalog platformImageCatalog;
+
+    @Autowired
+    private TransferMetricsCollector transferMetricsCollector;
+
+    @Autowired
+    private DockerClientManager dockerClientManager;
+
+    // The single-image run; its Result (with the pull/save metrics) goes to the results file
+    public Result getBdio() throws IntegrationException {
+        final Result result = inspect(imageInspectionRequestFactory.createFromConfig(), new File(programPaths.getDockerInspectorTargetDirPath()));
+        cleanup();
+        return result;
+    }
+
+    public Result inspect(final ImageInspectionRequest request, final File targetDir) throws IntegrationException {
+        return inspect(request, targetDir, () -> false);
+    }
+
+    // cancelled is checked between stages, so that a cancelled inspection stops before writing or uploading its BDIO
+    private Result inspect(final ImageInspectionRequest request, final File targetDir, final BooleanSupplier cancelled) throws IntegrationException {
+        final ImageInspection inspection = prepare(request, targetDir);
+        checkNotCancelled(request, cancelled);
+        inspectPrepared(inspection);
+        checkNotCancelled(request, cancelled);
+        upload(inspection);
+        return toResult(inspection);
+    }
+
+    private void checkNotCancelled(final ImageInspectionRequest request, final BooleanSupplier cancelled) throws IntegrationException {
+        if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+            throw new IntegrationException(String.format("Inspection of image %s was cancelled", request.getTargetDescription()));
+        }
+    }
 
-    public int getBdio() throws IntegrationException {
-        final ImageInspectorClient imageInspectorClient = chooseImageInspectorClient();
+    // Stage 1: get the image into a tarfile in the dir shared with the image inspector service
+    public ImageInspection prepare(final ImageInspectionRequest request, final File targetDir) throws IntegrationException {
+        final ImageInspection inspection = new ImageInspection(request, targetDir);
+        transferMetricsCollector.start();
         try {
             output.ensureOutputDirIsWriteable();
-            final File finalDockerTarfile = prepareDockerTarfile(imageInspectorClient);
-            final String containerFileSystemFilename = Names.getContainerFileSystemTarFilename(config.getDockerImage(), config.getDockerTar());
-            final String dockerTarFilePathInContainer = containerPaths.getContainerPathToTargetFile(finalDockerTarfile.getCanonicalPath());
-            String containerFileSystemPathInContainer = null;
-            if (config.isOutputIncludeContainerfilesystem()) {
-                containerFileSystemPathInContainer = containerPaths.getContainerPathToOutputFile(containerFileSystemFilename);
+            // What can be learned about the image without saving it, if anything will use it
+            Optional<ImageTarMetadata> image = Optional.empty();
+            if (bdioResultCache.isEnabled() || platformImageCatalog.isEnabled()) {
+                final ImageLookup imageLookup = dockerTarfile.deriveImageMetadata(request);
+                image = imageLookup.getMetadata();
+                inspection.setPulledImageId(imageLookup.getPulledImageId().orElse(null));
+            }
+            if (image.isPresent()) {
+                applyPlatformImageCatalog(inspection, image.get());
+                if (findCachedBdio(inspection, image.get())) {
+                    // The image won't be saved, so the pulled image is cleaned up here rather than after the save
+                    cleanUpPulledImage(inspection);
+                    return inspection;
+                }
             }
-            final String bdioString = imageInspectorClient.getBdio(finalDockerTarfile.getCanonicalPath(), dockerTarFilePathInContainer, config.getDockerImageRepo(), config.getDockerImageTag(), containerFileSystemPathInContainer,
-                config.isOrganizeComponentsByLayer(), config.isIncludeRemovedComponents(),
-                config.isCleanupWorkingDir(), config.getDockerPlatformTopLayerId());
-            logger.debug(String.format("bdioString: %s", bdioString));
-            final SimpleBdioDocument bdioDocument = toBdioDocument(bdioString);
-            adjustBdio(bdioDocument);
-            final File bdioFile = output.addBdioFileToOutputDir(bdioDocument);
-            if (config.isUploadBdio()) {
-                blackDuckClient.uploadBdio(bdioFile, bdioDocument.billOfMaterials.spdxName);
+            inspection.setDockerTarfile(prepareDockerTarfile(chooseImageInspectorClient(), inspection));
+            final boolean imageKnown = image.isPresent();
+            final Optional<ImageTarMetadata> savedImage = readSavedImageIfNeeded(inspection, imageKnown);
+            if (savedImage.isPresent()) {
+                if (!imageKnown) {
+                    applyPlatformImageCatalog(inspection, savedImage.get());
+                }
+                findCachedBdioForPackageChain(inspection, savedImage.get());
+            }
+        } catch (final IOException e) {
+            throw new IntegrationException(e.getMessage(), e);
+        } finally {
+            final List<TransferMetrics> transferMetrics = new ArrayList<>(request.getTransferMetrics());
+            transferMetrics.addAll(transferMetricsCollector.finish());
+            inspection.setTransferMetrics(transferMetrics);
+        }
+        return inspection;
+    }
+
+    // Stage 2: have the image inspector service inspect the tarfile, and write the (adjusted) BDIO to the output dir
+    public void inspectPrepared(final ImageInspection inspection) throws IntegrationException {
+        final ImageInspectionRequest request = inspection.getRequest();
+        try {
+            final File spooledBdioFile;
+            if (inspection.getCachedBdioFile() != null) {
+                spooledBdioFile = inspection.getCachedBdioFile();
+            } else {
+                spooledBdioFile = getBdioFromService(inspection);
+                if (inspection.getBdioResultCacheKey() != null) {
+                    bdioResultCache.put(inspection.getBdioResultCacheKey(), spooledBdioFile);
+                }
+                if (inspection.getPackageChainBdioResultCacheKey() != null) {
+                    bdioResultCache.put(inspection.getPackageChainBdioResultCacheKey(), spooledBdioFile);
+                }
             }
-            cleanup();
-            return 0;
+            final BdioAdjuster bdioAdjuster = new BdioAdjuster(request);
+            inspection.setBdioFile(output.addBdioFileToOutputDir(spooledBdioFile, bdioAdjuster));
+            inspection.setCodeLocationName(bdioAdjuster.getAdjustedSpdxName());
         } catch (final IOException e) {
             throw new IntegrationException(e.getMessage(), e);
         }
     }
 
-    private void adjustBdio(final SimpleBdioDocument bdioDocument) {
-        if (StringUtils.isNotBlank(config.getBlackDuckProjectName())) {
-            bdioDocument.project.name = config.getBlackDuckProjectName();
+    private File getBdioFromService(final ImageInspection inspection) throws IOException, IntegrationException {
+        final ImageInspectionRequest request = inspection.getRequest();
+        final String containerFileSystemFilename = Names.getContainerFileSystemTarFilename(request.getDockerImage(), request.getDockerTar());
+        final String dockerTarFilePathInContainer = containerPaths.getContainerPathToTargetFile(inspection.getDockerTarfile().getCanonicalPath());
+        String containerFileSystemPathInContainer = null;
+        if (config.isOutputIncludeContainerfilesystem()) {
+            containerFileSystemPathInContainer = containerPaths.getContainerPathToOutputFile(containerFileSystemFilename);
+        }
+        return chooseImageInspectorClient().getBdio(inspection.getDockerTarfile().getCanonicalPath(), dockerTarFilePathInContainer, request.getDockerImageRepo(), request.getDockerImageTag(),
+            containerFileSystemPathInContainer, config.isOrganizeComponentsByLayer(), config.isIncludeRemovedComponents(),
+            config.isCleanupWorkingDir(), inspection.getPlatformTopLayerId(), getBdioSpoolFile(inspection));
+    }
+
+    // Stage 3
+    public void upload(final ImageInspection inspection) throws IntegrationException {
+        if (config.isUploadBdio()) {
+            blackDuckClient.uploadBdio(inspection.getBdioFile(), inspection.getCodeLocationName());
+        }
+    }
+
+    public Result toResult(final ImageInspection inspection) {
+        final String dockerTarfilename = inspection.getDockerTarfile() == null ? null : inspection.getDockerTarfile().getName();
+        return new Result(true, "Docker Inspector succeeded", null, null, null, dockerTarfilename, inspection.getBdioFile().getName(), inspection.getTransferMetrics());
+    }
+
+    // Static so that callers holding a mock inspector still get a real failure Result
+    public static Result toFailureResult(final ImageInspectionRequest request, final Throwable e) {
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        final Logger failureLogger = LoggerFactory.getLogger(HttpClientInspector.class);
+        final String msg = String.format("Error inspecting image %s: %s", request.getTargetDescription(), cause.getMessage());
+        failureLogger.error(msg);
+        failureLogger.debug(String.format("Stack trace: %s", ExceptionUtils.getStackTrace(cause)));
+        return new Result(false, msg, null, null, null, null, null);
+    }
+
+    // For multi-image runs: each image gets its own target dir, and a failure is reported in the returned Result rather than thrown
+    public Result inspectTolerantly(final ImageInspectionRequest request, final String targetDirName, final BooleanSupplier cancelled) {
+        final File targetDir = new File(programPaths.getDockerInspectorTargetDirPath(), targetDirName);
+        logger.info(String.format("Inspecting image %s", request.getTargetDescription()));
+        try {
+            final Result result = inspect(request, targetDir, cancelled);
+            logger.info(String.format("Inspection of image %s succeeded; BDIO file: %s", request.getTargetDescription(), result.getBdioFilename()));
+            return result;
+        } catch (final Exception e) {
+            return toFailureResult(request, e);
+        } finally {
+            if (config.isCleanupWorkingDir()) {
+                FileUtils.deleteQuietly(targetDir);
+            }
+        }
+    }
+
+    public void holdServices() throws IntegrationException {
+        chooseImageInspectorClient().holdServices();
+    }
+
+    public void releaseServices() throws IntegrationException {
+        chooseImageInspectorClient().releaseServices();
+    }
+
+    // A hit means the image need not be saved or inspected; only its BDIO needs adjusting
+    private boolean findCachedBdio(final ImageInspection inspection, final ImageTarMetadata image) {
+        if (!bdioResultCache.isEnabled()) {
+            return false;
+        }
+        inspection.setBdioResultCacheKey(deriveBdioResultCacheKey(inspection, image.getImageId()));
+        if (useCachedBdio(inspection, inspection.getBdioResultCacheKey(), image.getImageId())) {
+            return true;
+        }
+        if (!isPackageChainReusable()) {
+            return false;
+        }
+        final Optional<String> packageChainId = packageDbLayers.derivePackageChainId(image.getLayerDiffIds(), inspection.getPlatformTopLayerId());
+        if (!packageChainId.isPresent()) {
+            return false;
+        }
+        inspection.setPackageChainBdioResultCacheKey(deriveBdioResultCacheKey(inspection, packageChainId.get()));
+        return useCachedBdio(inspection, inspection.getPackageChainBdioResultCacheKey(), packageChainId.get());
+    }
+
+    private boolean isPackageChainPending(final ImageInspection inspection) {
+        return inspection.getBdioResultCacheKey() != null && inspection.getPackageChainBdioResultCacheKey() == null && isPackageChainReusable();
+    }
+
+    // Reading the saved image means reading every layer, so it is only done if the image could not be looked up before it was saved
+    private Optional<ImageTarMetadata> readSavedImageIfNeeded(final ImageInspection inspection, final boolean imageKnown) {
+        if (!isPackageChainPending(inspection) && (imageKnown || !platformImageCatalog.isEnabled())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(imageTarReader.readMetadata(inspection.getDockerTarfile(), deriveRepoTag(inspection.getRequest())));
+        } catch (final IntegrationException e) {
+            logger.debug(String.format("Unable to read the layers of %s: %s", inspection.getDockerTarfile().getAbsolutePath(), e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    // Selects the image in a tarfile that holds several (see batch.save.shared)
+    private String deriveRepoTag(final ImageInspectionRequest request) {
+        if (StringUtils.isBlank(request.getDockerImageRepo())) {
+            return null;
         }
-        if (StringUtils.isNotBlank(config.getBlackDuckProjectVersion())) {
-            bdioDocument.project.version = config.getBlackDuckProjectVersion();
+        return String.format("%s:%s", request.getDockerImageRepo(), StringUtils.isBlank(request.getDockerImageTag()) ? "latest" : request.getDockerImageTag());
+    }
+
+    // When some of the image's layers have not been seen before, they can only be checked for package database changes once the image is saved
+    private void findCachedBdioForPackageChain(final ImageInspection inspection, final ImageTarMetadata image) {
+        if (!isPackageChainPending(inspection)) {
+            return;
         }
-        if (StringUtils.isNotBlank(config.getBlackDuckCodelocationName())) {
-            bdioDocument.billOfMaterials.spdxName = config.getBlackDuckCodelocationName();
-        } else if (StringUtils.isNotBlank(config.getBlackDuckCodelocationPrefix())) {
-            bdioDocument.billOfMaterials.spdxName = String.format("%s_%s", config.getBlackDuckCodelocationPrefix(), bdioDocument.billOfMaterials.spdxName);
+        final Set<String> packageDbLayerDiffIds = image.getPackageDbLayerDiffIds().get();
+        packageDbLayers.record(image.getLayerDiffIds(), packageDbLayerDiffIds);
+        final Optional<String> packageChainId = packageDbLayers.derivePackageChainId(image.getLayerDiffIds(), packageDbLayerDiffIds, inspection.getPlatformTopLayerId());
+        if (packageChainId.isPresent()) {
+            inspection.setPackageChainBdioResultCacheKey(deriveBdioResultCacheKey(inspection, packageChainId.get()));
+            useCachedBdio(inspection, inspection.getPackageChainBdioResultCacheKey(), packageChainId.get());
         }
     }
 
-    private SimpleBdioDocument toBdioDocument(final String bdioString) throws IOException {
-        final Reader reader = new StringReader(bdioString);
-        SimpleBdioDocument doc = null;
-        try (BdioReader bdioReader = new BdioReader(gson, reader)) {
-            doc = bdioReader.readSimpleBdioDocument();
-            return doc;
+    private void applyPlatformImageCatalog(final ImageInspection inspection, final ImageTarMetadata image) throws IntegrationException {
+        if (config.isDockerPlatformTopLayerAuto() && StringUtils.isBlank(inspection.getPlatformTopLayerId())) {
+            final Optional<String> platformTopLayerId = platformImageCatalog.findPlatformTopLayerId(image.getLayerDiffIds());
+            if (platformTopLayerId.isPresent()) {
+                logger.info(String.format("Using platform top layer %s for image %s", platformTopLayerId.get(), inspection.getRequest().getTargetDescription()));
+                inspection.setPlatformTopLayerId(platformTopLayerId.get());
+            }
+        }
+        if (config.isPlatformImageCatalogAdd()) {
+            platformImageCatalog.add(inspection.getRequest().getTargetDescription(), image.getLayerDiffIds());
         }
     }
 
-    private File prepareDockerTarfile(final ImageInspectorClient imageInspectorClient) throws IOException, IntegrationException {
-        final File givenDockerTarfile = dockerTarfile.deriveDockerTarFileFromConfig();
-        final File finalDockerTarfile = imageInspectorClient.copyTarfileToSharedDir(givenDockerTarfile);
+    // Layered BDIO has a node per layer, so it can't be shared by images with different layers
+    private boolean isPackageChainReusable() {
+        return config.isBdioResultCacheLayers() && !config.isOrganizeComponentsByLayer();
+    }
+
+    // imageOrChainId identifies either the whole image or its package chain
+    private String deriveBdioResultCacheKey(final ImageInspection inspection, final String imageOrChainId) {
+        final ImageInspectionRequest request = inspection.getRequest();
+        final String inspectorImage = String.format("%s:%s", inspectorImages.getInspectorImageName(ImageInspectorOsEnum.ALPINE), inspectorImages.getInspectorImageTag(ImageInspectorOsEnum.ALPINE));
+        return bdioResultCache.deriveKey(imageOrChainId, request.getDockerImageRepo(), request.getDockerImageTag(), config.isOrganizeComponentsByLayer(), config.isIncludeRemovedComponents(),
+            inspection.getPlatformTopLayerId(), inspectorImage);
+    }
+
+    private boolean useCachedBdio(final ImageInspection inspection, final String key, final String imageOrChainId) {
+        final Optional<File> cachedBdioFile = bdioResultCache.get(key, getBdioSpoolFile(inspection));
+        if (!cachedBdioFile.isPresent()) {
+            return false;
+        }
+        logger.info(String.format("Using the BDIO from an earlier inspection of image %s (%s)", inspection.getRequest().getTargetDescription(), imageOrChainId));
+        inspection.setCachedBdioFile(cachedBdioFile.get());
+        return true;
+    }
+
+    // The BDIO as the image inspector service (or the BDIO result cache) gave it, before adjustment
+    private File getBdioSpoolFile(final ImageInspection inspection) {
+        return new File(inspection.getTargetDir(), BDIO_SPOOL_FILENAME);
+    }
+
+    private File prepareDockerTarfile(final ImageInspectorClient imageInspectorClient, final ImageInspection inspection) throws IOException, IntegrationException {
+        final File givenDockerTarfile = dockerTarfile.deriveDockerTarFile(inspection.getRequest(), inspection.getTargetDir(), inspection.getPulledImageId());
+        final File finalDockerTarfile = imageInspectorClient.copyTarfileToSharedDir(givenDockerTarfile, inspection.getTargetDir());
         return finalDockerTarfile;
     }
 
+    private void cleanUpPulledImage(final ImageInspection inspection) {
+        if (!config.isCleanupTargetImage() || inspection.getPulledImageId() == null) {
+            return;
+        }
+        try {
+            dockerClientManager.cleanUpImage(inspection.getPulledImageId());
+        } catch (final IntegrationException e) {
+            logger.warn(String.format("Unable to remove target image with ID %s: %s", inspection.getPulledImageId(), e.getMessage()));
+        }
+    }
+
     private void cleanup() {
         if (!config.isCleanupWorkingDir()) {
             return;
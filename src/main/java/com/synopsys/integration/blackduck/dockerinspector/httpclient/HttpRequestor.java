@@ -23,7 +23,12 @@
 package com.synopsys.integration.blackduck.dockerinspector.httpclient;
 
 import com.synopsys.integration.rest.client.IntHttpClient;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
@@ -33,6 +38,7 @@ import org.springframework.stereotype.Component;
 import com.synopsys.integration.blackduck.dockerinspector.httpclient.response.SimpleResponse;
 import com.synopsys.integration.exception.IntegrationException;
 import com.synopsys.integration.rest.HttpMethod;
+import com.synopsys.integration.rest.RestConstants;
 import com.synopsys.integration.rest.request.Request;
 import com.synopsys.integration.rest.request.Response;
 
@@ -45,7 +51,8 @@ public class HttpRequestor {
         final boolean organizeComponentsByLayer,
         final boolean includeRemovedComponents,
         final boolean cleanup,
-        final String platformTopLayerId)
+        final String platformTopLayerId,
+        final File bdioSpoolFile)
             throws IntegrationException {
         final String url = new ImageInspectorUrlBuilder()
                 .imageInspectorUri(imageInspectorUri)
@@ -62,6 +69,11 @@ public class HttpRequestor {
         final Request request = new Request.Builder(url).method(HttpMethod.GET).build();
         try (Response response = httpClient.execute(request)) {
             logger.debug(String.format("Response: HTTP status: %d", response.getStatusCode()));
+            // The BDIO (only) can be too large to hold in memory
+            if (response.getStatusCode() == RestConstants.OK_200) {
+                spoolResponseBody(response, bdioSpoolFile);
+                return new SimpleResponse(response.getStatusCode(), response.getHeaders(), null, bdioSpoolFile);
+            }
             return new SimpleResponse(response.getStatusCode(), response.getHeaders(), getResponseBody(response));
         } catch (final IntegrationException ie) {
             if ((ie.getCause() != null) && (ie.getCause() instanceof java.net.SocketTimeoutException)) {
@@ -93,6 +105,14 @@ public class HttpRequestor {
         }
     }
 
+    private void spoolResponseBody(final Response response, final File spoolFile) throws IntegrationException, IOException {
+        spoolFile.getParentFile().mkdirs();
+        try (InputStream responseBody = response.getContent()) {
+            Files.copy(responseBody, spoolFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.debug(String.format("Response: body (%d bytes) written to %s", spoolFile.length(), spoolFile.getAbsolutePath()));
+    }
+
     private String getResponseBody(final Response response) throws IntegrationException {
         final String responseBody = response.getContentString();
         logger.trace(String.format("Response: body: %s", responseBody));
@@ -0,0 +1,139 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+
+/*
+ * The state of one image as it moves through the inspection stages: prepare (pull/save, copy to the shared dir),
+ * inspect (get, adjust and write the BDIO), upload.
+ */
+public class ImageInspection {
+    private final ImageInspectionRequest request;
+    private final File targetDir;
+    private String platformTopLayerId;
+    private File dockerTarfile;
+    private String codeLocationName;
+    private File bdioFile;
+    private String bdioResultCacheKey;
+    private String packageChainBdioResultCacheKey;
+    private File cachedBdioFile;
+    private String pulledImageId;
+    private List<TransferMetrics> transferMetrics = new ArrayList<>();
+
+    public ImageInspection(final ImageInspectionRequest request, final File targetDir) {
+        this.request = request;
+        this.targetDir = targetDir;
+        this.platformTopLayerId = request.getPlatformTopLayerId();
+    }
+
+    public ImageInspectionRequest getRequest() {
+        return request;
+    }
+
+    public File getTargetDir() {
+        return targetDir;
+    }
+
+    // The request's, or else one found in the platform image catalog
+    public String getPlatformTopLayerId() {
+        return platformTopLayerId;
+    }
+
+    public void setPlatformTopLayerId(final String platformTopLayerId) {
+        this.platformTopLayerId = platformTopLayerId;
+    }
+
+    public File getDockerTarfile() {
+        return dockerTarfile;
+    }
+
+    public void setDockerTarfile(final File dockerTarfile) {
+        this.dockerTarfile = dockerTarfile;
+    }
+
+    // The (adjusted) BDIO's code location name
+    public String getCodeLocationName() {
+        return codeLocationName;
+    }
+
+    public void setCodeLocationName(final String codeLocationName) {
+        this.codeLocationName = codeLocationName;
+    }
+
+    public File getBdioFile() {
+        return bdioFile;
+    }
+
+    public void setBdioFile(final File bdioFile) {
+        this.bdioFile = bdioFile;
+    }
+
+    // The target image, if it was pulled through the docker daemon while looking it up
+    public String getPulledImageId() {
+        return pulledImageId;
+    }
+
+    public void setPulledImageId(final String pulledImageId) {
+        this.pulledImageId = pulledImageId;
+    }
+
+    public String getBdioResultCacheKey() {
+        return bdioResultCacheKey;
+    }
+
+    public void setBdioResultCacheKey(final String bdioResultCacheKey) {
+        this.bdioResultCacheKey = bdioResultCacheKey;
+    }
+
+    public String getPackageChainBdioResultCacheKey() {
+        return packageChainBdioResultCacheKey;
+    }
+
+    public void setPackageChainBdioResultCacheKey(final String packageChainBdioResultCacheKey) {
+        this.packageChainBdioResultCacheKey = packageChainBdioResultCacheKey;
+    }
+
+    // Set when the BDIO result cache has this image's BDIO, in which case there may be no docker tarfile
+    public File getCachedBdioFile() {
+        return cachedBdioFile;
+    }
+
+    public void setCachedBdioFile(final File cachedBdioFile) {
+        this.cachedBdioFile = cachedBdioFile;
+    }
+
+    // The docker pulls and saves done while preparing the tarfile
+    public List<TransferMetrics> getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    public void setTransferMetrics(final List<TransferMetrics> transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
+}
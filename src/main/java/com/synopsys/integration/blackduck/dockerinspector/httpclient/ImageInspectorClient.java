@@ -30,12 +30,18 @@ import com.synopsys.integration.exception.IntegrationException;
 
 public interface ImageInspectorClient {
 
-    File copyTarfileToSharedDir(final File givenDockerTarfile) throws IOException;
+    File copyTarfileToSharedDir(final File givenDockerTarfile, final File targetDir) throws IOException;
 
-    String getBdio(String hostPathToTarFile, String containerPathToInputDockerTarfile, String givenImageRepo, String givenImageTag, String containerPathToOutputFileSystemFile,
+    // Writes the BDIO to bdioSpoolFile, and returns it
+    File getBdio(String hostPathToTarFile, String containerPathToInputDockerTarfile, String givenImageRepo, String givenImageTag, String containerPathToOutputFileSystemFile,
         final boolean organizeComponentsByLayer, final boolean includeRemovedComponents, final boolean cleanup,
-        final String platformTopLayerId)
+        final String platformTopLayerId, final File bdioSpoolFile)
             throws IntegrationException, MalformedURLException;
 
     boolean isApplicable();
+
+    // Until releaseServices() is called, keep any services (containers) this client uses running between requests
+    void holdServices();
+
+    void releaseServices() throws IntegrationException;
 }
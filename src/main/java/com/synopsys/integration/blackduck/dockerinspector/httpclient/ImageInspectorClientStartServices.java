@@ -29,11 +29,21 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,10 +51,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.github.dockerjava.api.model.Container;
+import com.synopsys.integration.blackduck.dockerinspector.cache.InspectorOsCache;
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
 import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
 import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
 import com.synopsys.integration.blackduck.dockerinspector.httpclient.response.SimpleResponse;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarReader;
 import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
 import com.synopsys.integration.exception.IntegrationException;
 import com.synopsys.integration.rest.RestConstants;
@@ -77,11 +90,32 @@ public class ImageInspectorClientStartServices implements ImageInspectorClient {
     @Autowired
     private DockerClientManager dockerClientManager;
 
+    @Autowired
+    private ContainerName containerNameManager;
+
+    @Autowired
+    private ImageTarReader imageTarReader;
+
+    @Autowired
+    private TarfileHandoff tarfileHandoff;
+
     @Autowired
     private ProgramPaths programPaths;
 
     @Autowired
-    private ContainerName containerNameManager;
+    private InspectorOsCache inspectorOsCache;
+
+    @Autowired
+    private InspectorContainerPool inspectorContainerPool;
+
+    private final Map<ImageInspectorOsEnum, List<ServiceReplica>> replicasByOs = new ConcurrentHashMap<>();
+    // Guarded by the lock on the OS's replica list
+    private final Map<ImageInspectorOsEnum, Set<Integer>> startingReplicaIndexesByOs = new ConcurrentHashMap<>();
+    // Pooled containers chosen by a replica that has not yet been published
+    private final Set<String> claimedPooledContainerIds = ConcurrentHashMap.newKeySet();
+    private final Map<String, ContainerDetails> heldServices = new ConcurrentHashMap<>();
+    private volatile boolean holdingServices = false;
+    private ScheduledExecutorService idleReplicaPauser;
 
     @Override
     public boolean isApplicable() {
@@ -91,34 +125,102 @@ public class ImageInspectorClientStartServices implements ImageInspectorClient {
     }
 
     @Override
-    public File copyTarfileToSharedDir(final File givenDockerTarfile) throws IOException {
-        // Copy the tarfile to the shared/target dir
-        final File finalDockerTarfile = new File(programPaths.getDockerInspectorTargetDirPath(), givenDockerTarfile.getName());
+    public File copyTarfileToSharedDir(final File givenDockerTarfile, final File targetDir) throws IOException {
+        // Put the tarfile in the shared/target dir
+        final File finalDockerTarfile = new File(targetDir, givenDockerTarfile.getName());
         logger.debug(String.format("Required docker tarfile location: %s", finalDockerTarfile.getCanonicalPath()));
-        if (!finalDockerTarfile.getCanonicalPath().equals(givenDockerTarfile.getCanonicalPath())) {
-            logger.debug(String.format("Copying %s to %s", givenDockerTarfile.getCanonicalPath(), finalDockerTarfile.getCanonicalPath()));
-            FileUtils.copyFile(givenDockerTarfile, finalDockerTarfile);
-        }
+        // A tarfile in the run dir was saved by this run, and can be moved (unless other images will be inspected from it too); anything else (e.g. docker.tar) must be left as it is
+        final String givenTarfilePath = givenDockerTarfile.getCanonicalPath();
+        final boolean givenTarfileIsOurs = givenTarfilePath.startsWith(new File(programPaths.getDockerInspectorRunDirPath()).getCanonicalPath() + File.separator)
+            && !givenTarfilePath.startsWith(new File(programPaths.getDockerInspectorSharedImageTarDirPath()).getCanonicalPath() + File.separator);
+        tarfileHandoff.handOff(givenDockerTarfile, finalDockerTarfile, givenTarfileIsOurs);
         logger.debug(String.format("Final docker tar file path: %s", finalDockerTarfile.getCanonicalPath()));
         return finalDockerTarfile;
     }
 
     @Override
-    public String getBdio(final String hostPathToTarfile, final String containerPathToInputDockerTarfile, final String givenImageRepo, final String givenImageTag, final String containerPathToOutputFileSystemFile,
+    public void holdServices() {
+        logger.debug("Holding image inspector services until released");
+        holdingServices = true;
+        startIdleReplicaPauser();
+        if (config.isImageInspectorServiceStartEager()) {
+            startAllServices();
+        }
+    }
+
+    // Pull, start and wait for the services for every inspector OS at once, so a mixed batch waits for one container start rather than one per OS
+    private void startAllServices() {
+        final ImageInspectorOsEnum[] inspectorOses = ImageInspectorOsEnum.values();
+        logger.info(String.format("Starting image inspector services for %s", Arrays.asList(inspectorOses)));
+        final ExecutorService executor = Executors.newFixedThreadPool(inspectorOses.length);
+        try {
+            final List<CompletableFuture<Void>> serviceStarts = new ArrayList<>();
+            for (final ImageInspectorOsEnum inspectorOs : inspectorOses) {
+                serviceStarts.add(CompletableFuture.runAsync(() -> startServiceTolerantly(inspectorOs), executor));
+            }
+            CompletableFuture.allOf(serviceStarts.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Any service that fails to start here is started (or fails) again on first use
+    private void startServiceTolerantly(final ImageInspectorOsEnum inspectorOs) {
+        try {
+            final ServiceReplica replica = acquireReplica(inspectorOs);
+            releaseReplica(inspectorOs, replica);
+        } catch (final Exception e) {
+            logger.warn(String.format("Unable to start the %s image inspector service in advance: %s", inspectorOs.name(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public void releaseServices() throws IntegrationException {
+        holdingServices = false;
+        stopIdleReplicaPauser();
+        // Leave no container paused: pooled containers must answer later runs' health checks, and the rest are stopped next
+        unpausePausedReplicas();
+        for (final List<ServiceReplica> replicas : replicasByOs.values()) {
+            synchronized (replicas) {
+                replicas.forEach(this::releasePooledContainer);
+            }
+        }
+        replicasByOs.clear();
+        // Stop all containers before removing images, since replicas share an image
+        final Set<String> imageIds = new HashSet<>();
+        for (final String containerId : heldServices.keySet()) {
+            final ContainerDetails serviceContainerDetails = heldServices.remove(containerId);
+            logger.debug(String.format("Releasing image inspector service container %s", containerId));
+            cleanupServiceContainer(serviceContainerDetails);
+            if (serviceContainerDetails.getImageId() != null) {
+                imageIds.add(serviceContainerDetails.getImageId());
+            }
+        }
+        for (final String imageId : imageIds) {
+            cleanupServiceImage(imageId);
+        }
+        reapIdlePooledContainers();
+    }
+
+    @Override
+    public File getBdio(final String hostPathToTarfile, final String containerPathToInputDockerTarfile, final String givenImageRepo, final String givenImageTag, final String containerPathToOutputFileSystemFile,
         final boolean organizeComponentsByLayer, final boolean includeRemovedComponents, final boolean cleanup,
-        final String platformTopLayerId)
+        final String platformTopLayerId, final File bdioSpoolFile)
         throws IntegrationException {
         logger.info(dockerClientManager.getDockerJavaLibraryVersion());
 
-        // First, try the default inspector service (which will return either the BDIO, or a redirect)
-        final ImageInspectorOsEnum inspectorOs = ImageInspectorOsEnum.determineOperatingSystem(config.getImageInspectorDefaultDistro());
-        final URI imageInspectorBaseUri = deriveInspectorBaseUri(imageInspectorServices.getDefaultImageInspectorHostPortBasedOnDistro());
+        // First, try the inspector service the image's package manager database calls for, else the one it needed last time if known,
+        // else the default (which will return either the BDIO, or a redirect)
+        final Optional<ImageTarMetadata> imageTarMetadata = readImageTarMetadata(hostPathToTarfile, givenImageRepo, givenImageTag);
+        final ImageInspectorOsEnum defaultInspectorOs = ImageInspectorOsEnum.determineOperatingSystem(config.getImageInspectorDefaultDistro());
+        final ImageInspectorOsEnum inspectorOs = deriveInspectorOs(imageTarMetadata, defaultInspectorOs);
         final Predicate<Integer> initialRequestFailureCriteria = statusCode -> statusCode != RestConstants.OK_200 && statusCode != RestConstants.MOVED_TEMP_302 && statusCode != RestConstants.MOVED_PERM_301;
-        final SimpleResponse response = getResponseFromService(imageInspectorBaseUri, inspectorOs, containerPathToInputDockerTarfile, givenImageRepo, givenImageTag, containerPathToOutputFileSystemFile, organizeComponentsByLayer,
-            includeRemovedComponents, cleanup, platformTopLayerId,
+        final SimpleResponse response = getResponseFromService(inspectorOs, containerPathToInputDockerTarfile, givenImageRepo, givenImageTag, containerPathToOutputFileSystemFile, organizeComponentsByLayer,
+            includeRemovedComponents, cleanup, platformTopLayerId, bdioSpoolFile,
             initialRequestFailureCriteria);
         if (response.getStatusCode() == RestConstants.OK_200) {
-            return response.getBody();
+            imageTarMetadata.ifPresent(metadata -> inspectorOsCache.store(metadata, inspectorOs));
+            return response.getBodyFile();
         }
         if (response.getStatusCode() >= RestConstants.BAD_REQUEST_400) {
             throw new IntegrationException(String.format("getBdio request returned status: %d: %s", response.getStatusCode(), response.getBody()));
@@ -129,31 +231,61 @@ public class ImageInspectorClientStartServices implements ImageInspectorClient {
 
         // Handle redirect
         final ImageInspectorOsEnum correctedInspectorOs = ImageInspectorOsEnum.determineOperatingSystem(correctImageInspectorOsName);
-        final URI correctedImageInspectorBaseUri = deriveInspectorBaseUri(imageInspectorServices.getImageInspectorHostPort(correctedInspectorOs));
         final Predicate<Integer> correctedRequestFailureCriteria = statusCode -> statusCode != RestConstants.OK_200;
-        final SimpleResponse responseFromCorrectedContainer = getResponseFromService(correctedImageInspectorBaseUri, correctedInspectorOs, containerPathToInputDockerTarfile, givenImageRepo, givenImageTag,
+        final SimpleResponse responseFromCorrectedContainer = getResponseFromService(correctedInspectorOs, containerPathToInputDockerTarfile, givenImageRepo, givenImageTag,
             containerPathToOutputFileSystemFile,
             organizeComponentsByLayer, includeRemovedComponents,
-            cleanup, platformTopLayerId,
+            cleanup, platformTopLayerId, bdioSpoolFile,
             correctedRequestFailureCriteria);
-        return responseFromCorrectedContainer.getBody();
+        imageTarMetadata.ifPresent(metadata -> inspectorOsCache.store(metadata, correctedInspectorOs));
+        return responseFromCorrectedContainer.getBodyFile();
     }
 
-    private SimpleResponse getResponseFromService(final URI imageInspectorUri, final ImageInspectorOsEnum inspectorOs, final String containerPathToInputDockerTarfile,
+    private Optional<ImageTarMetadata> readImageTarMetadata(final String hostPathToTarfile, final String givenImageRepo, final String givenImageTag) {
+        if (!config.isImageInspectorDistroCache() && !config.isImageInspectorDistroDetect()) {
+            return Optional.empty();
+        }
+        try {
+            final String repoTag = StringUtils.isBlank(givenImageRepo) ? null : String.format("%s:%s", givenImageRepo, StringUtils.isBlank(givenImageTag) ? "latest" : givenImageTag);
+            // The OS cache needs only the image ID and layer digests; the layers themselves are read only to detect the distro
+            return Optional.of(imageTarReader.readMetadata(new File(hostPathToTarfile), repoTag, config.isImageInspectorDistroDetect()));
+        } catch (final IntegrationException e) {
+            logger.debug(String.format("Unable to read the image metadata in %s, so the inspector OS cannot be determined in advance: %s", hostPathToTarfile, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    private ImageInspectorOsEnum deriveInspectorOs(final Optional<ImageTarMetadata> imageTarMetadata, final ImageInspectorOsEnum defaultInspectorOs) {
+        if (!imageTarMetadata.isPresent()) {
+            return defaultInspectorOs;
+        }
+        final ImageTarMetadata metadata = imageTarMetadata.get();
+        if (config.isImageInspectorDistroDetect()) {
+            final Optional<ImageInspectorOsEnum> detectedInspectorOs = metadata.getInspectorOs();
+            if (detectedInspectorOs.isPresent()) {
+                logger.info(String.format("Detected image Linux distro %s; using the %s image inspector service", metadata.getLinuxDistroId().orElse("(unknown)"), detectedInspectorOs.get().name()));
+                return detectedInspectorOs.get();
+            }
+        }
+        return inspectorOsCache.lookup(metadata).orElse(defaultInspectorOs);
+    }
+
+    private SimpleResponse getResponseFromService(final ImageInspectorOsEnum inspectorOs, final String containerPathToInputDockerTarfile,
         final String givenImageRepo, final String givenImageTag,
-        final String containerPathToOutputFileSystemFile, final boolean organizeComponentsByLayer, final boolean includeRemovedComponents, final boolean cleanup, final String platformTopLayerId, final Predicate<Integer> failureTest)
+        final String containerPathToOutputFileSystemFile, final boolean organizeComponentsByLayer, final boolean includeRemovedComponents, final boolean cleanup, final String platformTopLayerId, final File bdioSpoolFile,
+        final Predicate<Integer> failureTest)
         throws IntegrationException {
         SimpleResponse response = null;
-        ContainerDetails serviceContainerDetails = null;
-        IntHttpClient restConnection = null;
+        final ServiceReplica replica = acquireReplica(inspectorOs);
+        final URI imageInspectorUri = replica.getBaseUri();
+        final ContainerDetails serviceContainerDetails = replica.getContainerDetails();
         try {
-            restConnection = createRestConnection(imageInspectorUri, deriveTimeoutSeconds());
-            serviceContainerDetails = ensureServiceReady(restConnection, imageInspectorUri, inspectorOs);
+            final IntHttpClient restConnection = createRestConnection(imageInspectorUri, deriveTimeoutSeconds());
             try {
                 logger.info(String.format("Sending getBdio request to: %s (%s)", imageInspectorUri.toString(), inspectorOs.name()));
                 response = httpRequestor.executeGetBdioRequest(restConnection, imageInspectorUri, containerPathToInputDockerTarfile,
                     givenImageRepo, givenImageTag, containerPathToOutputFileSystemFile, organizeComponentsByLayer, includeRemovedComponents, cleanup,
-                    platformTopLayerId);
+                    platformTopLayerId, bdioSpoolFile);
                 logServiceLogIfDebug(serviceContainerDetails.getContainerId());
             } catch (final IntegrationException e) {
                 logServiceError(serviceContainerDetails.getContainerId());
@@ -176,25 +308,231 @@ public class ImageInspectorClientStartServices implements ImageInspectorClient {
                         responseBody));
             }
         } finally {
-            if (serviceContainerDetails == null) {
-                logger.trace("Service connection/image/container cleanup: serviceContainerDetails is null");
-            } else {
-                logger.trace(String.format("Service connection/image/container cleanup: image id: %s, container id: %s", serviceContainerDetails.getImageId(), serviceContainerDetails.getContainerId()));
+            releaseReplica(inspectorOs, replica);
+        }
+        return response;
+    }
+
+    // Picks the replica with the fewest outstanding requests, starting another replica (up to the configured limit) if all are busy
+    private ServiceReplica acquireReplica(final ImageInspectorOsEnum inspectorOs) throws IntegrationException {
+        final int maxReplicaCount = Math.max(1, config.getImageInspectorServiceReplicas());
+        final List<ServiceReplica> replicas = replicasByOs.computeIfAbsent(inspectorOs, os -> new ArrayList<>());
+        final Set<Integer> startingReplicaIndexes = startingReplicaIndexesByOs.computeIfAbsent(inspectorOs, os -> new HashSet<>());
+        final int replicaIndex;
+        // Concurrent requests for the same inspector OS must not each try to start a container, so a replica being started holds a slot (its index)
+        synchronized (replicas) {
+            while (true) {
+                final Optional<ServiceReplica> leastLoadedReplica = ServiceEndpoint.chooseLeastLoaded(replicas);
+                final int replicaCount = replicas.size() + startingReplicaIndexes.size();
+                if (leastLoadedReplica.isPresent() && (leastLoadedReplica.get().getOutstandingRequestCount() == 0 || replicaCount >= maxReplicaCount)) {
+                    final ServiceReplica replica = leastLoadedReplica.get();
+                    if (!replica.isPaused() || unpauseReplica(inspectorOs, replica)) {
+                        return useReplica(inspectorOs, replica);
+                    }
+                    replicas.remove(replica);
+                    releasePooledContainer(replica);
+                } else if (replicaCount < maxReplicaCount && (!replicas.isEmpty() || startingReplicaIndexes.isEmpty())) {
+                    replicaIndex = deriveNextReplicaIndex(replicas, startingReplicaIndexes);
+                    startingReplicaIndexes.add(replicaIndex);
+                    break;
+                } else {
+                    // Every slot is taken by a replica that is still starting, or replica 0 (whose image further replicas use) is
+                    waitForReplicaStart(inspectorOs, replicas);
+                }
             }
-            if (config.isCleanupInspectorContainer()) {
-                if (serviceContainerDetails != null) {
-                    dockerClientManager.stopRemoveContainer(serviceContainerDetails.getContainerId());
+        }
+        // Starting a container can take a minute, so it is done without holding the lock; other requests (and the idle replica pauser) carry on meanwhile
+        ServiceReplica startedReplica = null;
+        try {
+            startedReplica = startReplica(inspectorOs, replicaIndex);
+        } finally {
+            synchronized (replicas) {
+                startingReplicaIndexes.remove(replicaIndex);
+                if (startedReplica != null) {
+                    replicas.add(startedReplica);
+                    holdPooledContainer(startedReplica);
+                    if (startedReplica.getContainerDetails().getContainerId() != null) {
+                        claimedPooledContainerIds.remove(startedReplica.getContainerDetails().getContainerId());
+                    }
+                    useReplica(inspectorOs, startedReplica);
                 }
+                replicas.notifyAll();
             }
-            if (config.isCleanupInspectorImage()) {
-                if (serviceContainerDetails != null) {
-                    if (serviceContainerDetails.getImageId() != null) {
-                        dockerClientManager.removeImage(serviceContainerDetails.getImageId());
+        }
+        return startedReplica;
+    }
+
+    // Caller must hold the replica list lock
+    private ServiceReplica useReplica(final ImageInspectorOsEnum inspectorOs, final ServiceReplica replica) {
+        replica.requestStarted();
+        if (inspectorContainerPool.isEnabled()) {
+            inspectorContainerPool.markUsed(replica.getContainerDetails().getContainerId());
+        }
+        logger.debug(String.format("Using %s replica %d (%d outstanding requests)", inspectorOs.name(), replica.getReplicaIndex(), replica.getOutstandingRequestCount()));
+        return replica;
+    }
+
+    private void holdPooledContainer(final ServiceReplica replica) {
+        if (inspectorContainerPool.isEnabled()) {
+            inspectorContainerPool.hold(replica.getContainerDetails().getContainerId());
+        }
+    }
+
+    private void releasePooledContainer(final ServiceReplica replica) {
+        if (inspectorContainerPool.isEnabled()) {
+            inspectorContainerPool.release(replica.getContainerDetails().getContainerId());
+        }
+    }
+
+    private void waitForReplicaStart(final ImageInspectorOsEnum inspectorOs, final List<ServiceReplica> replicas) throws IntegrationException {
+        logger.debug(String.format("Waiting for a %s replica to start", inspectorOs.name()));
+        try {
+            replicas.wait();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException(String.format("Interrupted while waiting for a %s image inspector service to start", inspectorOs.name()), e);
+        }
+    }
+
+    private void releaseReplica(final ImageInspectorOsEnum inspectorOs, final ServiceReplica replica) throws IntegrationException {
+        replica.requestFinished();
+        final ContainerDetails serviceContainerDetails = replica.getContainerDetails();
+        if (holdingServices) {
+            logger.trace(String.format("Service connection/image/container cleanup deferred (services are being held): image id: %s, container id: %s", serviceContainerDetails.getImageId(),
+                serviceContainerDetails.getContainerId()));
+            heldServices.put(serviceContainerDetails.getContainerId(), serviceContainerDetails);
+            return;
+        }
+        logger.trace(String.format("Service connection/image/container cleanup: image id: %s, container id: %s", serviceContainerDetails.getImageId(), serviceContainerDetails.getContainerId()));
+        final List<ServiceReplica> replicas = replicasByOs.get(inspectorOs);
+        if (replicas != null) {
+            synchronized (replicas) {
+                if (replicas.remove(replica)) {
+                    releasePooledContainer(replica);
+                }
+            }
+        }
+        cleanupServiceContainer(serviceContainerDetails);
+        cleanupServiceImage(serviceContainerDetails.getImageId());
+        reapIdlePooledContainers();
+    }
+
+    // While services are held, pause (docker pause) replicas that have had no requests for imageinspector.service.pause.after milliseconds
+    private void startIdleReplicaPauser() {
+        final long pauseAfter = config.getImageInspectorServicePauseAfter();
+        if (pauseAfter <= 0L || idleReplicaPauser != null) {
+            return;
+        }
+        idleReplicaPauser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "imageinspector-pauser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = Math.max(1000L, pauseAfter / 2);
+        idleReplicaPauser.scheduleWithFixedDelay(this::pauseIdleReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopIdleReplicaPauser() {
+        if (idleReplicaPauser == null) {
+            return;
+        }
+        idleReplicaPauser.shutdown();
+        try {
+            idleReplicaPauser.awaitTermination(config.getCommandTimeout(), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        idleReplicaPauser = null;
+    }
+
+    // Holding each OS's replica list lock means no request can be routed to a replica while it is being paused
+    private void pauseIdleReplicas() {
+        final long pauseAfter = config.getImageInspectorServicePauseAfter();
+        final long currentTime = System.currentTimeMillis();
+        for (final Map.Entry<ImageInspectorOsEnum, List<ServiceReplica>> replicasEntry : replicasByOs.entrySet()) {
+            synchronized (replicasEntry.getValue()) {
+                for (final ServiceReplica replica : replicasEntry.getValue()) {
+                    if (replica.isPaused() || !replica.isIdleFor(pauseAfter, currentTime)) {
+                        continue;
+                    }
+                    try {
+                        dockerClientManager.pauseContainer(replica.getContainerDetails().getContainerId());
+                        replica.setPaused(true);
+                        logger.debug(String.format("Paused idle %s replica %d", replicasEntry.getKey().name(), replica.getReplicaIndex()));
+                    } catch (final Exception e) {
+                        logger.debug(String.format("Unable to pause idle %s replica %d: %s", replicasEntry.getKey().name(), replica.getReplicaIndex(), e.getMessage()));
                     }
                 }
             }
         }
-        return response;
+    }
+
+    // Returns false if the replica's container could not be unpaused (for example, because it is gone)
+    private boolean unpauseReplica(final ImageInspectorOsEnum inspectorOs, final ServiceReplica replica) {
+        try {
+            dockerClientManager.unpauseContainer(replica.getContainerDetails().getContainerId());
+            replica.setPaused(false);
+            logger.debug(String.format("Unpaused %s replica %d", inspectorOs.name(), replica.getReplicaIndex()));
+            return true;
+        } catch (final IntegrationException e) {
+            logger.warn(String.format("Unable to unpause %s replica %d; replacing it: %s", inspectorOs.name(), replica.getReplicaIndex(), e.getMessage()));
+            return false;
+        }
+    }
+
+    private void unpausePausedReplicas() {
+        for (final Map.Entry<ImageInspectorOsEnum, List<ServiceReplica>> replicasEntry : replicasByOs.entrySet()) {
+            synchronized (replicasEntry.getValue()) {
+                replicasEntry.getValue().stream()
+                    .filter(ServiceReplica::isPaused)
+                    .forEach(replica -> unpauseReplica(replicasEntry.getKey(), replica));
+            }
+        }
+    }
+
+    private int deriveNextReplicaIndex(final List<ServiceReplica> replicas, final Set<Integer> startingReplicaIndexes) {
+        int replicaIndex = 0;
+        while (isReplicaIndexInUse(replicas, replicaIndex) || startingReplicaIndexes.contains(replicaIndex)) {
+            replicaIndex++;
+        }
+        return replicaIndex;
+    }
+
+    private boolean isReplicaIndexInUse(final List<ServiceReplica> replicas, final int replicaIndex) {
+        return replicas.stream().anyMatch(replica -> replica.getReplicaIndex() == replicaIndex);
+    }
+
+    private void cleanupServiceContainer(final ContainerDetails serviceContainerDetails) throws IntegrationException {
+        if (inspectorContainerPool.isEnabled()) {
+            // Left running for later runs; whichever run finds it idle too long stops it
+            inspectorContainerPool.markUsed(serviceContainerDetails.getContainerId());
+            return;
+        }
+        if (config.isCleanupInspectorContainer()) {
+            dockerClientManager.cleanUpContainer(serviceContainerDetails.getContainerId());
+        }
+    }
+
+    private void cleanupServiceImage(final String imageId) throws IntegrationException {
+        // Pooled containers still need their image
+        if (config.isCleanupInspectorImage() && !inspectorContainerPool.isEnabled()) {
+            if (imageId != null) {
+                dockerClientManager.cleanUpImage(imageId);
+            }
+        }
+    }
+
+    private void reapIdlePooledContainers() {
+        if (!inspectorContainerPool.isEnabled()) {
+            return;
+        }
+        final Set<String> inUseContainerIds = new HashSet<>(heldServices.keySet());
+        for (final List<ServiceReplica> replicas : replicasByOs.values()) {
+            synchronized (replicas) {
+                replicas.forEach(replica -> inUseContainerIds.add(replica.getContainerDetails().getContainerId()));
+            }
+        }
+        inspectorContainerPool.reapIdleContainers(inUseContainerIds);
     }
 
     private void logServiceError(final String correctedContainerId) {
@@ -248,38 +586,106 @@ public class ImageInspectorClientStartServices implements ImageInspectorClient {
         return restConnection;
     }
 
-    private ContainerDetails ensureServiceReady(final IntHttpClient httpClient, final URI imageInspectorUri, final ImageInspectorOsEnum inspectorOs) throws IntegrationException {
-        boolean serviceIsUp = imageInspectorServices.checkServiceHealth(httpClient, imageInspectorUri);
+    // Replica 0 runs on the configured host port for its inspector OS (and may already be running); further replicas get a Docker-allocated host port
+    private ServiceReplica startReplica(final ImageInspectorOsEnum inspectorOs, final int replicaIndex) throws IntegrationException {
+        if (inspectorContainerPool.isEnabled()) {
+            final Optional<ServiceReplica> pooledReplica = reusePooledContainer(inspectorOs, replicaIndex);
+            if (pooledReplica.isPresent()) {
+                return pooledReplica.get();
+            }
+        }
+        if (replicaIndex > 0) {
+            logger.info(String.format("All %s image inspector services are busy; starting replica %d", inspectorOs.name(), replicaIndex));
+            return startServiceContainer(inspectorOs, replicaIndex, 0);
+        }
+        final int hostPort = imageInspectorServices.getImageInspectorHostPort(inspectorOs);
+        final URI imageInspectorUri = deriveInspectorBaseUri(hostPort);
+        final IntHttpClient httpClient = createRestConnection(imageInspectorUri, deriveTimeoutSeconds());
+        final boolean serviceIsUp = imageInspectorServices.checkServiceHealth(httpClient, imageInspectorUri);
         if (serviceIsUp) {
             final Container container = dockerClientManager.getRunningContainerByAppName(Config.IMAGEINSPECTOR_WS_APPNAME, inspectorOs);
-            return new ContainerDetails(null, container.getId());
+            return new ServiceReplica(imageInspectorUri, replicaIndex, new ContainerDetails(null, container.getId()));
         }
         logger.info(String.format("Service %s (%s) is not running; starting it...", imageInspectorUri.toString(), inspectorOs.name()));
         if (config.isCleanupInspectorContainer()) {
             logger.info("(Image inspection may complete faster if you set cleanup.inspector.container=false)");
         }
+        return startServiceContainer(inspectorOs, replicaIndex, hostPort);
+    }
+
+    // A pooled container may have been started by another run, on any host port
+    private Optional<ServiceReplica> reusePooledContainer(final ImageInspectorOsEnum inspectorOs, final int replicaIndex) throws IntegrationException {
+        final List<ServiceReplica> replicas = replicasByOs.computeIfAbsent(inspectorOs, os -> new ArrayList<>());
+        final Optional<Container> pooledContainer;
+        // Replicas of the same OS may be starting concurrently; each must choose a different container
+        synchronized (replicas) {
+            final Set<String> inUseContainerIds = new HashSet<>(claimedPooledContainerIds);
+            replicas.forEach(replica -> inUseContainerIds.add(replica.getContainerDetails().getContainerId()));
+            pooledContainer = inspectorContainerPool.findContainer(inspectorOs, inUseContainerIds);
+            if (!pooledContainer.isPresent()) {
+                return Optional.empty();
+            }
+            claimedPooledContainerIds.add(pooledContainer.get().getId());
+        }
+        Optional<ServiceReplica> pooledReplica = Optional.empty();
+        try {
+            pooledReplica = connectToPooledContainer(inspectorOs, replicaIndex, pooledContainer.get());
+            return pooledReplica;
+        } finally {
+            if (!pooledReplica.isPresent()) {
+                claimedPooledContainerIds.remove(pooledContainer.get().getId());
+            }
+        }
+    }
+
+    private Optional<ServiceReplica> connectToPooledContainer(final ImageInspectorOsEnum inspectorOs, final int replicaIndex, final Container pooledContainer) throws IntegrationException {
+        final String containerId = pooledContainer.getId();
+        // Left paused by a run that ended without unpausing it
+        if (dockerClientManager.isPaused(pooledContainer)) {
+            try {
+                dockerClientManager.unpauseContainer(containerId);
+            } catch (final IntegrationException e) {
+                logger.debug(String.format("Unable to unpause pooled %s container %s; not using it: %s", inspectorOs.name(), containerId, e.getMessage()));
+                return Optional.empty();
+            }
+        }
+        final int hostPort = dockerClientManager.getHostPort(containerId, imageInspectorServices.getImageInspectorContainerPort(inspectorOs));
+        final URI imageInspectorUri = deriveInspectorBaseUri(hostPort);
+        final IntHttpClient httpClient = createRestConnection(imageInspectorUri, deriveTimeoutSeconds());
+        if (!imageInspectorServices.checkServiceHealth(httpClient, imageInspectorUri)) {
+            logger.debug(String.format("Pooled %s container %s (%s) is not healthy; not using it", inspectorOs.name(), containerId, imageInspectorUri.toString()));
+            return Optional.empty();
+        }
+        logger.info(String.format("Using pooled %s image inspector service container %s (%s)", inspectorOs.name(), containerId, imageInspectorUri.toString()));
+        return Optional.of(new ServiceReplica(imageInspectorUri, replicaIndex, new ContainerDetails(null, containerId)));
+    }
+
+    private ServiceReplica startServiceContainer(final ImageInspectorOsEnum inspectorOs, final int replicaIndex, final int requestedHostPort) throws IntegrationException {
         final String imageInspectorRepo;
         final String imageInspectorTag;
         imageInspectorRepo = inspectorImages.getInspectorImageName(inspectorOs);
         imageInspectorTag = inspectorImages.getInspectorImageTag(inspectorOs);
-        logger.debug(String.format("Need to pull/run image %s:%s to start the %s service", imageInspectorRepo, imageInspectorTag, imageInspectorUri.toString()));
-        final Optional<String> imageId = pullImageTolerantly(imageInspectorRepo, imageInspectorTag);
+        logger.debug(String.format("Need to pull/run image %s:%s to start %s image inspector service replica %d", imageInspectorRepo, imageInspectorTag, inspectorOs.name(), replicaIndex));
+        // Further replicas run on the image already pulled (or found) for replica 0
+        final Optional<String> imageId = replicaIndex == 0 ? pullImageTolerantly(imageInspectorRepo, imageInspectorTag) : Optional.empty();
         final int containerPort = imageInspectorServices.getImageInspectorContainerPort(inspectorOs);
-        final int hostPort = imageInspectorServices.getImageInspectorHostPort(inspectorOs);
-        final String containerName = containerNameManager.deriveContainerNameFromImageInspectorRepo(imageInspectorRepo);
-        final String containerId = dockerClientManager.startContainerAsService(imageInspectorRepo, imageInspectorTag, containerName, inspectorOs, containerPort, hostPort,
-            Config.IMAGEINSPECTOR_WS_APPNAME,
+        final String containerName = containerNameManager.deriveContainerNameFromImageInspectorRepo(imageInspectorRepo, replicaIndex);
+        final String containerId = dockerClientManager.startContainerAsService(imageInspectorRepo, imageInspectorTag, containerName, inspectorOs, containerPort, requestedHostPort,
+            Config.IMAGEINSPECTOR_WS_APPNAME, inspectorContainerPool.isEnabled(),
             String.format("%s/%s/%s.jar", Config.CONTAINER_BLACKDUCK_DIR, Config.IMAGEINSPECTOR_WS_APPNAME, Config.IMAGEINSPECTOR_WS_APPNAME),
             deriveInspectorBaseUri(config.getImageInspectorHostPortAlpine()).toString(), deriveInspectorBaseUri(config.getImageInspectorHostPortCentos()).toString(),
             deriveInspectorBaseUri(config.getImageInspectorHostPortUbuntu()).toString());
         final ContainerDetails containerDetails = new ContainerDetails(imageId.orElse(null), containerId);
-        serviceIsUp = imageInspectorServices.startService(httpClient, imageInspectorUri, imageInspectorRepo, imageInspectorTag);
+        final int hostPort = requestedHostPort == 0 ? dockerClientManager.getHostPort(containerId, containerPort) : requestedHostPort;
+        final URI imageInspectorUri = deriveInspectorBaseUri(hostPort);
+        final IntHttpClient httpClient = createRestConnection(imageInspectorUri, deriveTimeoutSeconds());
+        final boolean serviceIsUp = imageInspectorServices.startService(httpClient, imageInspectorUri, imageInspectorRepo, imageInspectorTag, inspectorOs, containerId);
         if (!serviceIsUp) {
             dockerClientManager.logServiceLogAsDebug(containerId);
             throw new IntegrationException(String.format("Tried to start image imspector container %s:%s, but service %s never came online", imageInspectorRepo, imageInspectorTag, imageInspectorUri.toString()));
         }
         checkServiceVersion(httpClient, imageInspectorUri);
-        return containerDetails;
+        return new ServiceReplica(imageInspectorUri, replicaIndex, containerDetails);
     }
 
     private void checkServiceVersion(IntHttpClient httpClient, URI imageInspectorUri) {
@@ -26,7 +26,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -41,6 +42,8 @@ import com.synopsys.integration.rest.client.IntHttpClient;
 
 @Component
 public class ImageInspectorClientUseExistingServices implements ImageInspectorClient {
+    // Bad gateway, service unavailable, gateway timeout
+    private static final List<Integer> SERVICE_UNAVAILABLE_STATUS_CODES = Arrays.asList(502, 503, 504);
 
     @Autowired
     private Config config;
@@ -51,6 +54,9 @@ public class ImageInspectorClientUseExistingServices implements ImageInspectorCl
     @Autowired
     private HttpConnectionCreator httpConnectionCreator;
 
+    @Autowired
+    private ServiceEndpointPool serviceEndpointPool;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Override
@@ -61,28 +67,43 @@ public class ImageInspectorClientUseExistingServices implements ImageInspectorCl
     }
 
     @Override
-    public File copyTarfileToSharedDir(final File givenDockerTarfile) throws IOException {
+    public File copyTarfileToSharedDir(final File givenDockerTarfile, final File targetDir) throws IOException {
         return givenDockerTarfile;
     }
 
     @Override
-    public String getBdio(final String hostPathToTarfile, final String containerPathToInputDockerTarfile, final String givenImageRepo, final String givenImageTag, final String containerPathToOutputFileSystemFile,
+    public void holdServices() {
+        // The services are not ours to stop
+    }
+
+    @Override
+    public void releaseServices() {
+    }
+
+    @Override
+    public File getBdio(final String hostPathToTarfile, final String containerPathToInputDockerTarfile, final String givenImageRepo, final String givenImageTag, final String containerPathToOutputFileSystemFile,
         final boolean organizeComponentsByLayer, final boolean includeRemovedComponents,
-        final boolean cleanup, final String platformTopLayerId)
+        final boolean cleanup, final String platformTopLayerId, final File bdioSpoolFile)
             throws IntegrationException, MalformedURLException {
-        URI imageInspectorUri;
+        final ServiceEndpoint endpoint = serviceEndpointPool.acquire();
+        final URI imageInspectorUri = endpoint.getBaseUri();
+        boolean succeeded = false;
         try {
-            imageInspectorUri = new URI(config.getImageInspectorUrl());
-        } catch (final URISyntaxException e) {
-            throw new IntegrationException(String.format("Error constructing URI from %s: %s", config.getImageInspectorUrl(), e.getMessage()), e);
+            final int serviceRequestTimeoutSeconds = deriveTimeoutSeconds();
+            final IntHttpClient restConnection = httpConnectionCreator
+                .createRedirectingConnection(imageInspectorUri, serviceRequestTimeoutSeconds);
+            final SimpleResponse response = restRequester.executeGetBdioRequest(restConnection, imageInspectorUri, containerPathToInputDockerTarfile,
+                    givenImageRepo, givenImageTag, containerPathToOutputFileSystemFile, organizeComponentsByLayer, includeRemovedComponents, cleanup,
+                platformTopLayerId, bdioSpoolFile);
+            // Other error statuses are about the request (the image), not the service
+            succeeded = !SERVICE_UNAVAILABLE_STATUS_CODES.contains(response.getStatusCode());
+            if (response.getBodyFile() == null) {
+                throw new IntegrationException(String.format("getBdio request returned status: %d: %s", response.getStatusCode(), response.getBody()));
+            }
+            return response.getBodyFile();
+        } finally {
+            serviceEndpointPool.release(endpoint, succeeded);
         }
-        final int serviceRequestTimeoutSeconds = deriveTimeoutSeconds();
-        final IntHttpClient restConnection = httpConnectionCreator
-            .createRedirectingConnection(imageInspectorUri, serviceRequestTimeoutSeconds);
-        final SimpleResponse response = restRequester.executeGetBdioRequest(restConnection, imageInspectorUri, containerPathToInputDockerTarfile,
-                givenImageRepo, givenImageTag, containerPathToOutputFileSystemFile, organizeComponentsByLayer, includeRemovedComponents, cleanup,
-            platformTopLayerId);
-        return response.getBody();
     }
 
     private int deriveTimeoutSeconds() {
@@ -24,12 +24,16 @@ package com.synopsys.integration.blackduck.dockerinspector.httpclient;
 
 import com.synopsys.integration.rest.client.IntHttpClient;
 import java.net.URI;
+import java.util.Optional;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.ContainerLogWatch;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
 import com.synopsys.integration.blackduck.exception.BlackDuckIntegrationException;
 import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
 import com.synopsys.integration.exception.IntegrationException;
@@ -37,8 +41,13 @@ import com.synopsys.integration.exception.IntegrationException;
 @Component
 public class ImageInspectorServices {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private static final long CONTAINER_START_WAIT_MILLISECONDS = 2000L;
-    private final int MAX_CONTAINER_START_TRY_COUNT = 30;
+    // Health checks back off from the first to the max interval; a readiness signal (see startService()) triggers one at once
+    private static final long HEALTH_CHECK_FIRST_INTERVAL_MILLISECONDS = 100L;
+    private static final long HEALTH_CHECK_MAX_INTERVAL_MILLISECONDS = 2000L;
+    private static final long CONTAINER_START_TIMEOUT_MILLISECONDS = 60000L;
+    // Logged by Spring Boot once the service is listening
+    private static final Pattern SERVICE_STARTED_LOG_LINE_PATTERN = Pattern.compile("Started \\S+ in [0-9.]+ seconds");
+    private static final String DOCKER_HEALTH_STATUS_HEALTHY = "healthy";
 
     @Autowired
     private Config config;
@@ -46,6 +55,9 @@ public class ImageInspectorServices {
     @Autowired
     private HttpRequestor httpRequestor;
 
+    @Autowired
+    private DockerClientManager dockerClientManager;
+
     public int getImageInspectorHostPort(final ImageInspectorOsEnum imageInspectorOs) throws BlackDuckIntegrationException {
         if (ImageInspectorOsEnum.ALPINE.equals(imageInspectorOs)) {
             return config.getImageInspectorHostPortAlpine();
@@ -87,20 +99,76 @@ public class ImageInspectorServices {
     }
 
 
-    public boolean startService(final IntHttpClient httpClient, final URI imageInspectorUri, final String imageInspectorRepo, final String imageInspectorTag) {
-        boolean serviceIsUp = false;
-        for (int tryIndex = 0; tryIndex < MAX_CONTAINER_START_TRY_COUNT && !serviceIsUp; tryIndex++) {
-            try {
-                final long timeoutMilliseconds = CONTAINER_START_WAIT_MILLISECONDS;
-                logger.debug(String.format("Pausing %d seconds to give service time to start up", (int) (timeoutMilliseconds / 1000L)));
-                Thread.sleep(timeoutMilliseconds);
-            } catch (final InterruptedException e) {
-                logger.error(String.format("Interrupted exception thrown while pausing so image imspector container based on image %s:%s could start", imageInspectorRepo, imageInspectorTag), e);
+    /*
+     * Waits for the service in the just-started container to come up. Rather than sleeping between health checks, it watches for the
+     * service's "Started" log line, and Docker's health status if the image has a HEALTHCHECK; either one triggers a health check at once.
+     * Health checks back off exponentially in between, in case neither signal ever comes.
+     */
+    public boolean startService(final IntHttpClient httpClient, final URI imageInspectorUri, final String imageInspectorRepo, final String imageInspectorTag, final ImageInspectorOsEnum inspectorOs,
+        final String containerId) {
+        final long startMillis = System.currentTimeMillis();
+        final long deadlineMillis = startMillis + CONTAINER_START_TIMEOUT_MILLISECONDS;
+        long intervalMillis = HEALTH_CHECK_FIRST_INTERVAL_MILLISECONDS;
+        int tryCount = 0;
+        boolean signalled = false;
+        try (ContainerLogWatch logWatch = watchServiceLog(containerId)) {
+            while (System.currentTimeMillis() < deadlineMillis) {
+                final long maxWaitMillis = Math.min(intervalMillis, Math.max(0L, deadlineMillis - System.currentTimeMillis()));
+                // Once a signal has been seen it stays seen, so after it, just back off
+                final String readinessSignal;
+                if (signalled) {
+                    Thread.sleep(maxWaitMillis);
+                    readinessSignal = "seen earlier";
+                } else {
+                    readinessSignal = awaitReadinessSignal(logWatch, containerId, maxWaitMillis);
+                    signalled = !"none".equals(readinessSignal);
+                }
+                tryCount++;
+                logger.debug(String.format("Checking service %s to see if it is up; attempt %d (readiness signal: %s)", imageInspectorUri.toString(), tryCount, readinessSignal));
+                if (checkServiceHealth(httpClient, imageInspectorUri)) {
+                    logTimeToReady(inspectorOs, System.currentTimeMillis() - startMillis, readinessSignal);
+                    return true;
+                }
+                intervalMillis = Math.min(intervalMillis * 2, HEALTH_CHECK_MAX_INTERVAL_MILLISECONDS);
             }
-            logger.debug(String.format("Checking service %s to see if it is up; attempt %d of %d", imageInspectorUri.toString(), tryIndex + 1, MAX_CONTAINER_START_TRY_COUNT));
-            serviceIsUp = checkServiceHealth(httpClient, imageInspectorUri);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error(String.format("Interrupted while waiting for image inspector container based on image %s:%s to start", imageInspectorRepo, imageInspectorTag), e);
         }
-        return serviceIsUp;
+        return false;
+    }
+
+    // Returns what ended the wait: the log line, Docker's health status, or ("none") the wait elapsing
+    private String awaitReadinessSignal(final ContainerLogWatch logWatch, final String containerId, final long maxWaitMillis) throws InterruptedException {
+        if (logWatch != null && logWatch.isLineSeen()) {
+            return "log";
+        }
+        final Optional<String> healthStatus = containerId == null ? Optional.empty() : dockerClientManager.getContainerHealthStatus(containerId);
+        if (healthStatus.isPresent() && DOCKER_HEALTH_STATUS_HEALTHY.equals(healthStatus.get())) {
+            return "docker health status";
+        }
+        if (logWatch != null) {
+            return logWatch.awaitLine(maxWaitMillis) ? "log" : "none";
+        }
+        Thread.sleep(maxWaitMillis);
+        return "none";
+    }
+
+    // Null if the log can't be followed, in which case only the health checks are used
+    private ContainerLogWatch watchServiceLog(final String containerId) {
+        if (containerId == null) {
+            return null;
+        }
+        try {
+            return dockerClientManager.watchContainerLog(containerId, SERVICE_STARTED_LOG_LINE_PATTERN);
+        } catch (final RuntimeException e) {
+            logger.debug(String.format("Unable to follow the log of container %s: %s", containerId, e.getMessage()));
+            return null;
+        }
+    }
+
+    private void logTimeToReady(final ImageInspectorOsEnum inspectorOs, final long timeToReadyMillis, final String readinessSignal) {
+        logger.info(String.format("The %s image inspector service was ready %d ms after its container started (readiness signal: %s)", inspectorOs, timeToReadyMillis, readinessSignal));
     }
 
     public boolean checkServiceHealth(final IntHttpClient httpClient, final URI imageInspectorUri) {
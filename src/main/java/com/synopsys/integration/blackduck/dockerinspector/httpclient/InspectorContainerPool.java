@@ -0,0 +1,148 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.dockerjava.api.model.Container;
+import com.synopsys.integration.blackduck.dockerinspector.cache.InspectorContainerUsage;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+
+/*
+ * Image inspector service containers left running for later runs (imageinspector.service.pool=true).
+ * Pooled containers are found by label rather than by name (which includes the ID of the process that started them),
+ * and are stopped by whichever run finds them idle longer than imageinspector.service.pool.idle.timeout.
+ * A run holding pooled containers (for example a daemon, with idle or paused replicas) keeps marking them used.
+ */
+@Component
+public class InspectorContainerPool {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private DockerClientManager dockerClientManager;
+
+    @Autowired
+    private InspectorContainerUsage containerUsage;
+
+    private final Set<String> heldContainerIds = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat;
+
+    public boolean isEnabled() {
+        return config.isImageInspectorServicePool();
+    }
+
+    public Optional<Container> findContainer(final ImageInspectorOsEnum inspectorOs, final Set<String> excludedContainerIds) {
+        for (final Container container : dockerClientManager.getRunningPooledContainers(Config.IMAGEINSPECTOR_WS_APPNAME, inspectorOs)) {
+            if (!excludedContainerIds.contains(container.getId())) {
+                return Optional.of(container);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void markUsed(final String containerId) {
+        containerUsage.markUsed(containerId, System.currentTimeMillis());
+    }
+
+    // Other runs reap pooled containers by last use, so while this run holds one (even idle or paused) its use is recorded periodically
+    public synchronized void hold(final String containerId) {
+        heldContainerIds.add(containerId);
+        markUsed(containerId);
+        if (heartbeat == null) {
+            heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "imageinspector-pool-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long interval = Math.max(1000L, config.getImageInspectorServicePoolIdleTimeout() / 3);
+            heartbeat.scheduleWithFixedDelay(this::recordHeartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void release(final String containerId) {
+        if (!heldContainerIds.remove(containerId)) {
+            return;
+        }
+        markUsed(containerId);
+        if (heldContainerIds.isEmpty() && heartbeat != null) {
+            heartbeat.shutdown();
+            heartbeat = null;
+        }
+    }
+
+    private void recordHeartbeat() {
+        final long now = System.currentTimeMillis();
+        for (final String containerId : heldContainerIds) {
+            try {
+                containerUsage.markUsed(containerId, now);
+            } catch (final RuntimeException e) {
+                logger.debug(String.format("Unable to record use of pooled container %s: %s", containerId, e.getMessage()));
+            }
+        }
+    }
+
+    public void reapIdleContainers(final Set<String> inUseContainerIds) {
+        final long now = System.currentTimeMillis();
+        final long idleTimeout = config.getImageInspectorServicePoolIdleTimeout();
+        final Map<String, Long> lastUsedTimes = containerUsage.getLastUsedTimes();
+        final List<Container> pooledContainers = dockerClientManager.getRunningPooledContainers(Config.IMAGEINSPECTOR_WS_APPNAME, null);
+        final Set<String> remainingContainerIds = new HashSet<>();
+        for (final Container container : pooledContainers) {
+            final String containerId = container.getId();
+            // A container this run has never recorded a use of was at least used when it was created
+            final long lastUsedTime = lastUsedTimes.getOrDefault(containerId, container.getCreated() * 1000L);
+            if (inUseContainerIds.contains(containerId) || (now - lastUsedTime) <= idleTimeout) {
+                remainingContainerIds.add(containerId);
+                continue;
+            }
+            logger.info(String.format("Stopping pooled image inspector service container %s; it has been idle for %d seconds", containerId, (now - lastUsedTime) / 1000L));
+            try {
+                dockerClientManager.stopRemoveContainer(containerId);
+            } catch (final Exception e) {
+                // Another run may have stopped it first
+                logger.debug(String.format("Unable to stop pooled container %s: %s", containerId, e.getMessage()));
+            }
+        }
+        final Set<String> forgottenContainerIds = new HashSet<>(lastUsedTimes.keySet());
+        forgottenContainerIds.removeAll(remainingContainerIds);
+        containerUsage.forget(forgottenContainerIds);
+    }
+}
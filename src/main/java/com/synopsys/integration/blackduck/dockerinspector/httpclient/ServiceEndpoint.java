@@ -0,0 +1,76 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * An image inspector service endpoint, and the number of requests currently outstanding against it.
+ */
+public class ServiceEndpoint {
+    private final URI baseUri;
+    private final AtomicInteger outstandingRequestCount = new AtomicInteger();
+    private volatile long ejectedUntilTime = 0L;
+
+    public ServiceEndpoint(final URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    // Least outstanding requests; ties go to the earliest in the list
+    public static <T extends ServiceEndpoint> Optional<T> chooseLeastLoaded(final List<T> endpoints) {
+        return endpoints.stream().min(Comparator.comparingInt(ServiceEndpoint::getOutstandingRequestCount));
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    public int getOutstandingRequestCount() {
+        return outstandingRequestCount.get();
+    }
+
+    public void requestStarted() {
+        outstandingRequestCount.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        outstandingRequestCount.decrementAndGet();
+    }
+
+    public boolean isEjected(final long currentTime) {
+        return currentTime < ejectedUntilTime;
+    }
+
+    // Take this endpoint out of rotation until the given time
+    public void eject(final long untilTime) {
+        ejectedUntilTime = untilTime;
+    }
+
+    public void restore() {
+        ejectedUntilTime = 0L;
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.exception.IntegrationException;
+import com.synopsys.integration.rest.client.IntHttpClient;
+
+/*
+ * The existing image inspector services (imageinspector.service.url; optionally every address its host resolves to).
+ * Requests go to the available endpoint with the fewest outstanding requests. An endpoint that fails a request or a
+ * background health check is ejected (taken out of rotation) for imageinspector.service.ejection.time seconds,
+ * and restored early if it passes a later health check.
+ */
+@Component
+public class ServiceEndpointPool {
+    private static final String URL_LIST_SEPARATOR = ",";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private ImageInspectorServices imageInspectorServices;
+
+    @Autowired
+    private HttpConnectionCreator httpConnectionCreator;
+
+    private final List<ServiceEndpoint> endpoints = new ArrayList<>();
+    private ScheduledExecutorService healthChecker;
+
+    public synchronized ServiceEndpoint acquire() throws IntegrationException {
+        ensureInitialized();
+        final long currentTime = System.currentTimeMillis();
+        List<ServiceEndpoint> availableEndpoints = endpoints.stream().filter(endpoint -> !endpoint.isEjected(currentTime)).collect(Collectors.toList());
+        if (availableEndpoints.isEmpty()) {
+            logger.warn("All image inspector services have recently failed; trying one anyway");
+            availableEndpoints = endpoints;
+        }
+        final ServiceEndpoint endpoint = ServiceEndpoint.chooseLeastLoaded(availableEndpoints).get();
+        endpoint.requestStarted();
+        logger.debug(String.format("Using image inspector service %s (%d outstanding requests)", endpoint.getBaseUri(), endpoint.getOutstandingRequestCount()));
+        return endpoint;
+    }
+
+    public void release(final ServiceEndpoint endpoint, final boolean succeeded) {
+        endpoint.requestFinished();
+        if (!succeeded) {
+            eject(endpoint, "request failed");
+        }
+    }
+
+    private void ensureInitialized() throws IntegrationException {
+        if (healthChecker != null) {
+            return;
+        }
+        refreshEndpoints();
+        if (endpoints.isEmpty()) {
+            throw new IntegrationException(String.format("No image inspector services found at %s", config.getImageInspectorUrl()));
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "imageinspector-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = Math.max(1L, config.getImageInspectorHealthCheckInterval());
+        healthChecker.scheduleWithFixedDelay(this::checkEndpoints, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // Endpoints whose URI is still present keep their state (outstanding request count, ejection)
+    private synchronized void refreshEndpoints() throws IntegrationException {
+        final List<URI> endpointUris = deriveEndpointUris();
+        if (endpointUris.isEmpty()) {
+            logger.warn(String.format("Unable to find any image inspector services at %s; keeping the current list", config.getImageInspectorUrl()));
+            return;
+        }
+        endpoints.removeIf(endpoint -> !endpointUris.contains(endpoint.getBaseUri()));
+        for (final URI endpointUri : endpointUris) {
+            if (endpoints.stream().noneMatch(endpoint -> endpoint.getBaseUri().equals(endpointUri))) {
+                logger.debug(String.format("Adding image inspector service %s", endpointUri));
+                endpoints.add(new ServiceEndpoint(endpointUri));
+            }
+        }
+    }
+
+    private List<URI> deriveEndpointUris() throws IntegrationException {
+        final List<URI> endpointUris = new ArrayList<>();
+        for (final String url : config.getImageInspectorUrl().split(URL_LIST_SEPARATOR)) {
+            if (StringUtils.isBlank(url)) {
+                continue;
+            }
+            final URI serviceUri;
+            try {
+                serviceUri = new URI(url.trim());
+            } catch (final URISyntaxException e) {
+                throw new IntegrationException(String.format("Error constructing URI from %s: %s", url, e.getMessage()), e);
+            }
+            if (config.isImageInspectorUrlResolveAll()) {
+                endpointUris.addAll(resolveAll(serviceUri));
+            } else {
+                endpointUris.add(serviceUri);
+            }
+        }
+        return endpointUris;
+    }
+
+    private List<URI> resolveAll(final URI serviceUri) throws IntegrationException {
+        final List<URI> resolvedUris = new ArrayList<>();
+        try {
+            for (final InetAddress address : InetAddress.getAllByName(serviceUri.getHost())) {
+                resolvedUris.add(new URI(serviceUri.getScheme(), serviceUri.getUserInfo(), address.getHostAddress(), serviceUri.getPort(), serviceUri.getPath(), serviceUri.getQuery(), serviceUri.getFragment()));
+            }
+        } catch (final UnknownHostException e) {
+            logger.warn(String.format("Unable to resolve image inspector service host %s: %s", serviceUri.getHost(), e.getMessage()));
+        } catch (final URISyntaxException e) {
+            throw new IntegrationException(String.format("Error constructing URI for an address of %s: %s", serviceUri, e.getMessage()), e);
+        }
+        logger.debug(String.format("Image inspector service %s resolved to: %s", serviceUri, resolvedUris));
+        return resolvedUris;
+    }
+
+    private void checkEndpoints() {
+        try {
+            if (config.isImageInspectorUrlResolveAll()) {
+                refreshEndpoints();
+            }
+            final List<ServiceEndpoint> endpointsToCheck;
+            synchronized (this) {
+                endpointsToCheck = new ArrayList<>(endpoints);
+            }
+            for (final ServiceEndpoint endpoint : endpointsToCheck) {
+                final boolean healthy = checkHealth(endpoint);
+                final boolean ejected = endpoint.isEjected(System.currentTimeMillis());
+                if (healthy && ejected) {
+                    logger.info(String.format("Image inspector service %s is healthy again; returning it to rotation", endpoint.getBaseUri()));
+                    endpoint.restore();
+                } else if (!healthy && !ejected) {
+                    eject(endpoint, "health check failed");
+                }
+            }
+        } catch (final Exception e) {
+            logger.warn(String.format("Error checking image inspector services: %s", e.getMessage()));
+        }
+    }
+
+    private boolean checkHealth(final ServiceEndpoint endpoint) {
+        final int timeoutSeconds = (int) Math.max(1L, config.getImageInspectorHealthCheckInterval());
+        try {
+            final IntHttpClient httpClient = httpConnectionCreator.createNonRedirectingConnection(endpoint.getBaseUri(), timeoutSeconds);
+            return imageInspectorServices.checkServiceHealth(httpClient, endpoint.getBaseUri());
+        } catch (final MalformedURLException e) {
+            logger.debug(String.format("Unable to check health of %s: %s", endpoint.getBaseUri(), e.getMessage()));
+            return false;
+        }
+    }
+
+    private void eject(final ServiceEndpoint endpoint, final String reason) {
+        final long ejectionTimeSeconds = config.getImageInspectorEjectionTime();
+        logger.warn(String.format("Image inspector service %s %s; taking it out of rotation for %d seconds", endpoint.getBaseUri(), reason, ejectionTimeSeconds));
+        endpoint.eject(System.currentTimeMillis() + ejectionTimeSeconds * 1000L);
+    }
+}
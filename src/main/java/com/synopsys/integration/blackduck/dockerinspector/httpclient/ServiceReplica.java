@@ -0,0 +1,69 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.net.URI;
+
+/*
+ * One of the (possibly several) image inspector service containers started for an inspector OS.
+ */
+public class ServiceReplica extends ServiceEndpoint {
+    private final int replicaIndex;
+    private final ContainerDetails containerDetails;
+    private volatile long idleSinceTime = System.currentTimeMillis();
+    private boolean paused = false;
+
+    public ServiceReplica(final URI baseUri, final int replicaIndex, final ContainerDetails containerDetails) {
+        super(baseUri);
+        this.replicaIndex = replicaIndex;
+        this.containerDetails = containerDetails;
+    }
+
+    @Override
+    public void requestFinished() {
+        super.requestFinished();
+        idleSinceTime = System.currentTimeMillis();
+    }
+
+    // Idle (no outstanding requests) for at least quietPeriod milliseconds as of currentTime
+    public boolean isIdleFor(final long quietPeriod, final long currentTime) {
+        return getOutstandingRequestCount() == 0 && currentTime - idleSinceTime >= quietPeriod;
+    }
+
+    // Whether this replica's container has been paused (docker pause); guarded by the replica list's lock
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(final boolean paused) {
+        this.paused = paused;
+    }
+
+    public int getReplicaIndex() {
+        return replicaIndex;
+    }
+
+    public ContainerDetails getContainerDetails() {
+        return containerDetails;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/*
+ * Puts a (possibly multi-GB) image tarfile into the dir shared with the image inspector service without copying its data when possible:
+ * rename it if it's a file we created, else hard link it if it's on the same file system, else clone it (reflink) where the file system
+ * supports that, and only as a last resort copy it.
+ */
+@Component
+public class TarfileHandoff {
+    private static final long REFLINK_TIMEOUT_SECONDS = 60L;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // A source file we don't own (sourceIsOurs == false) is never moved or modified
+    public TarfileHandoffMethod handOff(final File source, final File destination, final boolean sourceIsOurs) throws IOException {
+        if (source.getCanonicalPath().equals(destination.getCanonicalPath())) {
+            return TarfileHandoffMethod.NONE;
+        }
+        destination.getParentFile().mkdirs();
+        Files.deleteIfExists(destination.toPath());
+        final TarfileHandoffMethod method;
+        if (sourceIsOurs && rename(source, destination)) {
+            method = TarfileHandoffMethod.RENAME;
+        } else if (hardLink(source, destination)) {
+            method = TarfileHandoffMethod.HARD_LINK;
+        } else if (reflink(source, destination)) {
+            method = TarfileHandoffMethod.REFLINK;
+        } else {
+            copy(source, destination);
+            method = TarfileHandoffMethod.COPY;
+        }
+        logger.info(String.format("Handed off %s to %s (method: %s)", source.getAbsolutePath(), destination.getAbsolutePath(), method));
+        return method;
+    }
+
+    private boolean rename(final File source, final File destination) {
+        try {
+            Files.move(source.toPath(), destination.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (final IOException | UnsupportedOperationException e) {
+            logger.debug(String.format("Unable to rename %s to %s: %s", source.getAbsolutePath(), destination.getAbsolutePath(), e.getMessage()));
+            return false;
+        }
+    }
+
+    // The image inspector service only reads the tarfile, and removing the link leaves the original in place
+    private boolean hardLink(final File source, final File destination) {
+        try {
+            Files.createLink(destination.toPath(), source.toPath());
+            return true;
+        } catch (final IOException | UnsupportedOperationException | SecurityException e) {
+            logger.debug(String.format("Unable to hard link %s to %s: %s", destination.getAbsolutePath(), source.getAbsolutePath(), e.getMessage()));
+            return false;
+        }
+    }
+
+    // Java has no file clone API, so use cp: GNU cp can reflink (btrfs, xfs, ...); macOS cp can clone on APFS
+    private boolean reflink(final File source, final File destination) {
+        final String cloneOption;
+        if (SystemUtils.IS_OS_LINUX) {
+            cloneOption = "--reflink=always";
+        } else if (SystemUtils.IS_OS_MAC) {
+            cloneOption = "-c";
+        } else {
+            return false;
+        }
+        try {
+            final Process process = new ProcessBuilder("cp", cloneOption, source.getAbsolutePath(), destination.getAbsolutePath())
+                .redirectErrorStream(true)
+                .start();
+            process.getOutputStream().close();
+            final boolean finished = process.waitFor(REFLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (finished && process.exitValue() == 0) {
+                return true;
+            }
+            if (!finished) {
+                process.destroyForcibly();
+            }
+            logger.debug(String.format("Unable to reflink %s to %s", source.getAbsolutePath(), destination.getAbsolutePath()));
+        } catch (final IOException e) {
+            logger.debug(String.format("Unable to run cp to reflink %s: %s", source.getAbsolutePath(), e.getMessage()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Files.deleteIfExists(destination.toPath());
+        } catch (final IOException e) {
+            logger.debug(String.format("Unable to delete partial reflink %s: %s", destination.getAbsolutePath(), e.getMessage()));
+        }
+        return false;
+    }
+
+    // transferTo lets the kernel copy the data (sendfile / copy_file_range) without passing it through the JVM heap
+    private void copy(final File source, final File destination) throws IOException {
+        try (FileChannel sourceChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+            FileChannel destinationChannel = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long size = sourceChannel.size();
+            long position = 0L;
+            while (position < size) {
+                position += sourceChannel.transferTo(position, size - position, destinationChannel);
+            }
+        }
+    }
+}
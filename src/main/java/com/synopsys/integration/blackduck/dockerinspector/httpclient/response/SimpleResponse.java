@@ -22,6 +22,7 @@
  */
 package com.synopsys.integration.blackduck.dockerinspector.httpclient.response;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,12 +31,19 @@ public class SimpleResponse {
     private final int statusCode;
     private final Map<String, String> headers;
     private final String body;
+    private final File bodyFile;
 
     public SimpleResponse(final int statusCode, final Map<String, String> headers, final String body) {
+        this(statusCode, headers, body, null);
+    }
+
+    // A body too large to hold in memory is written to bodyFile instead
+    public SimpleResponse(final int statusCode, final Map<String, String> headers, final String body, final File bodyFile) {
         super();
         this.statusCode = statusCode;
         this.headers = headers;
         this.body = body;
+        this.bodyFile = bodyFile;
     }
 
     public int getStatusCode() {
@@ -64,4 +72,8 @@ public class SimpleResponse {
         return body;
     }
 
+    public File getBodyFile() {
+        return bodyFile;
+    }
+
 }
@@ -0,0 +1,171 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+
+/*
+ * Applies a request's project name, project version and code location name (or prefix) to a BDIO document while
+ * copying it token by token, so memory use doesn't grow with the number of components. As BdioReader does,
+ * this takes the document's first node to be the bill of materials and its second to be the project.
+ */
+public class BdioAdjuster {
+    private static final String SPDX_NAME_KEY = "spdx:name";
+    private static final String NAME_KEY = "name";
+    private static final String REVISION_KEY = "revision";
+    private final ImageInspectionRequest request;
+    private String adjustedSpdxName;
+
+    public BdioAdjuster(final ImageInspectionRequest request) {
+        this.request = request;
+    }
+
+    // Returns the adjusted code location name (the bill of materials' spdx:name)
+    public String adjust(final JsonReader reader, final JsonWriter writer) throws IOException {
+        final Map<String, UnaryOperator<String>> billOfMaterialsAdjustments = new HashMap<>();
+        billOfMaterialsAdjustments.put(SPDX_NAME_KEY, this::adjustSpdxName);
+        final Map<String, UnaryOperator<String>> projectAdjustments = new HashMap<>();
+        projectAdjustments.put(NAME_KEY, name -> StringUtils.isNotBlank(request.getBlackDuckProjectName()) ? request.getBlackDuckProjectName() : name);
+        projectAdjustments.put(REVISION_KEY, version -> StringUtils.isNotBlank(request.getBlackDuckProjectVersion()) ? request.getBlackDuckProjectVersion() : version);
+
+        reader.beginArray();
+        writer.beginArray();
+        int nodeIndex = 0;
+        while (reader.hasNext()) {
+            if (nodeIndex == 0) {
+                copyNode(reader, writer, billOfMaterialsAdjustments);
+            } else if (nodeIndex == 1) {
+                copyNode(reader, writer, projectAdjustments);
+            } else {
+                copyValue(reader, writer);
+            }
+            nodeIndex++;
+        }
+        reader.endArray();
+        writer.endArray();
+        return adjustedSpdxName;
+    }
+
+    public String getAdjustedSpdxName() {
+        return adjustedSpdxName;
+    }
+
+    private String adjustSpdxName(final String spdxName) {
+        if (StringUtils.isNotBlank(request.getBlackDuckCodelocationName())) {
+            adjustedSpdxName = request.getBlackDuckCodelocationName();
+        } else if (StringUtils.isNotBlank(request.getBlackDuckCodelocationPrefix())) {
+            adjustedSpdxName = String.format("%s_%s", request.getBlackDuckCodelocationPrefix(), spdxName);
+        } else {
+            adjustedSpdxName = spdxName;
+        }
+        return adjustedSpdxName;
+    }
+
+    // Fields the node lacks (Gson leaves out nulls) are added at its end if their adjustment gives them a value
+    private void copyNode(final JsonReader reader, final JsonWriter writer, final Map<String, UnaryOperator<String>> adjustments) throws IOException {
+        reader.beginObject();
+        writer.beginObject();
+        final Set<String> adjustedKeys = new HashSet<>();
+        while (reader.hasNext()) {
+            final String key = reader.nextName();
+            writer.name(key);
+            final UnaryOperator<String> adjustment = adjustments.get(key);
+            if (adjustment == null || (reader.peek() != JsonToken.STRING && reader.peek() != JsonToken.NULL)) {
+                copyValue(reader, writer);
+                continue;
+            }
+            final String value;
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                value = null;
+            } else {
+                value = reader.nextString();
+            }
+            writer.value(adjustment.apply(value));
+            adjustedKeys.add(key);
+        }
+        for (final Map.Entry<String, UnaryOperator<String>> adjustment : adjustments.entrySet()) {
+            if (adjustedKeys.contains(adjustment.getKey())) {
+                continue;
+            }
+            final String value = adjustment.getValue().apply(null);
+            if (value != null) {
+                writer.name(adjustment.getKey()).value(value);
+            }
+        }
+        reader.endObject();
+        writer.endObject();
+    }
+
+    private void copyValue(final JsonReader reader, final JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                // As written, so no precision is lost
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IOException(String.format("Unexpected %s in BDIO at %s", reader.peek(), reader.getPath()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.util.Optional;
+
+/*
+ * What ImageTarFilename.deriveImageMetadata learned about an image without saving it, and the ID of the image it
+ * pulled through the docker daemon to learn it (if it did), which the caller is then responsible for cleaning up.
+ */
+public class ImageLookup {
+    private final ImageTarMetadata metadata;
+    private final String pulledImageId;
+
+    public ImageLookup(final ImageTarMetadata metadata, final String pulledImageId) {
+        this.metadata = metadata;
+        this.pulledImageId = pulledImageId;
+    }
+
+    public Optional<ImageTarMetadata> getMetadata() {
+        return Optional.ofNullable(metadata);
+    }
+
+    public Optional<String> getPulledImageId() {
+        return Optional.ofNullable(pulledImageId);
+    }
+}
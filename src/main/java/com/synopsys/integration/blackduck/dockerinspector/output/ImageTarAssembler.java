@@ -0,0 +1,190 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.cache.LayerStore;
+
+/*
+ * Moves image tarfiles (docker save format) into and out of the layer store: copies a docker save stream to a tarfile while
+ * storing its layers and config, and assembles a tarfile from stored layers and config plus a small generated manifest.
+ */
+@Component
+public class ImageTarAssembler {
+    private static final String MANIFEST_FILENAME = "manifest.json";
+    private static final String LAYER_TAR_FILENAME = "layer.tar";
+    private static final String BLOBS_DIR = "blobs/sha256/";
+    private static final String DIGEST_PREFIX = "sha256:";
+    private static final Pattern CONFIG_FILENAME_PATTERN = Pattern.compile("[0-9a-f]{64}\\.json");
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private LayerStore layerStore;
+
+    @Autowired
+    private Gson gson;
+
+    public boolean isEnabled() {
+        return layerStore.isEnabled();
+    }
+
+    public boolean canAssemble(final String imageId, final List<String> layerDiffIds) {
+        return layerStore.isEnabled() && layerStore.contains(imageId) && layerStore.containsAll(layerDiffIds);
+    }
+
+    public void assemble(final File imageTarFile, final String imageId, final List<String> layerDiffIds, final String repoTag) throws IOException {
+        assemble(imageTarFile, imageId, layerDiffIds, repoTag, digest -> layerStore.get(digest).orElseThrow(() -> new IOException(String.format("%s is no longer in the layer store", digest))));
+    }
+
+    // For layers and config held outside the layer store, keyed by digest
+    public void assemble(final File imageTarFile, final String imageId, final List<String> layerDiffIds, final String repoTag, final Map<String, File> blobFiles) throws IOException {
+        assemble(imageTarFile, imageId, layerDiffIds, repoTag, digest -> {
+            final File blobFile = blobFiles.get(digest);
+            if (blobFile == null || !blobFile.isFile()) {
+                throw new IOException(String.format("Missing %s", digest));
+            }
+            return blobFile;
+        });
+    }
+
+    private interface BlobSource {
+        File get(String digest) throws IOException;
+    }
+
+    private void assemble(final File imageTarFile, final String imageId, final List<String> layerDiffIds, final String repoTag, final BlobSource blobSource) throws IOException {
+        final String configFilename = String.format("%s.json", toHex(imageId));
+        final List<String> layerPaths = new ArrayList<>();
+        final Set<String> writtenLayerPaths = new HashSet<>();
+        try (TarArchiveOutputStream tarOutputStream = createTarOutputStream(imageTarFile)) {
+            addEntry(tarOutputStream, configFilename, blobSource.get(imageId));
+            for (final String layerDiffId : layerDiffIds) {
+                final String layerPath = String.format("%s/%s", toHex(layerDiffId), LAYER_TAR_FILENAME);
+                layerPaths.add(layerPath);
+                // An image can contain the same layer more than once
+                if (writtenLayerPaths.add(layerPath)) {
+                    addEntry(tarOutputStream, layerPath, blobSource.get(layerDiffId));
+                }
+            }
+            final Map<String, Object> imageManifest = new LinkedHashMap<>();
+            imageManifest.put("Config", configFilename);
+            imageManifest.put("RepoTags", Collections.singletonList(repoTag));
+            imageManifest.put("Layers", layerPaths);
+            final byte[] manifestBytes = gson.toJson(Collections.singletonList(imageManifest)).getBytes(StandardCharsets.UTF_8);
+            final TarArchiveEntry manifestEntry = new TarArchiveEntry(MANIFEST_FILENAME);
+            manifestEntry.setSize(manifestBytes.length);
+            tarOutputStream.putArchiveEntry(manifestEntry);
+            tarOutputStream.write(manifestBytes);
+            tarOutputStream.closeArchiveEntry();
+        }
+        logger.debug(String.format("Assembled %s from %d layers", imageTarFile.getAbsolutePath(), writtenLayerPaths.size()));
+    }
+
+    /*
+     * Entries named by their digest (OCI layout blobs, and configs) that are already in the store are copied without being stored again.
+     * Legacy <id>/layer.tar entries are not named by their digest, so each is written to the store as it is copied; if it turns out
+     * to be stored already, the new copy is discarded.
+     */
+    public void copyAndStore(final InputStream imageTarInputStream, final File imageTarFile) throws IOException {
+        int storedCount = 0;
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(new BufferedInputStream(imageTarInputStream));
+            TarArchiveOutputStream tarOutputStream = createTarOutputStream(imageTarFile)) {
+            TarArchiveEntry entry;
+            while ((entry = tarInputStream.getNextTarEntry()) != null) {
+                tarOutputStream.putArchiveEntry(entry);
+                if (entry.isFile() && isStorable(entry.getName())) {
+                    try (LayerStore.BlobWriter blobWriter = layerStore.newBlobWriter()) {
+                        IOUtils.copyLarge(tarInputStream, new TeeOutputStream(tarOutputStream, blobWriter));
+                        blobWriter.commit();
+                        storedCount++;
+                    }
+                } else {
+                    IOUtils.copyLarge(tarInputStream, tarOutputStream);
+                }
+                tarOutputStream.closeArchiveEntry();
+            }
+        }
+        logger.debug(String.format("Saved %s; passed %d layers/configs through the layer store", imageTarFile.getAbsolutePath(), storedCount));
+    }
+
+    private boolean isStorable(final String entryName) {
+        if (entryName.endsWith("/" + LAYER_TAR_FILENAME)) {
+            return true;
+        }
+        String knownDigest = null;
+        if (entryName.startsWith(BLOBS_DIR)) {
+            knownDigest = DIGEST_PREFIX + entryName.substring(BLOBS_DIR.length());
+        } else if (CONFIG_FILENAME_PATTERN.matcher(entryName).matches()) {
+            knownDigest = DIGEST_PREFIX + entryName.substring(0, entryName.length() - ".json".length());
+        }
+        return knownDigest != null && !layerStore.contains(knownDigest);
+    }
+
+    private void addEntry(final TarArchiveOutputStream tarOutputStream, final String entryName, final File contentFile) throws IOException {
+        final TarArchiveEntry entry = new TarArchiveEntry(entryName);
+        entry.setSize(contentFile.length());
+        tarOutputStream.putArchiveEntry(entry);
+        Files.copy(contentFile.toPath(), tarOutputStream);
+        tarOutputStream.closeArchiveEntry();
+    }
+
+    private TarArchiveOutputStream createTarOutputStream(final File imageTarFile) throws IOException {
+        imageTarFile.getParentFile().mkdirs();
+        final OutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(imageTarFile));
+        final TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(fileOutputStream);
+        tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        return tarOutputStream;
+    }
+
+    private String toHex(final String digest) {
+        return digest.startsWith(DIGEST_PREFIX) ? digest.substring(DIGEST_PREFIX.length()) : digest;
+    }
+}
@@ -24,6 +24,7 @@ package com.synopsys.integration.blackduck.dockerinspector.output;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -32,8 +33,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
-import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
 import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.dockerinspector.registry.RegistryImagePuller;
 import com.synopsys.integration.blackduck.exception.BlackDuckIntegrationException;
 import com.synopsys.integration.exception.IntegrationException;
 
@@ -42,24 +44,75 @@ public class ImageTarFilename {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
-    private Config config;
+    private DockerClientManager dockerClientManager;
 
     @Autowired
-    private DockerClientManager dockerClientManager;
+    private RegistryImagePuller registryImagePuller;
 
     @Autowired
-    private ProgramPaths programPaths;
+    private Config config;
 
     public String deriveImageTarFilenameFromImageTag(final String imageName, final String tagName) {
         return String.format("%s_%s.tar", cleanImageName(imageName), tagName);
     }
 
-    public File deriveDockerTarFileFromConfig() throws IOException, IntegrationException {
-        logger.debug(String.format("programPaths.getDockerInspectorTargetDirPath(): %s", programPaths.getDockerInspectorTargetDirPath()));
-        if (StringUtils.isNotBlank(config.getDockerTar())) {
-            return new File(config.getDockerTar());
+    public File deriveDockerTarFile(final ImageInspectionRequest request, final File imageTarDirectory) throws IOException, IntegrationException {
+        return deriveDockerTarFile(request, imageTarDirectory, null);
+    }
+
+    // pulledImageId: the image deriveImageMetadata already pulled (if any), which is saved without pulling it again
+    public File deriveDockerTarFile(final ImageInspectionRequest request, final File imageTarDirectory, final String pulledImageId) throws IOException, IntegrationException {
+        logger.debug(String.format("imageTarDirectory: %s", imageTarDirectory.getAbsolutePath()));
+        if (StringUtils.isNotBlank(request.getDockerTar())) {
+            return new File(request.getDockerTar());
         } else {
-            return deriveDockerTarFileGivenImageSpec();
+            return deriveDockerTarFileGivenImageSpec(request, imageTarDirectory, pulledImageId);
+        }
+    }
+
+    /*
+     * The ID and layer diffIDs of the image that deriveDockerTarFile would save, found without saving it. A repo:tag is resolved the same way
+     * it would be pulled (so a tag that has moved in the registry is noticed). No metadata for a given tarfile, or if the image can't be found.
+     */
+    public ImageLookup deriveImageMetadata(final ImageInspectionRequest request) {
+        if (StringUtils.isNotBlank(request.getDockerTar())) {
+            return new ImageLookup(null, null);
+        }
+        if (StringUtils.isNotBlank(request.getDockerImageId())) {
+            return new ImageLookup(dockerClientManager.getLocalImageMetadata(request.getDockerImageId()).orElse(null), null);
+        }
+        if (StringUtils.isBlank(request.getDockerImageRepo())) {
+            return new ImageLookup(null, null);
+        }
+        if (config.isRegistryPull() && !config.isOfflineMode()) {
+            try {
+                return new ImageLookup(registryImagePuller.getImageMetadata(request.getDockerImageRepo(), request.getDockerImageTag()), null);
+            } catch (final IntegrationException e) {
+                logger.debug(String.format("Unable to get the ID of image %s from its registry: %s", request.getTargetDescription(), e.getMessage()));
+            }
+        }
+        String pulledImageId = null;
+        if (!config.isOfflineMode()) {
+            try {
+                pulledImageId = dockerClientManager.pullImage(request.getDockerImageRepo(), request.getDockerImageTag());
+            } catch (final Exception e) {
+                logger.debug(String.format("Unable to pull %s; using the local docker image cache: %s", request.getTargetDescription(), e.getMessage()));
+            }
+        }
+        return new ImageLookup(dockerClientManager.getLocalImageMetadata(String.format("%s:%s", request.getDockerImageRepo(), request.getDockerImageTag())).orElse(null), pulledImageId);
+    }
+
+    // Returns null if the image should be (or, after a failure, must be) gotten through the docker daemon instead
+    private File pullFromRegistryIfEnabled(final ImageInspectionRequest request, final File imageTarDirectory) {
+        if (!config.isRegistryPull() || config.isOfflineMode()) {
+            return null;
+        }
+        final File imageTarFile = new File(imageTarDirectory, deriveImageTarFilenameFromImageTag(request.getDockerImageRepo(), request.getDockerImageTag()));
+        try {
+            return registryImagePuller.pullImageToFile(request.getDockerImageRepo(), request.getDockerImageTag(), imageTarFile);
+        } catch (final IntegrationException e) {
+            logger.warn(String.format("Unable to pull image %s directly from its registry; trying the docker daemon: %s", request.getTargetDescription(), e.getMessage()));
+            return null;
         }
     }
 
@@ -75,13 +128,16 @@ public class ImageTarFilename {
         return givenString.replaceAll("/", "_");
     }
 
-    private File deriveDockerTarFileGivenImageSpec() throws IntegrationException, IOException {
+    private File deriveDockerTarFileGivenImageSpec(final ImageInspectionRequest request, final File imageTarDirectory, final String pulledImageId) throws IntegrationException, IOException {
         File finalDockerTarfile;
-        final File imageTarDirectory = new File(programPaths.getDockerInspectorTargetDirPath());
-        if (StringUtils.isNotBlank(config.getDockerImageId())) {
-            finalDockerTarfile = dockerClientManager.getTarFileFromDockerImageById(config.getDockerImageId(), imageTarDirectory);
-        } else if (StringUtils.isNotBlank(config.getDockerImageRepo())) {
-            finalDockerTarfile = dockerClientManager.getTarFileFromDockerImage(config.getDockerImageRepo(), config.getDockerImageTag(), imageTarDirectory);
+        if (StringUtils.isNotBlank(request.getDockerImageId())) {
+            finalDockerTarfile = dockerClientManager.getTarFileFromDockerImageById(request.getDockerImageId(), imageTarDirectory);
+        } else if (StringUtils.isNotBlank(request.getDockerImageRepo())) {
+            // An image already pulled through the docker daemon is saved from there
+            finalDockerTarfile = pulledImageId == null ? pullFromRegistryIfEnabled(request, imageTarDirectory) : null;
+            if (finalDockerTarfile == null) {
+                finalDockerTarfile = dockerClientManager.getTarFileFromDockerImage(request.getDockerImageRepo(), request.getDockerImageTag(), imageTarDirectory, pulledImageId);
+            }
         } else {
             throw new BlackDuckIntegrationException("You must specify a docker image");
         }
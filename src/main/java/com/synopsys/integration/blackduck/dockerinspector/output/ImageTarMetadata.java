@@ -0,0 +1,83 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+
+/*
+ * What a saved image (docker save) tarfile says about the image it holds
+ */
+public class ImageTarMetadata {
+    private final String imageId;
+    private final List<String> layerDiffIds;
+    private final String linuxDistroId;
+    private final ImageInspectorOsEnum inspectorOs;
+    private final Set<String> packageDbLayerDiffIds;
+
+    public ImageTarMetadata(final String imageId, final List<String> layerDiffIds, final String linuxDistroId, final ImageInspectorOsEnum inspectorOs) {
+        this(imageId, layerDiffIds, linuxDistroId, inspectorOs, null);
+    }
+
+    public ImageTarMetadata(final String imageId, final List<String> layerDiffIds, final String linuxDistroId, final ImageInspectorOsEnum inspectorOs, final Set<String> packageDbLayerDiffIds) {
+        this.imageId = imageId;
+        this.layerDiffIds = layerDiffIds;
+        this.linuxDistroId = linuxDistroId;
+        this.inspectorOs = inspectorOs;
+        this.packageDbLayerDiffIds = packageDbLayerDiffIds;
+    }
+
+    public String getImageId() {
+        return imageId;
+    }
+
+    // The (uncompressed) layer digests, base layer first
+    public List<String> getLayerDiffIds() {
+        return layerDiffIds;
+    }
+
+    public Optional<String> getBaseLayerDiffId() {
+        if (layerDiffIds.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(layerDiffIds.get(0));
+    }
+
+    // The ID field of the image's os-release file (alpine, ubuntu, centos, ...), if it has one
+    public Optional<String> getLinuxDistroId() {
+        return Optional.ofNullable(linuxDistroId);
+    }
+
+    // The inspector OS whose package manager matches the package database found in the image, if exactly one was found
+    public Optional<ImageInspectorOsEnum> getInspectorOs() {
+        return Optional.ofNullable(inspectorOs);
+    }
+
+    // The layers that change os-release or a package database (or could not be read), if the layers were read
+    public Optional<Set<String>> getPackageDbLayerDiffIds() {
+        return Optional.ofNullable(packageDbLayerDiffIds);
+    }
+}
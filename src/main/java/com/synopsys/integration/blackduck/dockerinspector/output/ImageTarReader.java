@@ -0,0 +1,268 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Reads a saved image tarfile (docker save format, including the OCI layout written by newer Docker versions)
+ * in a single pass, without the docker daemon: the image ID and layer digests, plus (by looking through the
+ * layers, honoring whiteouts) the os-release ID and which package manager database the image contains.
+ */
+@Component
+public class ImageTarReader {
+    private static final String MANIFEST_FILENAME = "manifest.json";
+    private static final String BLOBS_DIR = "blobs/";
+    private static final String LAYER_TAR_FILENAME = "layer.tar";
+    private static final String JSON_FILENAME_SUFFIX = ".json";
+    private static final String DIGEST_ALGORITHM_PREFIX = "sha256:";
+    // The image config is small; layer blobs are not
+    private static final long MAX_METADATA_FILE_SIZE = 1024L * 1024L;
+    private static final List<String> OS_RELEASE_FILES = Arrays.asList("etc/os-release", "usr/lib/os-release");
+    private static final String OS_RELEASE_ID_PREFIX = "ID=";
+    private static final Map<String, ImageInspectorOsEnum> PACKAGE_DB_FILES = new LinkedHashMap<>();
+
+    static {
+        PACKAGE_DB_FILES.put("lib/apk/db/installed", ImageInspectorOsEnum.ALPINE);
+        PACKAGE_DB_FILES.put("var/lib/dpkg/status", ImageInspectorOsEnum.UBUNTU);
+        PACKAGE_DB_FILES.put("var/lib/rpm/Packages", ImageInspectorOsEnum.CENTOS);
+        PACKAGE_DB_FILES.put("var/lib/rpm/rpmdb.sqlite", ImageInspectorOsEnum.CENTOS);
+        PACKAGE_DB_FILES.put("usr/lib/sysimage/rpm/Packages", ImageInspectorOsEnum.CENTOS);
+        PACKAGE_DB_FILES.put("usr/lib/sysimage/rpm/rpmdb.sqlite", ImageInspectorOsEnum.CENTOS);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Gson gson;
+
+    public ImageTarMetadata readMetadata(final File imageTarfile) throws IntegrationException {
+        return readMetadata(imageTarfile, null);
+    }
+
+    // A tarfile can hold several images; this reads the one tagged repoTag (repo:tag), or the first if repoTag is null or not found
+    public ImageTarMetadata readMetadata(final File imageTarfile, final String repoTag) throws IntegrationException {
+        return readMetadata(imageTarfile, repoTag, true);
+    }
+
+    // With readLayers false, only manifest.json and the image config are read; layers are skipped unparsed, so the result has no distro information
+    public ImageTarMetadata readMetadata(final File imageTarfile, final String repoTag, final boolean readLayers) throws IntegrationException {
+        // manifest.json (which names the config file and gives the layer order) usually comes last, so keep everything it might refer to
+        final Map<String, byte[]> metadataFiles = new HashMap<>();
+        final Map<String, LayerFiles> layerFilesByPath = new HashMap<>();
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(new BufferedInputStream(new FileInputStream(imageTarfile)))) {
+            TarArchiveEntry entry;
+            while ((entry = tarInputStream.getNextTarEntry()) != null) {
+                if (!entry.isFile()) {
+                    continue;
+                }
+                final String name = entry.getName();
+                if (isMetadataFile(entry)) {
+                    final byte[] content = IOUtils.toByteArray(tarInputStream);
+                    metadataFiles.put(name, content);
+                    if (readLayers && name.startsWith(BLOBS_DIR)) {
+                        // Might be a (small) layer
+                        readLayerTolerantly(name, new ByteArrayInputStream(content), layerFilesByPath);
+                    }
+                } else if (readLayers && (name.endsWith(LAYER_TAR_FILENAME) || name.startsWith(BLOBS_DIR))) {
+                    readLayerTolerantly(name, tarInputStream, layerFilesByPath);
+                }
+            }
+        } catch (final IOException e) {
+            throw new IntegrationException(String.format("Error reading image tarfile %s: %s", imageTarfile.getAbsolutePath(), e.getMessage()), e);
+        }
+        return parseMetadata(imageTarfile, repoTag, metadataFiles, readLayers ? layerFilesByPath : null);
+    }
+
+    private boolean isMetadataFile(final TarArchiveEntry entry) {
+        if (entry.getSize() > MAX_METADATA_FILE_SIZE) {
+            return false;
+        }
+        final String name = entry.getName();
+        return (!name.contains("/") && name.endsWith(JSON_FILENAME_SUFFIX)) || name.startsWith(BLOBS_DIR);
+    }
+
+    private void readLayerTolerantly(final String layerPath, final InputStream layerInputStream, final Map<String, LayerFiles> layerFilesByPath) {
+        try {
+            layerFilesByPath.put(layerPath, LayerFiles.read(layerInputStream, getTrackedFiles(), new HashSet<>(OS_RELEASE_FILES)));
+        } catch (final IOException | IllegalArgumentException e) {
+            // Not every blob is a layer
+            logger.trace(String.format("%s is not a readable layer: %s", layerPath, e.getMessage()));
+        }
+    }
+
+    private ImageTarMetadata parseMetadata(final File imageTarfile, final String repoTag, final Map<String, byte[]> metadataFiles, final Map<String, LayerFiles> layerFilesByPath) throws IntegrationException {
+        final byte[] manifestBytes = metadataFiles.get(MANIFEST_FILENAME);
+        if (manifestBytes == null) {
+            throw new IntegrationException(String.format("Image tarfile %s has no %s", imageTarfile.getAbsolutePath(), MANIFEST_FILENAME));
+        }
+        try {
+            final JsonArray manifest = gson.fromJson(new String(manifestBytes, StandardCharsets.UTF_8), JsonArray.class);
+            if (manifest == null || manifest.size() == 0) {
+                throw new IntegrationException(String.format("The %s in image tarfile %s is empty", MANIFEST_FILENAME, imageTarfile.getAbsolutePath()));
+            }
+            final JsonObject imageManifest = selectImageManifest(imageTarfile, manifest, repoTag);
+            final String configFilePath = imageManifest.get("Config").getAsString();
+            final byte[] configBytes = metadataFiles.get(configFilePath);
+            if (configBytes == null) {
+                throw new IntegrationException(String.format("Image tarfile %s has no config file %s", imageTarfile.getAbsolutePath(), configFilePath));
+            }
+            final JsonObject imageConfig = gson.fromJson(new String(configBytes, StandardCharsets.UTF_8), JsonObject.class);
+            final List<String> layerDiffIds = new ArrayList<>();
+            for (final JsonElement diffId : imageConfig.getAsJsonObject("rootfs").getAsJsonArray("diff_ids")) {
+                layerDiffIds.add(diffId.getAsString());
+            }
+            final List<String> layerPaths = new ArrayList<>();
+            for (final JsonElement layerPath : imageManifest.getAsJsonArray("Layers")) {
+                layerPaths.add(layerPath.getAsString());
+            }
+            if (layerFilesByPath == null) {
+                return new ImageTarMetadata(deriveImageId(configFilePath), layerDiffIds, null, null);
+            }
+            final Map<String, String> files = applyLayers(imageTarfile, layerPaths, layerFilesByPath);
+            return new ImageTarMetadata(deriveImageId(configFilePath), layerDiffIds, deriveLinuxDistroId(files), deriveInspectorOs(imageTarfile, files),
+                derivePackageDbLayerDiffIds(layerDiffIds, layerPaths, layerFilesByPath));
+        } catch (final JsonParseException | IllegalStateException | NullPointerException | ClassCastException e) {
+            throw new IntegrationException(String.format("Error parsing the metadata in image tarfile %s: %s", imageTarfile.getAbsolutePath(), e.getMessage()), e);
+        }
+    }
+
+    private JsonObject selectImageManifest(final File imageTarfile, final JsonArray manifest, final String repoTag) {
+        if (manifest.size() > 1 && repoTag != null) {
+            for (final JsonElement imageManifest : manifest) {
+                final JsonElement repoTags = imageManifest.getAsJsonObject().get("RepoTags");
+                if (repoTags != null && repoTags.isJsonArray()) {
+                    for (final JsonElement imageRepoTag : repoTags.getAsJsonArray()) {
+                        if (repoTag.equals(imageRepoTag.getAsString())) {
+                            return imageManifest.getAsJsonObject();
+                        }
+                    }
+                }
+            }
+        }
+        if (manifest.size() > 1) {
+            logger.debug(String.format("Image tarfile %s contains %d images; using the first", imageTarfile.getAbsolutePath(), manifest.size()));
+        }
+        return manifest.get(0).getAsJsonObject();
+    }
+
+    // The tracked files (and their content, if tracked) present in the image's final file system
+    private Map<String, String> applyLayers(final File imageTarfile, final List<String> layerPaths, final Map<String, LayerFiles> layerFilesByPath) {
+        final Map<String, String> files = new HashMap<>();
+        for (final String layerPath : layerPaths) {
+            final LayerFiles layerFiles = layerFilesByPath.get(layerPath);
+            if (layerFiles == null) {
+                logger.debug(String.format("Layer %s of image tarfile %s could not be read; OS detection may be inaccurate", layerPath, imageTarfile.getAbsolutePath()));
+                continue;
+            }
+            layerFiles.applyTo(files);
+        }
+        return files;
+    }
+
+    private Set<String> derivePackageDbLayerDiffIds(final List<String> layerDiffIds, final List<String> layerPaths, final Map<String, LayerFiles> layerFilesByPath) {
+        final Set<String> packageDbLayerDiffIds = new HashSet<>();
+        for (int layerIndex = 0; layerIndex < layerDiffIds.size(); layerIndex++) {
+            final LayerFiles layerFiles = layerIndex < layerPaths.size() ? layerFilesByPath.get(layerPaths.get(layerIndex)) : null;
+            if (layerFiles == null || layerFiles.changesAny(getTrackedFiles())) {
+                packageDbLayerDiffIds.add(layerDiffIds.get(layerIndex));
+            }
+        }
+        return packageDbLayerDiffIds;
+    }
+
+    private Set<String> getTrackedFiles() {
+        final Set<String> trackedFiles = new HashSet<>(OS_RELEASE_FILES);
+        trackedFiles.addAll(PACKAGE_DB_FILES.keySet());
+        return trackedFiles;
+    }
+
+    private String deriveLinuxDistroId(final Map<String, String> files) {
+        for (final String osReleaseFile : OS_RELEASE_FILES) {
+            final String osRelease = files.get(osReleaseFile);
+            if (osRelease == null) {
+                continue;
+            }
+            for (final String line : osRelease.split("\n")) {
+                if (line.startsWith(OS_RELEASE_ID_PREFIX)) {
+                    return StringUtils.strip(line.substring(OS_RELEASE_ID_PREFIX.length()).trim(), "\"'");
+                }
+            }
+        }
+        return null;
+    }
+
+    private ImageInspectorOsEnum deriveInspectorOs(final File imageTarfile, final Map<String, String> files) {
+        final Set<ImageInspectorOsEnum> inspectorOses = new HashSet<>();
+        for (final Map.Entry<String, ImageInspectorOsEnum> packageDbFile : PACKAGE_DB_FILES.entrySet()) {
+            if (files.containsKey(packageDbFile.getKey())) {
+                inspectorOses.add(packageDbFile.getValue());
+            }
+        }
+        if (inspectorOses.size() != 1) {
+            logger.debug(String.format("Package databases found in image tarfile %s are for: %s; unable to choose an inspector OS", imageTarfile.getAbsolutePath(), inspectorOses));
+            return null;
+        }
+        return inspectorOses.iterator().next();
+    }
+
+    // The image ID is the digest of the config file, which is also its name ("<digest>.json", or "blobs/sha256/<digest>")
+    private String deriveImageId(final String configFilePath) {
+        String digest = configFilePath.substring(configFilePath.lastIndexOf('/') + 1);
+        if (digest.endsWith(JSON_FILENAME_SUFFIX)) {
+            digest = digest.substring(0, digest.length() - JSON_FILENAME_SUFFIX.length());
+        }
+        return DIGEST_ALGORITHM_PREFIX + digest;
+    }
+}
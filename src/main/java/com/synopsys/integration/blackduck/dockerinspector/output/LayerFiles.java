@@ -0,0 +1,110 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+
+/*
+ * What one image layer does to the handful of files OS detection cares about: which it adds
+ * (with the content of the small ones), and which it deletes via whiteouts.
+ */
+class LayerFiles {
+    private static final String WHITEOUT_PREFIX = ".wh.";
+    private static final String OPAQUE_WHITEOUT = ".wh..wh..opq";
+    private static final long MAX_CONTENT_SIZE = 64L * 1024L;
+
+    private final Map<String, String> addedFiles = new HashMap<>();
+    private final Set<String> deletedPaths = new HashSet<>();
+    private final Set<String> opaqueDirs = new HashSet<>();
+
+    // Does not close the given stream, which may be positioned at an entry of the enclosing image tarfile
+    static LayerFiles read(final InputStream layerTarInputStream, final Set<String> trackedFiles, final Set<String> trackedContentFiles) throws IOException {
+        final LayerFiles layerFiles = new LayerFiles();
+        final TarArchiveInputStream tarInputStream = new TarArchiveInputStream(layerTarInputStream);
+        TarArchiveEntry entry;
+        while ((entry = tarInputStream.getNextTarEntry()) != null) {
+            final String path = normalize(entry.getName());
+            final int lastSlashIndex = path.lastIndexOf('/');
+            final String dir = path.substring(0, lastSlashIndex + 1);
+            final String filename = path.substring(lastSlashIndex + 1);
+            if (OPAQUE_WHITEOUT.equals(filename)) {
+                layerFiles.opaqueDirs.add(dir);
+            } else if (filename.startsWith(WHITEOUT_PREFIX)) {
+                layerFiles.deletedPaths.add(dir + filename.substring(WHITEOUT_PREFIX.length()));
+            } else if (trackedFiles.contains(path)) {
+                String content = null;
+                if (trackedContentFiles.contains(path) && entry.isFile() && entry.getSize() <= MAX_CONTENT_SIZE) {
+                    content = new String(IOUtils.toByteArray(tarInputStream), StandardCharsets.UTF_8);
+                }
+                // A symlink (commonly etc/os-release -> ../usr/lib/os-release) is present, but has no content of its own
+                layerFiles.addedFiles.put(path, content);
+            }
+        }
+        return layerFiles;
+    }
+
+    private static String normalize(final String entryName) {
+        String path = entryName;
+        if (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+
+    // Whether this layer adds, or might delete, any of the given files
+    boolean changesAny(final Set<String> paths) {
+        if (!addedFiles.isEmpty()) {
+            return true;
+        }
+        for (final String path : paths) {
+            if (opaqueDirs.stream().anyMatch(path::startsWith) || deletedPaths.stream().anyMatch(deletedPath -> path.equals(deletedPath) || path.startsWith(deletedPath + "/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whiteouts hide files in lower layers, so they are applied before this layer's own files
+    void applyTo(final Map<String, String> files) {
+        for (final String opaqueDir : opaqueDirs) {
+            files.keySet().removeIf(path -> path.startsWith(opaqueDir));
+        }
+        for (final String deletedPath : deletedPaths) {
+            files.keySet().removeIf(path -> path.equals(deletedPath) || path.startsWith(deletedPath + "/"));
+        }
+        files.putAll(addedFiles);
+    }
+}
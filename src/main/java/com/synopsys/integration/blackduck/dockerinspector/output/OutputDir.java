@@ -23,8 +23,10 @@
 package com.synopsys.integration.blackduck.dockerinspector.output;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -33,11 +35,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.synopsys.integration.blackduck.dockerinspector.config.Config;
 import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
-import com.synopsys.integration.bdio.BdioWriter;
-import com.synopsys.integration.bdio.model.SimpleBdioDocument;
 
 @Component
 public class OutputDir {
@@ -49,9 +50,6 @@ public class OutputDir {
     @Autowired
     private ProgramPaths programPaths;
 
-    @Autowired
-    private Gson gson;
-
     public void ensureOutputDirIsWriteable() {
         final File outputDir = new File(programPaths.getDockerInspectorDefaultOutputPath());
         final boolean dirCreated = outputDir.mkdirs();
@@ -60,7 +58,8 @@ public class OutputDir {
         logger.debug(String.format("Output dir: %s; created: %b; successfully made writeable: %b; make executable: %b", outputDir.getAbsolutePath(), dirCreated, dirMadeWriteable, dirMadeExecutable));
     }
 
-    public File addBdioFileToOutputDir(final SimpleBdioDocument bdioDocument) throws IOException {
+    // Streams the BDIO from bdioSourceFile, adjusted as it goes, into the output dir
+    public File addBdioFileToOutputDir(final File bdioSourceFile, final BdioAdjuster bdioAdjuster) throws IOException {
         // if user specified an output dir, use that; else use the temp output dir
         File outputDir;
         if (StringUtils.isNotBlank(config.getOutputPath())) {
@@ -69,13 +68,21 @@ public class OutputDir {
         } else {
             outputDir = new File(programPaths.getDockerInspectorDefaultOutputPath());
         }
-        final String bdioFilename = new BdioFilename(bdioDocument.billOfMaterials.spdxName).getBdioFilename();
-        final File outputBdioFile = new File(outputDir, bdioFilename);
-        final FileOutputStream outputBdioStream = new FileOutputStream(outputBdioFile);
-        logger.info(String.format("Writing BDIO to %s", outputBdioFile.getAbsolutePath()));
-        try (BdioWriter bdioWriter = new BdioWriter(gson, outputBdioStream)) {
-            bdioWriter.writeSimpleBdioDocument(bdioDocument);
+        // The file is named for the code location, which is known only once the bill of materials has been copied
+        final File tempBdioFile = File.createTempFile(".bdio", ".tmp", outputDir);
+        final String spdxName;
+        try (JsonReader bdioReader = new JsonReader(Files.newBufferedReader(bdioSourceFile.toPath(), StandardCharsets.UTF_8));
+            JsonWriter bdioWriter = new JsonWriter(Files.newBufferedWriter(tempBdioFile.toPath(), StandardCharsets.UTF_8))) {
+            // As BdioWriter writes it
+            bdioWriter.setIndent("  ");
+            spdxName = bdioAdjuster.adjust(bdioReader, bdioWriter);
+        } catch (final IOException | RuntimeException e) {
+            tempBdioFile.delete();
+            throw e;
         }
+        final File outputBdioFile = new File(outputDir, new BdioFilename(spdxName).getBdioFilename());
+        logger.info(String.format("Writing BDIO to %s", outputBdioFile.getAbsolutePath()));
+        Files.move(tempBdioFile.toPath(), outputBdioFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         return outputBdioFile;
     }
 
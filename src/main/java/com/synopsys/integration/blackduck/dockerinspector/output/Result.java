@@ -22,6 +22,11 @@
  */
 package com.synopsys.integration.blackduck.dockerinspector.output;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+
 public class Result {
     private final Boolean succeeded;
     private final String message;
@@ -30,8 +35,14 @@ public class Result {
     private final String inspectOnImageTag;
     private final String dockerTarfilename;
     private final String bdioFilename;
+    private final List<TransferMetrics> transferMetrics;
 
     public Result(final Boolean succeeded, final String message, final String inspectOnOsName, final String inspectOnImageName, final String inspectOnImageTag, final String dockerTarfilename, final String bdioFilename) {
+        this(succeeded, message, inspectOnOsName, inspectOnImageName, inspectOnImageTag, dockerTarfilename, bdioFilename, null);
+    }
+
+    public Result(final Boolean succeeded, final String message, final String inspectOnOsName, final String inspectOnImageName, final String inspectOnImageTag, final String dockerTarfilename, final String bdioFilename,
+        final List<TransferMetrics> transferMetrics) {
         this.succeeded = succeeded;
         this.message = message;
         this.inspectOnOsName = inspectOnOsName == null ? "" : inspectOnOsName;
@@ -39,6 +50,7 @@ public class Result {
         this.inspectOnImageTag = inspectOnImageTag == null ? "" : inspectOnImageTag;
         this.dockerTarfilename = dockerTarfilename == null ? "" : dockerTarfilename;
         this.bdioFilename = bdioFilename == null ? "" : bdioFilename;
+        this.transferMetrics = transferMetrics == null ? new ArrayList<>() : transferMetrics;
     }
 
     public boolean isSucceeded() {
@@ -68,4 +80,8 @@ public class Result {
     public String getBdioFilename() {
         return bdioFilename;
     }
+
+    public List<TransferMetrics> getTransferMetrics() {
+        return transferMetrics;
+    }
 }
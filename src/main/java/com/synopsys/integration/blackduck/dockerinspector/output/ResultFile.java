@@ -37,7 +37,10 @@ public class ResultFile {
     public void write(final Gson gson, final String resultFilePath, final boolean succeeded, final String msg, final ImageInspectorOsEnum targetOs, final String runOnImageName, final String runOnImageTag, final String dockerTarfilename,
             final String bdioFilename) {
         final String runOnOsName = targetOs == null ? "" : targetOs.name().toLowerCase();
-        final Result result = new Result(succeeded, msg, runOnOsName, runOnImageName, runOnImageTag, dockerTarfilename, bdioFilename);
+        write(gson, resultFilePath, new Result(succeeded, msg, runOnOsName, runOnImageName, runOnImageTag, dockerTarfilename, bdioFilename));
+    }
+
+    public void write(final Gson gson, final String resultFilePath, final Result result) {
         try {
             final File resultOutputFile = new File(resultFilePath);
             resultOutputFile.getParentFile().mkdirs();
@@ -0,0 +1,179 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Minimal Docker Registry HTTP API v2 client for one repository: GET with the registry's token (or basic) authentication.
+ * Redirects (blobs are often served from a CDN) are followed without the registry credentials.
+ */
+class RegistryClient {
+    private static final int CONNECT_TIMEOUT_MILLISECONDS = 30000;
+    private static final int READ_TIMEOUT_MILLISECONDS = 120000;
+    private static final int MAX_REDIRECT_COUNT = 5;
+    private static final Pattern CHALLENGE_PARAM_PATTERN = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final String registryBaseUrl;
+    private final String repositoryName;
+    private final String username;
+    private final String password;
+    private final Gson gson;
+    private volatile String authorizationHeaderValue;
+
+    RegistryClient(final String registryBaseUrl, final String repositoryName, final String username, final String password, final Gson gson) {
+        this.registryBaseUrl = registryBaseUrl;
+        this.repositoryName = repositoryName;
+        this.username = username;
+        this.password = password;
+        this.gson = gson;
+    }
+
+    // The caller must read and close the response body (getInputStream())
+    HttpURLConnection get(final String pathWithinRepository, final String accept) throws IOException, IntegrationException {
+        final String url = String.format("%s/v2/%s/%s", registryBaseUrl, repositoryName, pathWithinRepository);
+        HttpURLConnection connection = open(url, accept, true);
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            final String challenge = connection.getHeaderField("WWW-Authenticate");
+            drain(connection);
+            authenticate(challenge);
+            connection = open(url, accept, true);
+        }
+        for (int redirectCount = 0; isRedirect(connection.getResponseCode()); redirectCount++) {
+            final String location = connection.getHeaderField("Location");
+            drain(connection);
+            if (redirectCount >= MAX_REDIRECT_COUNT || location == null) {
+                throw new IntegrationException(String.format("Too many redirects getting %s", url));
+            }
+            connection = open(new URL(connection.getURL(), location).toString(), accept, false);
+        }
+        final int statusCode = connection.getResponseCode();
+        if (statusCode != HttpURLConnection.HTTP_OK) {
+            final String body = readErrorBody(connection);
+            throw new IntegrationException(String.format("GET %s returned status %d: %s", url, statusCode, body));
+        }
+        return connection;
+    }
+
+    private HttpURLConnection open(final String url, final String accept, final boolean sendCredentials) throws IOException {
+        logger.trace(String.format("GET %s", url));
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLISECONDS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLISECONDS);
+        if (accept != null) {
+            connection.setRequestProperty("Accept", accept);
+        }
+        if (sendCredentials && authorizationHeaderValue != null) {
+            connection.setRequestProperty("Authorization", authorizationHeaderValue);
+        }
+        return connection;
+    }
+
+    private void authenticate(final String challenge) throws IOException, IntegrationException {
+        if (challenge == null) {
+            throw new IntegrationException(String.format("Registry %s requires authentication, but did not say how", registryBaseUrl));
+        }
+        if (challenge.regionMatches(true, 0, "Basic", 0, "Basic".length())) {
+            if (StringUtils.isBlank(username)) {
+                throw new IntegrationException(String.format("Registry %s requires a username and password (registry.username, registry.password)", registryBaseUrl));
+            }
+            authorizationHeaderValue = "Basic " + encodeCredentials();
+            return;
+        }
+        final Map<String, String> challengeParams = new HashMap<>();
+        final Matcher matcher = CHALLENGE_PARAM_PATTERN.matcher(challenge);
+        while (matcher.find()) {
+            challengeParams.put(matcher.group(1), matcher.group(2));
+        }
+        final String realm = challengeParams.get("realm");
+        if (realm == null) {
+            throw new IntegrationException(String.format("Unsupported authentication challenge from registry %s: %s", registryBaseUrl, challenge));
+        }
+        final StringBuilder tokenUrl = new StringBuilder(realm);
+        tokenUrl.append(realm.contains("?") ? "&" : "?");
+        tokenUrl.append("scope=").append(URLEncoder.encode(challengeParams.getOrDefault("scope", String.format("repository:%s:pull", repositoryName)), "UTF-8"));
+        if (challengeParams.containsKey("service")) {
+            tokenUrl.append("&service=").append(URLEncoder.encode(challengeParams.get("service"), "UTF-8"));
+        }
+        final HttpURLConnection tokenConnection = open(tokenUrl.toString(), "application/json", false);
+        if (StringUtils.isNotBlank(username)) {
+            tokenConnection.setRequestProperty("Authorization", "Basic " + encodeCredentials());
+        }
+        if (tokenConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IntegrationException(String.format("Unable to get a registry token from %s: status %d: %s", realm, tokenConnection.getResponseCode(), readErrorBody(tokenConnection)));
+        }
+        final JsonObject tokenResponse;
+        try (InputStream tokenInputStream = tokenConnection.getInputStream()) {
+            tokenResponse = gson.fromJson(IOUtils.toString(tokenInputStream, StandardCharsets.UTF_8), JsonObject.class);
+        }
+        final String token = tokenResponse.has("token") ? tokenResponse.get("token").getAsString() : tokenResponse.get("access_token").getAsString();
+        logger.debug(String.format("Got a token for repository %s from %s", repositoryName, realm));
+        authorizationHeaderValue = "Bearer " + token;
+    }
+
+    private String encodeCredentials() {
+        return Base64.getEncoder().encodeToString(String.format("%s:%s", username, password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isRedirect(final int statusCode) {
+        return statusCode == HttpURLConnection.HTTP_MOVED_PERM || statusCode == HttpURLConnection.HTTP_MOVED_TEMP || statusCode == HttpURLConnection.HTTP_SEE_OTHER || statusCode == 307 || statusCode == 308;
+    }
+
+    private void drain(final HttpURLConnection connection) {
+        readErrorBody(connection);
+        try (InputStream inputStream = connection.getInputStream()) {
+            // Read to the end, so the connection can be reused
+            IOUtils.skip(inputStream, Long.MAX_VALUE);
+        } catch (final IOException e) {
+            // an error status; its body was read above
+        }
+    }
+
+    private String readErrorBody(final HttpURLConnection connection) {
+        try (InputStream errorStream = connection.getErrorStream()) {
+            return errorStream == null ? "" : IOUtils.toString(errorStream, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * blackduck-docker-inspector
+ *
+ * Copyright (c) 2019 Synopsys, Inc.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.synopsys.integration.blackduck.dockerinspector.registry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.synopsys.integration.blackduck.dockerinspector.cache.LayerStore;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarAssembler;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.exception.IntegrationException;
+
+/*
+ * Gets an image straight from its registry (Docker Registry HTTP API v2 / OCI distribution), with no docker daemon involved:
+ * the manifest, the config, and (in parallel) the layers, each verified against its digest. The tarfile handed to the
+ * image inspector is assembled from them in docker save format. Layers already in the layer store are not downloaded.
+ */
+@Component
+public class RegistryImagePuller {
+    private static final String DOCKER_HUB_REGISTRY = "registry-1.docker.io";
+    private static final String DOCKER_HUB_LIBRARY_PREFIX = "library/";
+    private static final String DIGEST_PREFIX = "sha256:";
+    private static final String MANIFEST_MEDIA_TYPES = String.join(",",
+        "application/vnd.docker.distribution.manifest.v2+json", "application/vnd.docker.distribution.manifest.list.v2+json",
+        "application/vnd.oci.image.manifest.v1+json", "application/vnd.oci.image.index.v1+json");
+    private static final String BLOB_MEDIA_TYPES = "*/*";
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private Config config;
+
+    @Autowired
+    private LayerStore layerStore;
+
+    @Autowired
+    private ImageTarAssembler imageTarAssembler;
+
+    @Autowired
+    private Gson gson;
+
+    // The image ID (the digest of the image config) and layer diffIDs, from the manifest and the (small) config; no layers are downloaded
+    public ImageTarMetadata getImageMetadata(final String imageRepo, final String imageTag) throws IntegrationException {
+        final String tag = StringUtils.isBlank(imageTag) ? "latest" : imageTag;
+        try {
+            final RegistryClient registryClient = createRegistryClient(imageRepo);
+            final String imageId = getImageManifest(registryClient, tag).getAsJsonObject("config").get("digest").getAsString();
+            return new ImageTarMetadata(imageId, getLayerDiffIds(getBlob(registryClient, imageId)), null, null);
+        } catch (final IOException e) {
+            throw new IntegrationException(String.format("Error getting the manifest of image %s:%s from its registry: %s", imageRepo, tag, e.getMessage()), e);
+        }
+    }
+
+    public File pullImageToFile(final String imageRepo, final String imageTag, final File imageTarFile) throws IntegrationException {
+        final String tag = StringUtils.isBlank(imageTag) ? "latest" : imageTag;
+        final RegistryClient registryClient = createRegistryClient(imageRepo);
+        logger.info(String.format("Pulling image %s:%s directly from its registry", imageRepo, tag));
+        final File scratchDir = new File(imageTarFile.getParentFile(), imageTarFile.getName() + ".blobs");
+        try {
+            final JsonObject manifest = getImageManifest(registryClient, tag);
+            final String imageId = manifest.getAsJsonObject("config").get("digest").getAsString();
+            final byte[] imageConfigBytes = getBlob(registryClient, imageId);
+            final List<String> layerDiffIds = getLayerDiffIds(imageConfigBytes);
+            final JsonArray layers = manifest.getAsJsonArray("layers");
+            if (layers.size() != layerDiffIds.size()) {
+                throw new IntegrationException(String.format("Image %s:%s has %d layers, but its config lists %d", imageRepo, tag, layers.size(), layerDiffIds.size()));
+            }
+            final Map<String, File> blobFiles = new HashMap<>();
+            if (layerStore.isEnabled()) {
+                layerStore.put(new ByteArrayInputStream(imageConfigBytes));
+            } else {
+                final File imageConfigFile = new File(scratchDir, toHex(imageId));
+                FileUtils.writeByteArrayToFile(imageConfigFile, imageConfigBytes);
+                blobFiles.put(imageId, imageConfigFile);
+            }
+            downloadLayers(registryClient, layers, layerDiffIds, scratchDir, blobFiles);
+            final String repoTag = String.format("%s:%s", imageRepo, tag);
+            if (layerStore.isEnabled()) {
+                imageTarAssembler.assemble(imageTarFile, imageId, layerDiffIds, repoTag);
+            } else {
+                imageTarAssembler.assemble(imageTarFile, imageId, layerDiffIds, repoTag, blobFiles);
+            }
+            logger.info(String.format("Pulled image %s (%s) to %s", repoTag, imageId, imageTarFile.getAbsolutePath()));
+            return imageTarFile;
+        } catch (final IOException e) {
+            throw new IntegrationException(String.format("Error pulling image %s:%s from its registry: %s", imageRepo, tag, e.getMessage()), e);
+        } finally {
+            FileUtils.deleteQuietly(scratchDir);
+        }
+    }
+
+    private List<String> getLayerDiffIds(final byte[] imageConfigBytes) {
+        final JsonObject imageConfig = gson.fromJson(new String(imageConfigBytes, StandardCharsets.UTF_8), JsonObject.class);
+        final List<String> layerDiffIds = new ArrayList<>();
+        for (final JsonElement diffId : imageConfig.getAsJsonObject("rootfs").getAsJsonArray("diff_ids")) {
+            layerDiffIds.add(diffId.getAsString());
+        }
+        return layerDiffIds;
+    }
+
+    // A manifest list / image index is resolved to the manifest for registry.platform
+    private JsonObject getImageManifest(final RegistryClient registryClient, final String reference) throws IOException, IntegrationException {
+        final JsonObject manifest = getJson(registryClient, String.format("manifests/%s", reference), MANIFEST_MEDIA_TYPES);
+        if (!manifest.has("manifests")) {
+            return manifest;
+        }
+        final String[] platform = config.getRegistryPlatform().split("/");
+        for (final JsonElement platformManifestElement : manifest.getAsJsonArray("manifests")) {
+            final JsonObject platformManifest = platformManifestElement.getAsJsonObject();
+            final JsonObject manifestPlatform = platformManifest.getAsJsonObject("platform");
+            if (manifestPlatform != null && platform[0].equals(manifestPlatform.get("os").getAsString())
+                    && (platform.length < 2 || platform[1].equals(manifestPlatform.get("architecture").getAsString()))) {
+                return getImageManifest(registryClient, platformManifest.get("digest").getAsString());
+            }
+        }
+        throw new IntegrationException(String.format("Image has no manifest for platform %s", config.getRegistryPlatform()));
+    }
+
+    private void downloadLayers(final RegistryClient registryClient, final JsonArray layers, final List<String> layerDiffIds, final File scratchDir, final Map<String, File> blobFiles)
+        throws IOException, IntegrationException {
+        final List<Integer> missingLayerIndices = new ArrayList<>();
+        final Set<String> missingDiffIds = new HashSet<>();
+        for (int layerIndex = 0; layerIndex < layerDiffIds.size(); layerIndex++) {
+            final String diffId = layerDiffIds.get(layerIndex);
+            if (layerStore.isEnabled() && layerStore.contains(diffId)) {
+                logger.debug(String.format("Layer %s is already in the layer store", diffId));
+            } else if (missingDiffIds.add(diffId)) {
+                missingLayerIndices.add(layerIndex);
+            }
+        }
+        logger.info(String.format("Downloading %d of %d layers", missingLayerIndices.size(), layerDiffIds.size()));
+        if (missingLayerIndices.isEmpty()) {
+            return;
+        }
+        scratchDir.mkdirs();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(config.getRegistryDownloadConcurrency(), missingLayerIndices.size())));
+        try {
+            final List<Future<File>> downloads = new ArrayList<>();
+            for (final int layerIndex : missingLayerIndices) {
+                final JsonObject layer = layers.get(layerIndex).getAsJsonObject();
+                downloads.add(executor.submit(() -> downloadLayer(registryClient, layer, layerDiffIds.get(layerIndex), scratchDir)));
+            }
+            for (int downloadIndex = 0; downloadIndex < downloads.size(); downloadIndex++) {
+                final File layerFile = downloads.get(downloadIndex).get();
+                if (layerFile != null) {
+                    blobFiles.put(layerDiffIds.get(missingLayerIndices.get(downloadIndex)), layerFile);
+                }
+            }
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IntegrationException) {
+                throw (IntegrationException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while downloading layers", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Returns the layer's file, or null if it went into the layer store
+    private File downloadLayer(final RegistryClient registryClient, final JsonObject layer, final String diffId, final File scratchDir) throws IOException, IntegrationException {
+        final String layerDigest = layer.get("digest").getAsString();
+        final String mediaType = layer.has("mediaType") ? layer.get("mediaType").getAsString() : "";
+        if (mediaType.contains("zstd")) {
+            throw new IntegrationException(String.format("Layer %s is zstd-compressed, which is not supported", layerDigest));
+        }
+        logger.debug(String.format("Downloading layer %s (%s)", layerDigest, mediaType));
+        final HttpURLConnection connection = registryClient.get(String.format("blobs/%s", layerDigest), BLOB_MEDIA_TYPES);
+        final MessageDigest compressedDigest = newMessageDigest();
+        try (InputStream blobInputStream = new DigestInputStream(new BufferedInputStream(connection.getInputStream()), compressedDigest)) {
+            final InputStream layerInputStream = mediaType.endsWith("gzip") ? new GZIPInputStream(blobInputStream, 64 * 1024) : blobInputStream;
+            final String actualDiffId;
+            File layerFile = null;
+            if (layerStore.isEnabled()) {
+                try (LayerStore.BlobWriter blobWriter = layerStore.newBlobWriter()) {
+                    IOUtils.copyLarge(layerInputStream, blobWriter);
+                    // Read to the end of the blob (past any gzip trailer) so the compressed digest covers all of it
+                    IOUtils.copyLarge(blobInputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+                    verifyDigest(layerDigest, compressedDigest);
+                    actualDiffId = blobWriter.commit();
+                }
+            } else {
+                layerFile = new File(scratchDir, toHex(diffId));
+                final MessageDigest uncompressedDigest = newMessageDigest();
+                try (OutputStream layerOutputStream = new DigestOutputStream(new FileOutputStream(layerFile), uncompressedDigest)) {
+                    IOUtils.copyLarge(layerInputStream, layerOutputStream);
+                }
+                IOUtils.copyLarge(blobInputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+                verifyDigest(layerDigest, compressedDigest);
+                actualDiffId = DIGEST_PREFIX + Hex.encodeHexString(uncompressedDigest.digest());
+            }
+            if (!diffId.equals(actualDiffId)) {
+                throw new IntegrationException(String.format("Layer %s uncompressed to %s, but the image config says %s", layerDigest, actualDiffId, diffId));
+            }
+            return layerFile;
+        }
+    }
+
+    private byte[] getBlob(final RegistryClient registryClient, final String digest) throws IOException, IntegrationException {
+        final HttpURLConnection connection = registryClient.get(String.format("blobs/%s", digest), BLOB_MEDIA_TYPES);
+        final byte[] blob;
+        try (InputStream blobInputStream = connection.getInputStream()) {
+            blob = IOUtils.toByteArray(blobInputStream);
+        }
+        final MessageDigest messageDigest = newMessageDigest();
+        messageDigest.update(blob);
+        verifyDigest(digest, messageDigest);
+        return blob;
+    }
+
+    private JsonObject getJson(final RegistryClient registryClient, final String path, final String accept) throws IOException, IntegrationException {
+        final HttpURLConnection connection = registryClient.get(path, accept);
+        try (InputStream jsonInputStream = connection.getInputStream()) {
+            return gson.fromJson(IOUtils.toString(jsonInputStream, StandardCharsets.UTF_8), JsonObject.class);
+        }
+    }
+
+    private void verifyDigest(final String expectedDigest, final MessageDigest messageDigest) throws IntegrationException {
+        final String actualDigest = DIGEST_PREFIX + Hex.encodeHexString(messageDigest.digest());
+        if (!expectedDigest.equals(actualDigest)) {
+            throw new IntegrationException(String.format("Downloaded blob %s has digest %s", expectedDigest, actualDigest));
+        }
+    }
+
+    private MessageDigest newMessageDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(String.format("Unable to compute digests: %s", e.getMessage()), e);
+        }
+    }
+
+    /*
+     * As docker does: the registry is the first component of the repo if it looks like a host name (contains a '.' or ':', or is localhost); otherwise
+     * it's Docker Hub, where single-component names are in library/. Registries on localhost are reached over http; all others over https.
+     */
+    private RegistryClient createRegistryClient(final String imageRepo) {
+        String registryHost = DOCKER_HUB_REGISTRY;
+        String repositoryName = imageRepo;
+        final int firstSlashIndex = imageRepo.indexOf('/');
+        if (firstSlashIndex > 0) {
+            final String firstComponent = imageRepo.substring(0, firstSlashIndex);
+            if (firstComponent.contains(".") || firstComponent.contains(":") || "localhost".equals(firstComponent.split(":")[0])) {
+                registryHost = "docker.io".equals(firstComponent) ? DOCKER_HUB_REGISTRY : firstComponent;
+                repositoryName = imageRepo.substring(firstSlashIndex + 1);
+            }
+        }
+        if (DOCKER_HUB_REGISTRY.equals(registryHost) && !repositoryName.contains("/")) {
+            repositoryName = DOCKER_HUB_LIBRARY_PREFIX + repositoryName;
+        }
+        final String hostName = registryHost.split(":")[0];
+        final String scheme = "localhost".equals(hostName) || "127.0.0.1".equals(hostName) ? "http" : "https";
+        logger.debug(String.format("Registry: %s://%s; repository: %s", scheme, registryHost, repositoryName));
+        return new RegistryClient(String.format("%s://%s", scheme, registryHost), repositoryName, config.getRegistryUsername(), config.getRegistryPassword(), gson);
+    }
+
+    private String toHex(final String digest) {
+        return digest.startsWith(DIGEST_PREFIX) ? digest.substring(DIGEST_PREFIX.length()) : digest;
+    }
+}
@@ -0,0 +1,76 @@
+package com.synopsys.integration.blackduck.dockerinspector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequestFactory;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class ImageInspectionRequestFactoryTest {
+
+    @InjectMocks
+    private ImageInspectionRequestFactory factory;
+
+    @Mock
+    private Config config;
+
+    @Test
+    public void testOverridesAndDefaults() throws IntegrationException {
+        Mockito.when(config.getBlackDuckProjectName()).thenReturn("configProject");
+        Mockito.when(config.getBlackDuckProjectVersion()).thenReturn("configVersion");
+        Mockito.when(config.getBlackDuckCodelocationName()).thenReturn("configCodeLocation");
+        Mockito.when(config.getBlackDuckCodelocationPrefix()).thenReturn("configPrefix");
+        Mockito.when(config.getDockerTar()).thenReturn("/tmp/config.tar");
+
+        final Map<String, String> overrides = new HashMap<>();
+        overrides.put("docker.tar", "/tmp/test.tar");
+        overrides.put("blackduck.project.version", "testVersion");
+        final ImageInspectionRequest request = factory.createFromConfigWithOverrides(overrides);
+
+        assertEquals("/tmp/test.tar", request.getDockerTar());
+        assertEquals("configProject", request.getBlackDuckProjectName());
+        assertEquals("testVersion", request.getBlackDuckProjectVersion());
+        assertNull(request.getBlackDuckCodelocationName());
+        assertEquals("configPrefix", request.getBlackDuckCodelocationPrefix());
+        assertEquals("/tmp/test.tar", request.getTargetDescription());
+    }
+
+    @Test
+    public void testNoImage() {
+        final Map<String, String> overrides = new HashMap<>();
+        overrides.put("blackduck.project.name", "testProject");
+        try {
+            factory.createFromConfigWithOverrides(overrides);
+            fail("Expected exception");
+        } catch (final IntegrationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnsupportedProperty() {
+        final Map<String, String> overrides = new HashMap<>();
+        overrides.put("docker.tar", "/tmp/test.tar");
+        overrides.put("blackduck.url", "https://blackduck.mydomain.com");
+        try {
+            factory.createFromConfigWithOverrides(overrides);
+            fail("Expected exception");
+        } catch (final IntegrationException e) {
+            // expected
+        }
+    }
+}
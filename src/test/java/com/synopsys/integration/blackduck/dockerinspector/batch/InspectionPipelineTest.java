@@ -0,0 +1,85 @@
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.ImageInspection;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class InspectionPipelineTest {
+
+    @InjectMocks
+    private InspectionPipeline pipeline;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Mock
+    private HttpClientInspector inspector;
+
+    @Test
+    public void testResultsInOrderWithFailureIsolated() throws IntegrationException {
+        Mockito.when(config.getBatchConcurrency()).thenReturn(2);
+        Mockito.when(config.getBatchPrepareConcurrency()).thenReturn(2);
+        Mockito.when(config.getBatchPrepareAhead()).thenReturn(1);
+        Mockito.when(config.getBatchUploadConcurrency()).thenReturn(1);
+        Mockito.when(programPaths.getDockerInspectorTargetDirPath()).thenReturn("build/test/pipeline");
+        final ImageInspectionRequest goodRequest1 = createRequest("alpine:latest");
+        final ImageInspectionRequest badRequest = createRequest("bad:latest");
+        final ImageInspectionRequest goodRequest2 = createRequest("ubuntu:latest");
+
+        Mockito.when(inspector.prepare(Mockito.any(ImageInspectionRequest.class), Mockito.any(File.class))).thenAnswer(invocation -> {
+            final ImageInspectionRequest request = (ImageInspectionRequest) invocation.getArguments()[0];
+            if (request == badRequest) {
+                throw new IntegrationException("pull failed");
+            }
+            return new ImageInspection(request, (File) invocation.getArguments()[1]);
+        });
+        Mockito.doAnswer(invocation -> {
+            final ImageInspection inspection = (ImageInspection) invocation.getArguments()[0];
+            inspection.setBdioFile(new File(inspection.getTargetDir(), "test_bdio.jsonld"));
+            return null;
+        }).when(inspector).inspectPrepared(Mockito.any(ImageInspection.class));
+        Mockito.when(inspector.toResult(Mockito.any(ImageInspection.class))).thenAnswer(invocation -> {
+            final ImageInspection inspection = (ImageInspection) invocation.getArguments()[0];
+            return new Result(true, "succeeded", null, null, null, inspection.getRequest().getDockerImage(), null);
+        });
+
+        final List<Result> results = pipeline.inspectImages(Arrays.asList(goodRequest1, badRequest, goodRequest2));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSucceeded());
+        assertEquals("alpine:latest", results.get(0).getDockerTarfilename());
+        assertFalse(results.get(1).isSucceeded());
+        assertTrue(results.get(1).getMessage().contains("pull failed"));
+        assertTrue(results.get(2).isSucceeded());
+        assertEquals("ubuntu:latest", results.get(2).getDockerTarfilename());
+        Mockito.verify(inspector, Mockito.times(2)).inspectPrepared(Mockito.any(ImageInspection.class));
+        Mockito.verify(inspector, Mockito.times(2)).upload(Mockito.any(ImageInspection.class));
+    }
+
+    private ImageInspectionRequest createRequest(final String image) {
+        return new ImageInspectionRequest(image, null, null, null, null, null, null, null, null, null);
+    }
+}
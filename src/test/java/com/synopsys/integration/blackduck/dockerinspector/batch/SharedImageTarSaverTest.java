@@ -0,0 +1,136 @@
+package com.synopsys.integration.blackduck.dockerinspector.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetrics;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.TransferMetricsCollector;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.dockerinspector.registry.RegistryImagePuller;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class SharedImageTarSaverTest {
+
+    @InjectMocks
+    private SharedImageTarSaver sharedImageTarSaver;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Mock
+    private DockerClientManager dockerClientManager;
+
+    @Mock
+    private RegistryImagePuller registryImagePuller;
+
+    @Mock
+    private TransferMetricsCollector transferMetricsCollector;
+
+    @Test
+    public void testImagesWithSharedBaseLayerSavedTogether() throws IOException {
+        Mockito.when(config.isBatchSaveShared()).thenReturn(true);
+        Mockito.when(config.isOfflineMode()).thenReturn(true);
+        Mockito.when(programPaths.getDockerInspectorSharedImageTarDirPath()).thenReturn("build/test/sharedImageTarSaver/");
+        mockImage("service1:1.0", "sha256:alpine", "sha256:service1");
+        mockImage("service2:1.0", "sha256:alpine", "sha256:service2");
+        mockImage("tool:2.0", "sha256:ubuntu", "sha256:tool");
+        final ImageInspectionRequest service1Request = createRequest("service1", "1.0");
+        final ImageInspectionRequest service2Request = createRequest("service2", "1.0");
+        final ImageInspectionRequest toolRequest = createRequest("tool", "2.0");
+
+        final List<ImageInspectionRequest> requests = sharedImageTarSaver.saveSharedImageTars(Arrays.asList(service1Request, service2Request, toolRequest));
+
+        final File sharedImageTarFile = new File("build/test/sharedImageTarSaver/", "shared1.tar");
+        Mockito.verify(dockerClientManager).saveImagesToFile(Arrays.asList("service1:1.0", "service2:1.0"), sharedImageTarFile);
+        Mockito.verify(dockerClientManager, Mockito.times(1)).saveImagesToFile(Mockito.anyListOf(String.class), Mockito.any(File.class));
+        assertEquals(sharedImageTarFile.getAbsolutePath(), requests.get(0).getDockerTar());
+        assertEquals("service1", requests.get(0).getDockerImageRepo());
+        assertEquals("1.0", requests.get(0).getDockerImageTag());
+        assertEquals("service1-project", requests.get(0).getBlackDuckProjectName());
+        assertEquals(sharedImageTarFile.getAbsolutePath(), requests.get(1).getDockerTar());
+        assertEquals("service2", requests.get(1).getDockerImageRepo());
+        assertEquals(toolRequest, requests.get(2));
+    }
+
+    @Test
+    public void testSharedSaveMetricsGoWithEachImageInGroup() throws IOException {
+        Mockito.when(config.isBatchSaveShared()).thenReturn(true);
+        Mockito.when(config.isOfflineMode()).thenReturn(true);
+        Mockito.when(programPaths.getDockerInspectorSharedImageTarDirPath()).thenReturn("build/test/sharedImageTarSaver/");
+        mockImage("service1:1.0", "sha256:alpine", "sha256:service1");
+        mockImage("service2:1.0", "sha256:alpine", "sha256:service2");
+        final List<TransferMetrics> groupTransferMetrics = Collections.singletonList(new TransferMetrics(TransferMetrics.OPERATION_SAVE, "service1:1.0,service2:1.0"));
+        Mockito.when(transferMetricsCollector.finish()).thenReturn(groupTransferMetrics);
+
+        final List<ImageInspectionRequest> requests = sharedImageTarSaver.saveSharedImageTars(Arrays.asList(createRequest("service1", "1.0"), createRequest("service2", "1.0")));
+
+        Mockito.verify(transferMetricsCollector).start();
+        assertEquals(groupTransferMetrics, requests.get(0).getTransferMetrics());
+        assertEquals(groupTransferMetrics, requests.get(1).getTransferMetrics());
+    }
+
+    @Test
+    public void testFailedSharedSaveLeavesRequests() throws IOException {
+        Mockito.when(config.isBatchSaveShared()).thenReturn(true);
+        Mockito.when(config.isOfflineMode()).thenReturn(true);
+        Mockito.when(programPaths.getDockerInspectorSharedImageTarDirPath()).thenReturn("build/test/sharedImageTarSaver/");
+        mockImage("service1:1.0", "sha256:alpine", "sha256:service1");
+        mockImage("service2:1.0", "sha256:alpine", "sha256:service2");
+        Mockito.doThrow(new IOException("daemon error")).when(dockerClientManager).saveImagesToFile(Mockito.anyListOf(String.class), Mockito.any(File.class));
+
+        final List<ImageInspectionRequest> requests = sharedImageTarSaver.saveSharedImageTars(Arrays.asList(createRequest("service1", "1.0"), createRequest("service2", "1.0")));
+
+        assertNull(requests.get(0).getDockerTar());
+        assertNull(requests.get(1).getDockerTar());
+    }
+
+    @Test
+    public void testOnlyGroupedImagesPulledAndRemoved() throws IOException, IntegrationException {
+        Mockito.when(config.isBatchSaveShared()).thenReturn(true);
+        Mockito.when(config.isCleanupTargetImage()).thenReturn(true);
+        Mockito.when(programPaths.getDockerInspectorSharedImageTarDirPath()).thenReturn("build/test/sharedImageTarSaver/");
+        mockImage("service1:1.0", "sha256:alpine", "sha256:service1");
+        mockImage("service2:1.0", "sha256:alpine", "sha256:service2");
+        mockImage("tool:2.0", "sha256:ubuntu", "sha256:tool");
+        Mockito.when(dockerClientManager.pullImage(Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> String.format("id_%s", invocation.getArguments()[0]));
+
+        sharedImageTarSaver.saveSharedImageTars(Arrays.asList(createRequest("service1", "1.0"), createRequest("tool", "2.0"), createRequest("service2", "1.0")));
+
+        Mockito.verify(dockerClientManager).pullImage("service1", "1.0");
+        Mockito.verify(dockerClientManager).pullImage("service2", "1.0");
+        Mockito.verify(dockerClientManager, Mockito.never()).pullImage("tool", "2.0");
+        Mockito.verify(dockerClientManager).cleanUpImage("id_service1");
+        Mockito.verify(dockerClientManager).cleanUpImage("id_service2");
+        Mockito.verify(dockerClientManager, Mockito.times(2)).cleanUpImage(Mockito.anyString());
+    }
+
+    private void mockImage(final String repoTag, final String... layerDiffIds) {
+        Mockito.when(dockerClientManager.getLocalImageMetadata(repoTag)).thenReturn(Optional.of(new ImageTarMetadata("sha256:" + repoTag.hashCode(), Arrays.asList(layerDiffIds), null, null)));
+    }
+
+    private ImageInspectionRequest createRequest(final String repo, final String tag) {
+        return new ImageInspectionRequest(String.format("%s:%s", repo, tag), null, null, repo, tag, null, repo + "-project", "1", null, null);
+    }
+}
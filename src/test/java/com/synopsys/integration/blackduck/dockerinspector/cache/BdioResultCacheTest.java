@@ -0,0 +1,78 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+@RunWith(SpringRunner.class)
+public class BdioResultCacheTest {
+    private static final File CACHE_DIR = new File("build/test/bdioResultCache");
+    private static final String INSPECTOR_IMAGE = "blackducksoftware/blackduck-imageinspector-alpine:4.4.0";
+
+    @InjectMocks
+    private BdioResultCache bdioResultCache;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(bdioResultCache, "gson", new Gson());
+        FileUtils.deleteQuietly(CACHE_DIR);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(CACHE_DIR);
+    }
+
+    @Test
+    public void testPutGet() throws IOException {
+        final String key = bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, false, null, INSPECTOR_IMAGE);
+        final File retrievedBdioFile = new File(CACHE_DIR, "run/retrieved.jsonld");
+        assertFalse(bdioResultCache.get(key, retrievedBdioFile).isPresent());
+
+        final File bdioFile = new File(CACHE_DIR, "run/bdio.jsonld");
+        FileUtils.writeStringToFile(bdioFile, "[{\"@id\":\"bdio\"}]", StandardCharsets.UTF_8);
+        bdioResultCache.put(key, bdioFile);
+
+        assertEquals(retrievedBdioFile, bdioResultCache.get(key, retrievedBdioFile).get());
+        assertEquals("[{\"@id\":\"bdio\"}]", FileUtils.readFileToString(retrievedBdioFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testKeyCoversImageAndOptions() {
+        final String key = bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, false, null, INSPECTOR_IMAGE);
+
+        assertEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, false, null, INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:2222", "alpine", "latest", false, false, null, INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "3.9", false, false, null, INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", true, false, null, INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, true, null, INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, false, "sha256:3333", INSPECTOR_IMAGE));
+        assertNotEquals(key, bdioResultCache.deriveKey("sha256:1111", "alpine", "latest", false, false, null, "blackducksoftware/blackduck-imageinspector-alpine:4.5.0"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.TarfileHandoff;
+
+@RunWith(SpringRunner.class)
+public class ImageTarCacheTest {
+    private static final File TEST_DIR = new File("build/test/imageTarCache");
+    private static final File CACHE_DIR = new File(TEST_DIR, "cache");
+    private static final int TARFILE_SIZE = 600 * 1024;
+    private static final String REPO_TAG = "alpine:latest";
+
+    @InjectMocks
+    private ImageTarCache imageTarCache;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(imageTarCache, "gson", new Gson());
+        ReflectionTestUtils.setField(imageTarCache, "tarfileHandoff", new TarfileHandoff());
+        FileUtils.deleteQuietly(TEST_DIR);
+        Mockito.when(config.getImageTarCacheSizeMb()).thenReturn(2L);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(TEST_DIR);
+    }
+
+    @Test
+    public void testCachedTarfileIsReturned() throws IOException {
+        final File savedTarfile = createTarfile("saved.tar", 1);
+        imageTarCache.put("sha256:1111", REPO_TAG, savedTarfile);
+        // The run's tarfile is deleted (or moved) once it has been inspected
+        savedTarfile.delete();
+
+        final File imageTarFile = new File(TEST_DIR, "run/image.tar");
+        assertTrue(imageTarCache.get("sha256:1111", REPO_TAG, imageTarFile));
+
+        assertArrayEquals(createContent(1), FileUtils.readFileToByteArray(imageTarFile));
+        assertFalse(imageTarCache.get("sha256:2222", REPO_TAG, new File(TEST_DIR, "run/other.tar")));
+        assertFalse(imageTarCache.get("sha256:1111", "alpine:other", new File(TEST_DIR, "run/other.tar")));
+    }
+
+    @Test
+    public void testCorruptTarfileIsDiscarded() throws IOException {
+        imageTarCache.put("sha256:1111", REPO_TAG, createTarfile("saved.tar", 1));
+        final File cachedTarfile = new File(CACHE_DIR, "imageTars/1111.tar");
+        final byte[] corruptContent = createContent(1);
+        corruptContent[100]++;
+        FileUtils.writeByteArrayToFile(cachedTarfile, corruptContent);
+
+        assertFalse(imageTarCache.get("sha256:1111", REPO_TAG, new File(TEST_DIR, "run/image.tar")));
+        assertFalse(cachedTarfile.exists());
+    }
+
+    @Test
+    public void testDigestCheckedOnlyWhenFileChangesOrRequested() throws IOException {
+        imageTarCache.put("sha256:1111", REPO_TAG, createTarfile("saved.tar", 1));
+        final File cachedTarfile = new File(CACHE_DIR, "imageTars/1111.tar");
+        final FileTime cachedModifiedTime = Files.getLastModifiedTime(cachedTarfile.toPath());
+        final byte[] corruptContent = createContent(1);
+        corruptContent[100]++;
+        FileUtils.writeByteArrayToFile(cachedTarfile, corruptContent);
+        // Same size, same inode, and modification time restored: undetectable without the digest
+        Files.setLastModifiedTime(cachedTarfile.toPath(), cachedModifiedTime);
+
+        assertTrue(imageTarCache.get("sha256:1111", REPO_TAG, new File(TEST_DIR, "run/image.tar")));
+
+        Mockito.when(config.isImageTarCacheVerify()).thenReturn(true);
+        assertFalse(imageTarCache.get("sha256:1111", REPO_TAG, new File(TEST_DIR, "run/image2.tar")));
+        assertFalse(cachedTarfile.exists());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException, InterruptedException {
+        // Three tarfiles fit in the 2 MB cache
+        putAndPause("sha256:1111", 1);
+        putAndPause("sha256:2222", 2);
+        putAndPause("sha256:3333", 3);
+        imageTarCache.get("sha256:1111", REPO_TAG, new File(TEST_DIR, "run/image.tar"));
+        Thread.sleep(5L);
+
+        putAndPause("sha256:4444", 4);
+
+        assertTrue(new File(CACHE_DIR, "imageTars/1111.tar").exists());
+        assertFalse(new File(CACHE_DIR, "imageTars/2222.tar").exists());
+        assertTrue(new File(CACHE_DIR, "imageTars/3333.tar").exists());
+        assertTrue(new File(CACHE_DIR, "imageTars/4444.tar").exists());
+    }
+
+    private void putAndPause(final String imageId, final int seed) throws IOException, InterruptedException {
+        imageTarCache.put(imageId, REPO_TAG, createTarfile(String.format("saved%d.tar", seed), seed));
+        Thread.sleep(5L);
+    }
+
+    private File createTarfile(final String filename, final int seed) throws IOException {
+        final File tarfile = new File(TEST_DIR, filename);
+        FileUtils.writeByteArrayToFile(tarfile, createContent(seed));
+        return tarfile;
+    }
+
+    private byte[] createContent(final int seed) {
+        final byte[] content = new byte[TARFILE_SIZE];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * seed);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,79 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+
+@RunWith(SpringRunner.class)
+public class InspectorOsCacheTest {
+    private static final File CACHE_DIR = new File("build/test/inspectorOsCache");
+
+    @InjectMocks
+    private InspectorOsCache inspectorOsCache;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    private final Gson gson = new Gson();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(inspectorOsCache, "gson", gson);
+        FileUtils.deleteQuietly(CACHE_DIR);
+        Mockito.when(config.isImageInspectorDistroCache()).thenReturn(true);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(CACHE_DIR);
+    }
+
+    @Test
+    public void testLookupByImageAndBaseLayer() {
+        final ImageTarMetadata alpineImage = new ImageTarMetadata("sha256:image1", Arrays.asList("sha256:alpineBase", "sha256:app1"), null, null);
+        final ImageTarMetadata siblingImage = new ImageTarMetadata("sha256:image2", Arrays.asList("sha256:alpineBase", "sha256:app2"), null, null);
+        final ImageTarMetadata unrelatedImage = new ImageTarMetadata("sha256:image3", Arrays.asList("sha256:otherBase"), null, null);
+        assertFalse(inspectorOsCache.lookup(alpineImage).isPresent());
+
+        inspectorOsCache.store(alpineImage, ImageInspectorOsEnum.ALPINE);
+
+        assertEquals(ImageInspectorOsEnum.ALPINE, inspectorOsCache.lookup(alpineImage).get());
+        assertEquals(ImageInspectorOsEnum.ALPINE, inspectorOsCache.lookup(siblingImage).get());
+        assertFalse(inspectorOsCache.lookup(unrelatedImage).isPresent());
+    }
+
+    @Test
+    public void testPersistedAcrossInstances() {
+        final ImageTarMetadata image = new ImageTarMetadata("sha256:image1", Arrays.asList("sha256:centosBase"), null, null);
+        inspectorOsCache.store(image, ImageInspectorOsEnum.CENTOS);
+
+        final InspectorOsCache secondRunCache = new InspectorOsCache();
+        ReflectionTestUtils.setField(secondRunCache, "config", config);
+        ReflectionTestUtils.setField(secondRunCache, "programPaths", programPaths);
+        ReflectionTestUtils.setField(secondRunCache, "gson", gson);
+        assertEquals(ImageInspectorOsEnum.CENTOS, secondRunCache.lookup(image).get());
+    }
+}
@@ -0,0 +1,96 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+@RunWith(SpringRunner.class)
+public class LayerStoreTest {
+    private static final File CACHE_DIR = new File("build/test/layerStore");
+    private static final int BLOB_SIZE = 600 * 1024;
+
+    @InjectMocks
+    private LayerStore layerStore;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(layerStore, "gson", new Gson());
+        FileUtils.deleteQuietly(CACHE_DIR);
+        Mockito.when(config.getLayerStoreSizeMb()).thenReturn(2L);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(CACHE_DIR);
+    }
+
+    @Test
+    public void testPutIsContentAddressed() throws IOException {
+        final byte[] content = createBlob(1);
+
+        final String digest = layerStore.put(new ByteArrayInputStream(content));
+
+        assertEquals("sha256:" + DigestUtils.sha256Hex(content), digest);
+        assertTrue(layerStore.contains(digest));
+        assertEquals(digest, layerStore.put(new ByteArrayInputStream(content)));
+        assertEquals(BLOB_SIZE, layerStore.get(digest).get().length());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException, InterruptedException {
+        // Three blobs fit in the 2 MB store
+        final String firstDigest = putAndPause(1);
+        final String secondDigest = putAndPause(2);
+        final String thirdDigest = putAndPause(3);
+        layerStore.get(firstDigest);
+        Thread.sleep(5L);
+
+        final String fourthDigest = putAndPause(4);
+
+        assertTrue(layerStore.contains(firstDigest));
+        assertFalse(layerStore.contains(secondDigest));
+        assertTrue(layerStore.contains(thirdDigest));
+        assertTrue(layerStore.contains(fourthDigest));
+    }
+
+    private String putAndPause(final int seed) throws IOException, InterruptedException {
+        final String digest = layerStore.put(new ByteArrayInputStream(createBlob(seed)));
+        Thread.sleep(5L);
+        return digest;
+    }
+
+    private byte[] createBlob(final int seed) {
+        final byte[] blob = new byte[BLOB_SIZE];
+        for (int i = 0; i < blob.length; i++) {
+            blob[i] = (byte) (i * seed);
+        }
+        return blob;
+    }
+}
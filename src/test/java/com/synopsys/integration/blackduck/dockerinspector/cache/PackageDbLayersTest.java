@@ -0,0 +1,71 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+@RunWith(SpringRunner.class)
+public class PackageDbLayersTest {
+    private static final File CACHE_DIR = new File("build/test/packageDbLayers");
+    private static final List<String> BUILD1_LAYERS = Arrays.asList("sha256:base", "sha256:packages", "sha256:app1");
+    private static final List<String> BUILD2_LAYERS = Arrays.asList("sha256:base", "sha256:packages", "sha256:app2");
+
+    @InjectMocks
+    private PackageDbLayers packageDbLayers;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(packageDbLayers, "gson", new Gson());
+        FileUtils.deleteQuietly(CACHE_DIR);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(CACHE_DIR);
+    }
+
+    @Test
+    public void testApplicationLayerIsNotPartOfPackageChain() {
+        packageDbLayers.record(BUILD1_LAYERS, Collections.singleton("sha256:packages"));
+        assertFalse(packageDbLayers.derivePackageChainId(BUILD2_LAYERS, null).isPresent());
+
+        packageDbLayers.record(Collections.singletonList("sha256:app2"), Collections.emptySet());
+
+        final String packageChainId = packageDbLayers.derivePackageChainId(BUILD2_LAYERS, null).get();
+        assertEquals(packageDbLayers.derivePackageChainId(BUILD1_LAYERS, null).get(), packageChainId);
+        assertEquals("sha256:" + DigestUtils.sha256Hex("sha256:base sha256:packages"), packageChainId);
+        assertNotEquals(packageChainId, packageDbLayers.derivePackageChainId(BUILD1_LAYERS, Collections.singleton("sha256:app1"), null).get());
+    }
+
+    @Test
+    public void testPlatformTopLayerAbovePackageChain() {
+        final String packageChainId = packageDbLayers.derivePackageChainId(BUILD1_LAYERS, Collections.singleton("sha256:packages"), "sha256:base").get();
+
+        assertEquals("sha256:" + DigestUtils.sha256Hex("sha256:base sha256:packages"), packageChainId);
+        assertFalse(packageDbLayers.derivePackageChainId(BUILD1_LAYERS, Collections.singleton("sha256:packages"), "sha256:app1").isPresent());
+    }
+}
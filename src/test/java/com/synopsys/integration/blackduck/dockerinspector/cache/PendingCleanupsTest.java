@@ -0,0 +1,99 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.cache.PendingCleanups.PendingCleanup;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+
+@RunWith(SpringRunner.class)
+public class PendingCleanupsTest {
+    private static final String CACHE_DIR = "build/test/pendingCleanups/cache";
+
+    @InjectMocks
+    private PendingCleanups pendingCleanups;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(new File(CACHE_DIR));
+    }
+
+    @Test
+    public void testCompletedCleanupIsNotAbandoned() {
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR);
+        ReflectionTestUtils.setField(pendingCleanups, "gson", new Gson());
+
+        final PendingCleanup containerCleanup = pendingCleanups.add(PendingCleanups.TYPE_CONTAINER, "container1");
+        pendingCleanups.add(PendingCleanups.TYPE_IMAGE, "image1");
+        pendingCleanups.remove(containerCleanup);
+
+        // A later run (the record is shared through the cache dir) finishes what was left
+        final PendingCleanups laterRunPendingCleanups = new PendingCleanups();
+        ReflectionTestUtils.setField(laterRunPendingCleanups, "programPaths", programPaths);
+        ReflectionTestUtils.setField(laterRunPendingCleanups, "gson", new Gson());
+        final List<PendingCleanup> abandonedCleanups = laterRunPendingCleanups.takeAbandoned(0L);
+
+        assertEquals(1, abandonedCleanups.size());
+        assertEquals(PendingCleanups.TYPE_IMAGE, abandonedCleanups.get(0).getType());
+        assertEquals("image1", abandonedCleanups.get(0).getId());
+        assertTrue(laterRunPendingCleanups.takeAbandoned(0L).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentRunsDoNotLoseCleanups() throws InterruptedException {
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR);
+        ReflectionTestUtils.setField(pendingCleanups, "gson", new Gson());
+        // Stands in for another run; its synchronized methods don't exclude this one's
+        final PendingCleanups otherRunPendingCleanups = new PendingCleanups();
+        ReflectionTestUtils.setField(otherRunPendingCleanups, "programPaths", programPaths);
+        ReflectionTestUtils.setField(otherRunPendingCleanups, "gson", new Gson());
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int threadIndex = 0; threadIndex < 8; threadIndex++) {
+            final PendingCleanups runPendingCleanups = threadIndex % 2 == 0 ? pendingCleanups : otherRunPendingCleanups;
+            final String idPrefix = String.format("container%d_", threadIndex);
+            threads.add(new Thread(() -> {
+                for (int cleanupIndex = 0; cleanupIndex < 10; cleanupIndex++) {
+                    runPendingCleanups.add(PendingCleanups.TYPE_CONTAINER, idPrefix + cleanupIndex);
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80, pendingCleanups.takeAbandoned(0L).size());
+    }
+
+    @Test
+    public void testRecentCleanupLeftToItsRun() {
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(CACHE_DIR);
+        ReflectionTestUtils.setField(pendingCleanups, "gson", new Gson());
+
+        pendingCleanups.add(PendingCleanups.TYPE_CONTAINER, "container1");
+
+        assertTrue(pendingCleanups.takeAbandoned(60000L).isEmpty());
+        assertEquals(1, pendingCleanups.takeAbandoned(0L).size());
+    }
+}
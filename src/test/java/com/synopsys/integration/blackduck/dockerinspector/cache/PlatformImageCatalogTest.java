@@ -0,0 +1,73 @@
+package com.synopsys.integration.blackduck.dockerinspector.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class PlatformImageCatalogTest {
+    private static final File TEST_DIR = new File("build/test/platformImageCatalog");
+
+    @InjectMocks
+    private PlatformImageCatalog platformImageCatalog;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ProgramPaths programPaths;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(platformImageCatalog, "gson", new Gson());
+        FileUtils.deleteQuietly(TEST_DIR);
+        Mockito.when(config.getPlatformImageCatalogImport()).thenReturn("");
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(new File(TEST_DIR, "cache").getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(TEST_DIR);
+    }
+
+    @Test
+    public void testLongestPlatformImageWins() throws IntegrationException {
+        platformImageCatalog.add("ubuntu:18.04", Arrays.asList("sha256:ubuntu"));
+        platformImageCatalog.add("company/base:1", Arrays.asList("sha256:ubuntu", "sha256:companyCerts", "sha256:companyJre"));
+        platformImageCatalog.add("other/base:1", Arrays.asList("sha256:ubuntu", "sha256:otherTools"));
+
+        assertEquals("sha256:companyJre", platformImageCatalog.findPlatformTopLayerId(Arrays.asList("sha256:ubuntu", "sha256:companyCerts", "sha256:companyJre", "sha256:app")).get());
+        assertEquals("sha256:ubuntu", platformImageCatalog.findPlatformTopLayerId(Arrays.asList("sha256:ubuntu", "sha256:companyCerts", "sha256:app")).get());
+        // A platform image is not its own platform
+        assertEquals("sha256:ubuntu", platformImageCatalog.findPlatformTopLayerId(Arrays.asList("sha256:ubuntu", "sha256:otherTools")).get());
+        assertFalse(platformImageCatalog.findPlatformTopLayerId(Arrays.asList("sha256:alpine", "sha256:app")).isPresent());
+    }
+
+    @Test
+    public void testImport() throws IOException, IntegrationException {
+        final File importFile = new File(TEST_DIR, "platformImages.json");
+        FileUtils.write(importFile, "[{\"image\":\"company/base:1\",\"layerDiffIds\":[\"sha256:ubuntu\",\"sha256:companyJre\"]}]", "UTF-8");
+        Mockito.when(config.getPlatformImageCatalogImport()).thenReturn(importFile.getAbsolutePath());
+
+        assertEquals("sha256:companyJre", platformImageCatalog.findPlatformTopLayerId(Arrays.asList("sha256:ubuntu", "sha256:companyJre", "sha256:app")).get());
+    }
+}
@@ -0,0 +1,121 @@
+package com.synopsys.integration.blackduck.dockerinspector.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequestFactory;
+import com.synopsys.integration.blackduck.dockerinspector.httpclient.HttpClientInspector;
+import com.synopsys.integration.blackduck.dockerinspector.output.Result;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class InspectionJobManagerTest {
+
+    @InjectMocks
+    private InspectionJobManager jobManager;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ImageInspectionRequestFactory imageInspectionRequestFactory;
+
+    @Mock
+    private HttpClientInspector inspector;
+
+    private final CountDownLatch inspectionStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseInspection = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        releaseInspection.countDown();
+        jobManager.stop();
+    }
+
+    @Test
+    public void testQueueFullAndCancel() throws IntegrationException, InterruptedException {
+        Mockito.when(config.getDaemonConcurrency()).thenReturn(1);
+        Mockito.when(config.getDaemonQueueSize()).thenReturn(1);
+        final ImageInspectionRequest request = new ImageInspectionRequest("alpine:latest", null, null, "alpine", "latest", null, null, null, null, null);
+        Mockito.when(imageInspectionRequestFactory.createFromConfigWithOverrides(Mockito.anyMapOf(String.class, String.class))).thenReturn(request);
+        Mockito.when(inspector.inspectTolerantly(Mockito.any(ImageInspectionRequest.class), Mockito.anyString(), Mockito.any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            inspectionStarted.countDown();
+            releaseInspection.await();
+            return new Result(true, "succeeded", null, null, null, null, null);
+        });
+        jobManager.start();
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("docker.image", "alpine:latest");
+
+        final InspectionJob runningJob = jobManager.submit(properties);
+        assertTrue(inspectionStarted.await(10, TimeUnit.SECONDS));
+        final InspectionJob queuedJob = jobManager.submit(properties);
+        try {
+            jobManager.submit(properties);
+            fail("Expected the third job to be rejected");
+        } catch (final RejectedExecutionException e) {
+            // expected
+        }
+
+        jobManager.cancel(queuedJob.getId());
+        assertEquals(InspectionJobStatus.CANCELLED, queuedJob.getStatus());
+        assertEquals(0, jobManager.getQueuedJobCount());
+
+        releaseInspection.countDown();
+        for (int i = 0; i < 100 && !runningJob.getStatus().isFinished(); i++) {
+            Thread.sleep(100L);
+        }
+        assertEquals(InspectionJobStatus.SUCCEEDED, runningJob.getStatus());
+        assertEquals(InspectionJobStatus.CANCELLED, jobManager.getJob(queuedJob.getId()).get().getStatus());
+    }
+
+    @Test
+    public void testCancelRunningJob() throws IntegrationException, InterruptedException {
+        Mockito.when(config.getDaemonConcurrency()).thenReturn(1);
+        Mockito.when(config.getDaemonQueueSize()).thenReturn(1);
+        final ImageInspectionRequest request = new ImageInspectionRequest("alpine:latest", null, null, "alpine", "latest", null, null, null, null, null);
+        Mockito.when(imageInspectionRequestFactory.createFromConfigWithOverrides(Mockito.anyMapOf(String.class, String.class))).thenReturn(request);
+        final CountDownLatch inspectionChecked = new CountDownLatch(1);
+        final boolean[] cancelledSeen = new boolean[1];
+        Mockito.when(inspector.inspectTolerantly(Mockito.any(ImageInspectionRequest.class), Mockito.anyString(), Mockito.any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            inspectionStarted.countDown();
+            try {
+                releaseInspection.await();
+            } catch (final InterruptedException e) {
+                // cancel() interrupts the worker
+            }
+            cancelledSeen[0] = ((BooleanSupplier) invocation.getArguments()[2]).getAsBoolean();
+            inspectionChecked.countDown();
+            return new Result(false, "cancelled", null, null, null, null, null);
+        });
+        jobManager.start();
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("docker.image", "alpine:latest");
+
+        final InspectionJob runningJob = jobManager.submit(properties);
+        assertTrue(inspectionStarted.await(10, TimeUnit.SECONDS));
+        jobManager.cancel(runningJob.getId());
+
+        assertTrue(inspectionChecked.await(10, TimeUnit.SECONDS));
+        assertTrue(cancelledSeen[0]);
+        assertEquals(InspectionJobStatus.CANCELLED, runningJob.getStatus());
+    }
+}
@@ -0,0 +1,32 @@
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class ContainerLogWatchTest {
+    private static final Pattern STARTED_PATTERN = Pattern.compile("Started \\S+ in [0-9.]+ seconds");
+
+    @Test
+    public void testLineSplitAcrossFrames() throws InterruptedException {
+        final ContainerLogWatch logWatch = new ContainerLogWatch(STARTED_PATTERN);
+        logWatch.accept("2019-05-01 INFO Starting ImageInspectorWsApplication\n2019-05-01 INFO Started ImageInspec");
+        assertFalse(logWatch.awaitLine(10L));
+        logWatch.accept("torWsApplication in 0.812 seconds (JVM running for 1.2)\n");
+        assertTrue(logWatch.awaitLine(0L));
+        logWatch.close();
+    }
+
+    @Test
+    public void testNoMatch() throws InterruptedException {
+        final ContainerLogWatch logWatch = new ContainerLogWatch(STARTED_PATTERN);
+        logWatch.accept("2019-05-01 INFO Starting ImageInspectorWsApplication\n");
+        // Not a complete line yet
+        logWatch.accept("Started ImageInspectorWsApplication in 0.8 seconds");
+        assertFalse(logWatch.isLineSeen());
+        logWatch.close();
+    }
+}
@@ -0,0 +1,39 @@
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class ContainerResourceProfileTest {
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    @Test
+    public void testFixedProfiles() {
+        final ContainerResourceProfile small = ContainerResourceProfile.resolve("small", 0, 0L, 1).get();
+        assertEquals(1.0, small.getCpus(), 0.0);
+        assertEquals(1024L, small.getMemoryMb());
+        assertEquals("-Xmx768m -XX:+UseSerialGC", small.getJvmOptions());
+
+        final ContainerResourceProfile large = ContainerResourceProfile.resolve("LARGE", 0, 0L, 1).get();
+        assertEquals("-Xmx3072m -XX:+UseParallelGC", large.getJvmOptions());
+    }
+
+    @Test
+    public void testAutoSharesHostCapacity() {
+        final ContainerResourceProfile auto = ContainerResourceProfile.resolve("auto", 8, 16L * GB, 2).get();
+        assertEquals(4.0, auto.getCpus(), 0.0);
+        assertEquals(4096L, auto.getMemoryMb());
+
+        final ContainerResourceProfile crowded = ContainerResourceProfile.resolve("auto", 2, 2L * GB, 6).get();
+        assertEquals(1.0, crowded.getCpus(), 0.0);
+        assertEquals(512L, crowded.getMemoryMb());
+    }
+
+    @Test
+    public void testNoProfile() {
+        assertFalse(ContainerResourceProfile.resolve("none", 8, 16L * GB, 1).isPresent());
+        assertFalse(ContainerResourceProfile.resolve("medium", 8, 16L * GB, 1).isPresent());
+        assertFalse(ContainerResourceProfile.resolve("auto", 0, 0L, 1).isPresent());
+    }
+}
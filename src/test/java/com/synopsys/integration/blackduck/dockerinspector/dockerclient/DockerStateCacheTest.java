@@ -0,0 +1,117 @@
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+
+public class DockerStateCacheTest {
+    private final List<Container> daemonContainers = new ArrayList<>();
+    private final List<Image> daemonImages = new ArrayList<>();
+    private int fullListingCount;
+    private DockerStateCache dockerStateCache;
+
+    @Before
+    public void setUp() {
+        dockerStateCache = new DockerStateCache(
+            () -> {
+                fullListingCount++;
+                return new ArrayList<>(daemonContainers);
+            },
+            (final Collection<String> containerIds) -> daemonContainers.stream().filter(container -> containerIds.contains(container.getId())).collect(Collectors.toList()),
+            () -> new ArrayList<>(daemonImages));
+        daemonContainers.add(createContainer("id1", "/inspector-alpine", "running", "app", "inspector", "pool", "true"));
+        daemonContainers.add(createContainer("id2", "/inspector-ubuntu", "exited", "app", "inspector", "pool", "true"));
+        daemonContainers.add(createContainer("id3", "/unrelated", "running", "app", "other"));
+    }
+
+    @Test
+    public void testIndexedLookups() {
+        assertEquals(Arrays.asList("id1"), getIds(dockerStateCache.getContainersByLabels(labels("app", "inspector", "pool", "true"), true)));
+        assertEquals(2, dockerStateCache.getContainersByLabels(labels("app", "inspector"), false).size());
+        assertEquals("id3", dockerStateCache.getContainerByName("unrelated").get().getId());
+        assertEquals("id2", dockerStateCache.getContainerByName("ubuntu").get().getId());
+        assertFalse(dockerStateCache.getContainerByName("centos").isPresent());
+        assertEquals(1, fullListingCount);
+    }
+
+    @Test
+    public void testEventsKeepModelCurrent() {
+        assertEquals(2, dockerStateCache.getContainersByLabels(labels("app", "inspector"), false).size());
+        daemonContainers.remove(1);
+        daemonContainers.add(createContainer("id4", "/inspector-centos", "running", "app", "inspector", "pool", "true"));
+
+        dockerStateCache.onEvent(createEvent(EventType.CONTAINER, "id2"));
+        dockerStateCache.onEvent(createEvent(EventType.CONTAINER, "id4"));
+
+        assertEquals(Arrays.asList("id1", "id4"), getIds(dockerStateCache.getContainersByLabels(labels("app", "inspector"), false)));
+        assertFalse(dockerStateCache.getContainerByName("inspector-ubuntu").isPresent());
+        assertEquals(1, fullListingCount);
+    }
+
+    @Test
+    public void testPausedCountsAsRunning() {
+        daemonContainers.add(createContainer("id5", "/inspector-centos", "paused", "app", "inspector", "pool", "true"));
+        assertEquals(Arrays.asList("id1", "id5"), getIds(dockerStateCache.getContainersByLabels(labels("app", "inspector", "pool", "true"), true)));
+    }
+
+    @Test
+    public void testImageLookup() {
+        final Image alpine = Mockito.mock(Image.class);
+        Mockito.when(alpine.getRepoTags()).thenReturn(new String[] { "alpine:3.9", "alpine:latest" });
+        daemonImages.add(alpine);
+        assertEquals(alpine, dockerStateCache.getImageByRepoTag("alpine", "latest").get());
+        assertFalse(dockerStateCache.getImageByRepoTag("ubuntu", "latest").isPresent());
+
+        final Image ubuntu = Mockito.mock(Image.class);
+        Mockito.when(ubuntu.getRepoTags()).thenReturn(new String[] { "ubuntu:latest" });
+        daemonImages.add(ubuntu);
+        assertFalse(dockerStateCache.getImageByRepoTag("ubuntu", "latest").isPresent());
+        dockerStateCache.onEvent(createEvent(EventType.IMAGE, "sha256:ubuntu"));
+
+        assertEquals(ubuntu, dockerStateCache.getImageByRepoTag("ubuntu", "latest").get());
+    }
+
+    private Container createContainer(final String id, final String name, final String state, final String... labelKeysAndValues) {
+        final Container container = Mockito.mock(Container.class);
+        Mockito.when(container.getId()).thenReturn(id);
+        Mockito.when(container.getNames()).thenReturn(new String[] { name });
+        Mockito.when(container.getState()).thenReturn(state);
+        Mockito.when(container.getLabels()).thenReturn(labels(labelKeysAndValues));
+        return container;
+    }
+
+    private Map<String, String> labels(final String... keysAndValues) {
+        final Map<String, String> labels = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            labels.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return labels;
+    }
+
+    private Event createEvent(final EventType type, final String id) {
+        return new Event("update", id, null, System.currentTimeMillis()).withType(type);
+    }
+
+    private List<String> getIds(final List<Container> containers) {
+        final List<String> ids = containers.stream().map(Container::getId).collect(Collectors.toList());
+        Collections.sort(ids);
+        return ids;
+    }
+}
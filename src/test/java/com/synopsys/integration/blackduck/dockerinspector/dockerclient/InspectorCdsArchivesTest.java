@@ -0,0 +1,89 @@
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+
+@RunWith(SpringRunner.class)
+public class InspectorCdsArchivesTest {
+    private static final String FILES_DIR = "build/test/inspectorCdsArchives";
+
+    @InjectMocks
+    private InspectorCdsArchives inspectorCdsArchives;
+
+    @Mock
+    private Config config;
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(new File(FILES_DIR));
+    }
+
+    @Test
+    public void testArchiveGeneratedThenUsed() throws IOException {
+        Mockito.when(config.getSharedDirPathLocal()).thenReturn(FILES_DIR + "/shared");
+        Mockito.when(config.getSharedDirPathImageInspector()).thenReturn("/opt/blackduck/blackduck-imageinspector/shared");
+
+        final String generatingOptions = inspectorCdsArchives.deriveJvmOptions("blackducksoftware/blackduck-imageinspector-alpine", "4.5.0", "alpineContainer");
+        assertEquals("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=/opt/blackduck/blackduck-imageinspector/cds/"
+                         + "blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa.alpineContainer.tmp", generatingOptions);
+        inspectorCdsArchives.containerCreated("alpineContainer", "containerId1");
+
+        // Written by the container's JVM as it exits
+        final File cdsDir = new File(FILES_DIR, "cds");
+        FileUtils.writeStringToFile(new File(cdsDir, "blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa.alpineContainer.tmp"), "archive", "UTF-8");
+        inspectorCdsArchives.containerStopped("containerId1");
+        assertTrue(new File(cdsDir, "blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa").isFile());
+
+        final String usingOptions = inspectorCdsArchives.deriveJvmOptions("blackducksoftware/blackduck-imageinspector-alpine", "4.5.0", "alpineContainer");
+        assertEquals("-XX:SharedArchiveFile=/opt/blackduck/blackduck-imageinspector/cds/blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa -Xshare:auto", usingOptions);
+    }
+
+    @Test
+    public void testLeftoverArchivePromoted() throws IOException {
+        Mockito.when(config.getSharedDirPathLocal()).thenReturn(FILES_DIR + "/shared");
+        Mockito.when(config.getSharedDirPathImageInspector()).thenReturn("/opt/blackduck/blackduck-imageinspector/shared");
+        // Written by a pooled container that another run stopped
+        final File cdsDir = new File(FILES_DIR, "cds");
+        final File leftoverArchive = new File(cdsDir, "blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa.pooledContainer.tmp");
+        FileUtils.writeStringToFile(leftoverArchive, "archive", "UTF-8");
+        leftoverArchive.setLastModified(System.currentTimeMillis() - 3600L * 1000L);
+        final File unsettledArchive = new File(cdsDir, "blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa.exitingContainer.tmp");
+        FileUtils.writeStringToFile(unsettledArchive, "archive", "UTF-8");
+
+        final String usingOptions = inspectorCdsArchives.deriveJvmOptions("blackducksoftware/blackduck-imageinspector-alpine", "4.5.0", "alpineContainer");
+
+        assertEquals("-XX:SharedArchiveFile=/opt/blackduck/blackduck-imageinspector/cds/blackducksoftware_blackduck-imageinspector-alpine_4.5.0.jsa -Xshare:auto", usingOptions);
+        assertFalse(leftoverArchive.exists());
+        assertTrue(unsettledArchive.exists());
+    }
+
+    @Test
+    public void testCdsDirGetsSharedDirPermissions() throws IOException {
+        Mockito.when(config.getSharedDirPathLocal()).thenReturn(FILES_DIR + "/shared");
+        Mockito.when(config.getSharedDirPathImageInspector()).thenReturn("/opt/blackduck/blackduck-imageinspector/shared");
+        final File sharedDir = new File(FILES_DIR, "shared");
+        sharedDir.mkdirs();
+        Files.setPosixFilePermissions(sharedDir.toPath(), PosixFilePermissions.fromString("rwxr-x---"));
+
+        inspectorCdsArchives.deriveJvmOptions("blackducksoftware/blackduck-imageinspector-alpine", "4.5.0", "alpineContainer");
+
+        assertEquals(PosixFilePermissions.fromString("rwxr-x---"), Files.getPosixFilePermissions(new File(FILES_DIR, "cds").toPath()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.synopsys.integration.blackduck.dockerinspector.dockerclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class TransferMetricsTest {
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void testPullLayerProgress() {
+        final AtomicLong clock = new AtomicLong(0L);
+        final TransferMetrics metrics = new TransferMetrics(TransferMetrics.OPERATION_PULL, "alpine:latest", clock::get);
+        clock.set(200 * MILLIS);
+        metrics.updateLayer("layer1", 1000L, 3000L);
+        metrics.updateLayer("layer2", 500L, 500L);
+        clock.set(700 * MILLIS);
+        metrics.updateLayer("layer1", 3000L, 3000L);
+        // A repeated frame for the same layer must not be counted twice
+        metrics.updateLayer("layer1", 3000L, 3000L);
+        clock.set(1200 * MILLIS);
+        metrics.finish();
+
+        assertEquals(3500L, metrics.getBytes());
+        assertEquals(Long.valueOf(200L), metrics.getTimeToFirstByteMillis());
+        assertEquals(1200L, metrics.getDurationMillis());
+        assertEquals(3500L, metrics.getBytesPerSecond());
+        assertEquals(Long.valueOf(3000L), metrics.getLayerBytes().get("layer1"));
+        assertEquals(Long.valueOf(500L), metrics.getLayerBytes().get("layer2"));
+    }
+
+    @Test
+    public void testPullNothingDownloaded() {
+        final TransferMetrics metrics = new TransferMetrics(TransferMetrics.OPERATION_PULL, "alpine:latest");
+        metrics.finish();
+
+        assertEquals(0L, metrics.getBytes());
+        assertNull(metrics.getTimeToFirstByteMillis());
+        assertEquals(0L, metrics.getBytesPerSecond());
+    }
+
+    @Test
+    public void testSaveStream() throws IOException {
+        final TransferMetrics metrics = new TransferMetrics(TransferMetrics.OPERATION_SAVE, "alpine:latest");
+        final byte[] content = new byte[10000];
+        try (InputStream in = new MeteredInputStream(new ByteArrayInputStream(content), metrics)) {
+            assertEquals(content.length, IOUtils.toByteArray(in).length);
+        }
+        metrics.finish();
+
+        assertEquals(10000L, metrics.getBytes());
+        assertEquals(0, metrics.getLayerBytes().size());
+    }
+}
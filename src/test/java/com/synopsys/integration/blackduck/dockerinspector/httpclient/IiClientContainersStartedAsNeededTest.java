@@ -4,10 +4,14 @@ import static org.junit.Assert.assertEquals;
 
 import com.synopsys.integration.blackduck.dockerinspector.programversion.ProgramVersion;
 import com.synopsys.integration.rest.client.IntHttpClient;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -54,6 +58,9 @@ public class IiClientContainersStartedAsNeededTest {
     @Mock
     private ContainerName containerName;
 
+    @Mock
+    private InspectorContainerPool inspectorContainerPool;
+
     @Test
     public void test() throws IntegrationException, IOException {
         Mockito.when(config.isImageInspectorServiceStart()).thenReturn(true);
@@ -64,7 +71,7 @@ public class IiClientContainersStartedAsNeededTest {
         Mockito.when(imageInspectorServices.getServiceVersion(Mockito.any(IntHttpClient.class), Mockito.any(URI.class))).thenReturn("1.1.1");
         Mockito.when(programVersion.getInspectorImageVersion()).thenReturn("2.2.2");
         Mockito.when(imageInspectorServices.startService(Mockito.any(IntHttpClient.class), Mockito.any(
-            URI.class), Mockito.anyString(), Mockito.anyString())).thenReturn(true);
+            URI.class), Mockito.anyString(), Mockito.anyString(), Mockito.any(ImageInspectorOsEnum.class), Mockito.any(String.class))).thenReturn(true);
 
         final Container targetContainer = Mockito.mock(Container.class);
         Mockito.when(targetContainer.getImage()).thenReturn("target");
@@ -76,18 +83,45 @@ public class IiClientContainersStartedAsNeededTest {
 
         Mockito.when(httpRequestor.executeSimpleGetRequest(Mockito.any(IntHttpClient.class), Mockito.any(URI.class), Mockito.anyString())).thenReturn("{\"status\":\"UP\"}");
         // Mockito.when(restRequestor.executeSimpleGetRequest(Mockito.any(RestConnection.class), Mockito.anyString(), Mockito.anyString())).thenReturn("testResponse");
-        final SimpleResponse response = new SimpleResponse(RestConstants.OK_200, null, "testResult");
+        final File bdioSpoolFile = new File("build/test/iiClientContainersStartedAsNeeded/bdio.spool.jsonld");
+        FileUtils.writeStringToFile(bdioSpoolFile, "testResult", StandardCharsets.UTF_8);
+        final SimpleResponse response = new SimpleResponse(RestConstants.OK_200, null, null, bdioSpoolFile);
         Mockito.when(httpRequestor
             .executeGetBdioRequest(Mockito.any(IntHttpClient.class), Mockito.any(URI.class), Mockito.anyString(), Mockito.anyString(),
                 Mockito.anyString(), Mockito.anyString(), Mockito.anyBoolean(), Mockito.anyBoolean(), Mockito.anyBoolean(),
-                Mockito.anyString())).thenReturn(response);
+                Mockito.anyString(), Mockito.any(File.class))).thenReturn(response);
 
         Mockito.when(inspectorImages.getInspectorImageName(Mockito.any(ImageInspectorOsEnum.class))).thenReturn("blackduck/blackduck-imageinspector");
         Mockito.when(inspectorImages.getInspectorImageTag(Mockito.any(ImageInspectorOsEnum.class))).thenReturn("1.1.1");
 
         assertEquals(true, imageInspectorClientContainersStartedAsNeeded.isApplicable());
-        assertEquals("testResult", imageInspectorClientContainersStartedAsNeeded.getBdio("/tmp/t.tar", null, null, "/tmp/t.tar", "containerFileSystemFilename", true, false, false,
-            null));
+        final File bdioFile = imageInspectorClientContainersStartedAsNeeded.getBdio("/tmp/t.tar", null, null, "/tmp/t.tar", "containerFileSystemFilename", true, false, false,
+            null, bdioSpoolFile);
+        assertEquals("testResult", FileUtils.readFileToString(bdioFile, StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void testEagerStart() throws IntegrationException, IOException {
+        Mockito.when(config.isImageInspectorServiceStartEager()).thenReturn(true);
+        Mockito.when(config.getImageInspectorServiceReplicas()).thenReturn(1);
+        Mockito.when(imageInspectorServices.getServiceVersion(Mockito.any(IntHttpClient.class), Mockito.any(URI.class))).thenReturn("1.1.1");
+        Mockito.when(programVersion.getInspectorImageVersion()).thenReturn("1.1.1");
+        Mockito.when(imageInspectorServices.startService(Mockito.any(IntHttpClient.class), Mockito.any(URI.class), Mockito.anyString(), Mockito.anyString(), Mockito.any(ImageInspectorOsEnum.class), Mockito.any(String.class))).thenReturn(true);
+        Mockito.when(httpConnectionCreator.createNonRedirectingConnection(Mockito.any(URI.class), Mockito.anyInt())).thenReturn(Mockito.mock(IntHttpClient.class));
+        Mockito.when(inspectorImages.getInspectorImageName(Mockito.any(ImageInspectorOsEnum.class))).thenReturn("blackduck/blackduck-imageinspector");
+        Mockito.when(inspectorImages.getInspectorImageTag(Mockito.any(ImageInspectorOsEnum.class))).thenReturn("1.1.1");
+        Mockito.when(dockerClientManager.startContainerAsService(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.any(ImageInspectorOsEnum.class), Mockito.anyInt(), Mockito.anyInt(),
+            Mockito.anyString(), Mockito.anyBoolean(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+            .thenAnswer(invocation -> String.format("container_%s", invocation.getArguments()[3]));
+        Mockito.when(containerName.deriveContainerNameFromImageInspectorRepo(Mockito.anyString(), Mockito.anyInt())).thenReturn("testContainerName");
+
+        imageInspectorClientContainersStartedAsNeeded.holdServices();
+
+        for (final ImageInspectorOsEnum inspectorOs : ImageInspectorOsEnum.values()) {
+            Mockito.verify(dockerClientManager).startContainerAsService(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.eq(inspectorOs), Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.anyString(), Mockito.anyBoolean(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+        }
+        // Held services are only stopped on release
+        Mockito.verify(dockerClientManager, Mockito.never()).cleanUpContainer(Mockito.anyString());
+    }
 }
@@ -0,0 +1,91 @@
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.dockerjava.api.model.Container;
+import com.synopsys.integration.blackduck.dockerinspector.cache.InspectorContainerUsage;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.dockerclient.DockerClientManager;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class InspectorContainerPoolTest {
+    private static final long IDLE_TIMEOUT = 60000L;
+
+    @InjectMocks
+    private InspectorContainerPool inspectorContainerPool;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private DockerClientManager dockerClientManager;
+
+    @Mock
+    private InspectorContainerUsage containerUsage;
+
+    @Captor
+    private ArgumentCaptor<Collection<String>> forgotten;
+
+    @Test
+    public void testReapIdleContainers() throws IntegrationException {
+        final long now = System.currentTimeMillis();
+        final Container recentlyUsed = mockContainer("recentlyUsed", now - 3600L * 1000L);
+        final Container idle = mockContainer("idle", now - 3600L * 1000L);
+        final Container inUse = mockContainer("inUse", now - 3600L * 1000L);
+        final Container neverRecorded = mockContainer("neverRecorded", now - 3600L * 1000L);
+        final Container justCreated = mockContainer("justCreated", now);
+        Mockito.when(config.getImageInspectorServicePoolIdleTimeout()).thenReturn(IDLE_TIMEOUT);
+        Mockito.when(dockerClientManager.getRunningPooledContainers(Mockito.anyString(), Mockito.any(ImageInspectorOsEnum.class)))
+            .thenReturn(Arrays.asList(recentlyUsed, idle, inUse, neverRecorded, justCreated));
+        final Map<String, Long> lastUsedTimes = new HashMap<>();
+        lastUsedTimes.put("recentlyUsed", now - 1000L);
+        lastUsedTimes.put("idle", now - 2 * IDLE_TIMEOUT);
+        lastUsedTimes.put("inUse", now - 2 * IDLE_TIMEOUT);
+        lastUsedTimes.put("removedByHand", now - 1000L);
+        Mockito.when(containerUsage.getLastUsedTimes()).thenReturn(lastUsedTimes);
+
+        inspectorContainerPool.reapIdleContainers(new HashSet<>(Arrays.asList("inUse")));
+
+        Mockito.verify(dockerClientManager).stopRemoveContainer("idle");
+        Mockito.verify(dockerClientManager).stopRemoveContainer("neverRecorded");
+        Mockito.verify(dockerClientManager, Mockito.times(2)).stopRemoveContainer(Mockito.anyString());
+        Mockito.verify(containerUsage).forget(forgotten.capture());
+        assertEquals(new HashSet<>(Arrays.asList("idle", "removedByHand")), new HashSet<>(forgotten.getValue()));
+    }
+
+    @Test
+    public void testHeldContainerKeepsBeingMarkedUsed() throws InterruptedException {
+        Mockito.when(config.getImageInspectorServicePoolIdleTimeout()).thenReturn(3000L);
+
+        inspectorContainerPool.hold("held");
+        Thread.sleep(2500L);
+        inspectorContainerPool.release("held");
+
+        // Once when held, at least once by the heartbeat, and once when released
+        Mockito.verify(containerUsage, Mockito.atLeast(3)).markUsed(Mockito.eq("held"), Mockito.anyLong());
+    }
+
+    private Container mockContainer(final String containerId, final long createdTime) {
+        final Container container = Mockito.mock(Container.class);
+        Mockito.when(container.getId()).thenReturn(containerId);
+        Mockito.when(container.getCreated()).thenReturn(createdTime / 1000L);
+        return container;
+    }
+}
@@ -0,0 +1,50 @@
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.exception.IntegrationException;
+
+@RunWith(SpringRunner.class)
+public class ServiceEndpointPoolTest {
+
+    @InjectMocks
+    private ServiceEndpointPool serviceEndpointPool;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private ImageInspectorServices imageInspectorServices;
+
+    @Mock
+    private HttpConnectionCreator httpConnectionCreator;
+
+    @Test
+    public void testBalancingAndEjection() throws IntegrationException {
+        Mockito.when(config.getImageInspectorUrl()).thenReturn("http://inspector1:8080, http://inspector2:8080");
+        Mockito.when(config.getImageInspectorHealthCheckInterval()).thenReturn(3600L);
+        Mockito.when(config.getImageInspectorEjectionTime()).thenReturn(3600L);
+
+        final ServiceEndpoint first = serviceEndpointPool.acquire();
+        final ServiceEndpoint second = serviceEndpointPool.acquire();
+        assertEquals("http://inspector1:8080", first.getBaseUri().toString());
+        assertEquals("http://inspector2:8080", second.getBaseUri().toString());
+
+        serviceEndpointPool.release(second, false);
+        // inspector1 is busier, but inspector2 is out of rotation
+        assertEquals(first, serviceEndpointPool.acquire());
+        assertEquals(2, first.getOutstandingRequestCount());
+
+        serviceEndpointPool.release(first, false);
+        // Everything has failed; the least loaded is tried anyway
+        assertEquals(second, serviceEndpointPool.acquire());
+    }
+}
@@ -0,0 +1,49 @@
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ServiceEndpointTest {
+
+    @Test
+    public void testChooseLeastLoaded() {
+        final ServiceEndpoint endpoint1 = new ServiceEndpoint(URI.create("http://localhost:9002"));
+        final ServiceEndpoint endpoint2 = new ServiceEndpoint(URI.create("http://localhost:32768"));
+        final List<ServiceEndpoint> endpoints = Arrays.asList(endpoint1, endpoint2);
+
+        assertEquals(endpoint1, ServiceEndpoint.chooseLeastLoaded(endpoints).get());
+        endpoint1.requestStarted();
+        assertEquals(endpoint2, ServiceEndpoint.chooseLeastLoaded(endpoints).get());
+        endpoint2.requestStarted();
+        endpoint2.requestStarted();
+        assertEquals(endpoint1, ServiceEndpoint.chooseLeastLoaded(endpoints).get());
+        endpoint2.requestFinished();
+        endpoint2.requestFinished();
+        assertEquals(endpoint2, ServiceEndpoint.chooseLeastLoaded(endpoints).get());
+    }
+
+    @Test
+    public void testReplicaIdleFor() {
+        final ServiceReplica replica = new ServiceReplica(URI.create("http://localhost:9002"), 0, new ContainerDetails(null, "containerId"));
+        replica.requestStarted();
+        final long currentTime = System.currentTimeMillis();
+        assertFalse(replica.isIdleFor(0L, currentTime + 60000L));
+        replica.requestFinished();
+        assertTrue(replica.isIdleFor(0L, System.currentTimeMillis()));
+        assertFalse(replica.isIdleFor(60000L, System.currentTimeMillis()));
+        assertTrue(replica.isIdleFor(60000L, System.currentTimeMillis() + 60000L));
+    }
+
+    @Test
+    public void testNoEndpoints() {
+        assertFalse(ServiceEndpoint.chooseLeastLoaded(new ArrayList<ServiceEndpoint>()).isPresent());
+    }
+}
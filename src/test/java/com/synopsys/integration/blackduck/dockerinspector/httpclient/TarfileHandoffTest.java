@@ -0,0 +1,62 @@
+package com.synopsys.integration.blackduck.dockerinspector.httpclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TarfileHandoffTest {
+    private static final String TARFILE_CONTENT = "image tarfile content";
+    private final File testDir = new File("build/test/tarfileHandoff");
+    private final TarfileHandoff tarfileHandoff = new TarfileHandoff();
+    private File source;
+    private File destination;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deleteQuietly(testDir);
+        source = new File(testDir, "source/image.tar");
+        destination = new File(testDir, "target/image.tar");
+        FileUtils.write(source, TARFILE_CONTENT, "UTF-8");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(testDir);
+    }
+
+    @Test
+    public void testOwnTarfileIsRenamed() throws IOException {
+        assertEquals(TarfileHandoffMethod.RENAME, tarfileHandoff.handOff(source, destination, true));
+        assertFalse(source.exists());
+        assertEquals(TARFILE_CONTENT, FileUtils.readFileToString(destination, "UTF-8"));
+    }
+
+    @Test
+    public void testGivenTarfileIsLinkedNotMoved() throws IOException {
+        final TarfileHandoffMethod method = tarfileHandoff.handOff(source, destination, false);
+
+        assertTrue(source.exists());
+        assertEquals(TARFILE_CONTENT, FileUtils.readFileToString(destination, "UTF-8"));
+        if (method == TarfileHandoffMethod.HARD_LINK) {
+            assertTrue(Files.isSameFile(source.toPath(), destination.toPath()));
+        }
+        // Removing the handed off tarfile (as target dir cleanup does) leaves the given one intact
+        assertTrue(destination.delete());
+        assertEquals(TARFILE_CONTENT, FileUtils.readFileToString(source, "UTF-8"));
+    }
+
+    @Test
+    public void testTarfileAlreadyInPlace() throws IOException {
+        assertEquals(TarfileHandoffMethod.NONE, tarfileHandoff.handOff(source, new File(testDir, "source/../source/image.tar"), true));
+        assertTrue(source.exists());
+    }
+}
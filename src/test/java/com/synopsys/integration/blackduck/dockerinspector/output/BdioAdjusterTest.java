@@ -0,0 +1,87 @@
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.synopsys.integration.bdio.BdioReader;
+import com.synopsys.integration.bdio.BdioWriter;
+import com.synopsys.integration.bdio.model.BdioBillOfMaterials;
+import com.synopsys.integration.bdio.model.BdioComponent;
+import com.synopsys.integration.bdio.model.BdioProject;
+import com.synopsys.integration.bdio.model.SimpleBdioDocument;
+import com.synopsys.integration.blackduck.dockerinspector.config.ImageInspectionRequest;
+
+public class BdioAdjusterTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testNamesAdjusted() throws IOException {
+        final ImageInspectionRequest request = new ImageInspectionRequest("alpine:latest", null, null, "alpine", "latest", null,
+            "myProject", "myVersion", null, "myPrefix");
+        final BdioAdjuster bdioAdjuster = new BdioAdjuster(request);
+
+        final SimpleBdioDocument adjustedDocument = adjust(bdioAdjuster, createBdio("alpine_latest_APK", "alpine", null));
+
+        assertEquals("myPrefix_alpine_latest_APK", bdioAdjuster.getAdjustedSpdxName());
+        assertEquals("myPrefix_alpine_latest_APK", adjustedDocument.billOfMaterials.spdxName);
+        assertEquals("myProject", adjustedDocument.project.name);
+        assertEquals("myVersion", adjustedDocument.project.version);
+        assertEquals(2, adjustedDocument.components.size());
+        assertEquals("musl", adjustedDocument.components.get(0).name);
+        assertEquals("1.1.20-r4", adjustedDocument.components.get(0).version);
+    }
+
+    @Test
+    public void testCodeLocationNameWins() throws IOException {
+        final ImageInspectionRequest request = new ImageInspectionRequest("alpine:latest", null, null, "alpine", "latest", null,
+            null, null, "myCodeLocation", "myPrefix");
+        final BdioAdjuster bdioAdjuster = new BdioAdjuster(request);
+
+        final SimpleBdioDocument adjustedDocument = adjust(bdioAdjuster, createBdio("alpine_latest_APK", "alpine", "latest"));
+
+        assertEquals("myCodeLocation", adjustedDocument.billOfMaterials.spdxName);
+        assertEquals("alpine", adjustedDocument.project.name);
+        assertEquals("latest", adjustedDocument.project.version);
+    }
+
+    private SimpleBdioDocument adjust(final BdioAdjuster bdioAdjuster, final String bdio) throws IOException {
+        final StringWriter adjustedBdio = new StringWriter();
+        try (JsonReader reader = new JsonReader(new StringReader(bdio)); JsonWriter writer = new JsonWriter(adjustedBdio)) {
+            bdioAdjuster.adjust(reader, writer);
+        }
+        try (BdioReader bdioReader = new BdioReader(gson, new StringReader(adjustedBdio.toString()))) {
+            return bdioReader.readSimpleBdioDocument();
+        }
+    }
+
+    private String createBdio(final String spdxName, final String projectName, final String projectVersion) throws IOException {
+        final SimpleBdioDocument document = new SimpleBdioDocument();
+        document.billOfMaterials = new BdioBillOfMaterials();
+        document.billOfMaterials.spdxName = spdxName;
+        document.project = new BdioProject();
+        document.project.name = projectName;
+        document.project.version = projectVersion;
+        document.components = Arrays.asList(createComponent("musl", "1.1.20-r4"), createComponent("busybox", "1.29.3-r10"));
+        final StringWriter bdio = new StringWriter();
+        try (BdioWriter bdioWriter = new BdioWriter(gson, bdio)) {
+            bdioWriter.writeSimpleBdioDocument(document);
+        }
+        return bdio.toString();
+    }
+
+    private BdioComponent createComponent(final String name, final String version) {
+        final BdioComponent component = new BdioComponent();
+        component.name = name;
+        component.version = version;
+        return component;
+    }
+}
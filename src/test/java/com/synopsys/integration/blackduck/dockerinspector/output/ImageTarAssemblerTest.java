@@ -0,0 +1,89 @@
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.dockerinspector.cache.LayerStore;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.exception.IntegrationException;
+
+public class ImageTarAssemblerTest {
+    private static final File TEST_DIR = new File("build/test/imageTarAssembler");
+    private final Gson gson = new Gson();
+    private final ImageTarAssembler imageTarAssembler = new ImageTarAssembler();
+    private final ImageTarReader imageTarReader = new ImageTarReader();
+    private LayerStore layerStore;
+
+    @Before
+    public void setUp() {
+        FileUtils.deleteQuietly(TEST_DIR);
+        final Config config = Mockito.mock(Config.class);
+        Mockito.when(config.getLayerStoreSizeMb()).thenReturn(100L);
+        final ProgramPaths programPaths = Mockito.mock(ProgramPaths.class);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(new File(TEST_DIR, "cache").getAbsolutePath());
+        layerStore = new LayerStore();
+        ReflectionTestUtils.setField(layerStore, "config", config);
+        ReflectionTestUtils.setField(layerStore, "programPaths", programPaths);
+        ReflectionTestUtils.setField(layerStore, "gson", gson);
+        ReflectionTestUtils.setField(imageTarAssembler, "layerStore", layerStore);
+        ReflectionTestUtils.setField(imageTarAssembler, "gson", gson);
+        ReflectionTestUtils.setField(imageTarReader, "gson", gson);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(TEST_DIR);
+    }
+
+    @Test
+    public void testAssembleFromStoredLayers() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=alpine\n");
+        baseLayerFiles.put("lib/apk/db/installed", "P:musl\n");
+        final String baseLayerDiffId = layerStore.put(new FileInputStream(new TestImageTarBuilder().buildLayer(baseLayerFiles, new File(TEST_DIR, "base.tar"))));
+        final Map<String, String> topLayerFiles = new HashMap<>();
+        topLayerFiles.put("app/app.jar", "jar");
+        final String topLayerDiffId = layerStore.put(new FileInputStream(new TestImageTarBuilder().buildLayer(topLayerFiles, new File(TEST_DIR, "top.tar"))));
+        final List<String> layerDiffIds = Arrays.asList(baseLayerDiffId, topLayerDiffId);
+        final String config = String.format("{\"rootfs\":{\"type\":\"layers\",\"diff_ids\":%s}}", gson.toJson(layerDiffIds));
+        final String imageId = layerStore.put(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(imageTarAssembler.canAssemble(imageId, layerDiffIds));
+
+        final File assembledTarfile = new File(TEST_DIR, "assembled.tar");
+        imageTarAssembler.assemble(assembledTarfile, imageId, layerDiffIds, "test:latest");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(assembledTarfile);
+        assertEquals(imageId, metadata.getImageId());
+        assertEquals(layerDiffIds, metadata.getLayerDiffIds());
+        assertEquals("alpine", metadata.getLinuxDistroId().get());
+
+        // Copying the assembled tarfile the way a docker save stream is copied yields the same image
+        final File copiedTarfile = new File(TEST_DIR, "copied.tar");
+        try (InputStream assembledInputStream = new FileInputStream(assembledTarfile)) {
+            imageTarAssembler.copyAndStore(assembledInputStream, copiedTarfile);
+        }
+        final ImageTarMetadata copiedMetadata = imageTarReader.readMetadata(copiedTarfile);
+        assertEquals(imageId, copiedMetadata.getImageId());
+        assertEquals(layerDiffIds, copiedMetadata.getLayerDiffIds());
+    }
+}
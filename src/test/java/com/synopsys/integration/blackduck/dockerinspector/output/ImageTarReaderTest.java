@@ -0,0 +1,154 @@
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.synopsys.integration.blackduck.imageinspector.api.ImageInspectorOsEnum;
+import com.synopsys.integration.exception.IntegrationException;
+
+public class ImageTarReaderTest {
+    private ImageTarReader imageTarReader;
+
+    @Before
+    public void setUp() {
+        imageTarReader = new ImageTarReader();
+        ReflectionTestUtils.setField(imageTarReader, "gson", new Gson());
+    }
+
+    @Test
+    public void testReadMetadata() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=alpine\n");
+        final Map<String, String> topLayerFiles = new HashMap<>();
+        topLayerFiles.put("app/app.jar", "jar");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", baseLayerFiles)
+            .addLayer("layer1", topLayerFiles)
+            .build(new File("build/test/imageTarReader/image.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile);
+
+        assertEquals("sha256:0123456789abcdef", metadata.getImageId());
+        assertEquals(Arrays.asList("sha256:diff0", "sha256:diff1"), metadata.getLayerDiffIds());
+        assertEquals("sha256:diff0", metadata.getBaseLayerDiffId().get());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testDetectInspectorOs() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "NAME=\"Alpine Linux\"\nID=\"alpine\"\nVERSION_ID=3.9.2\n");
+        baseLayerFiles.put("lib/apk/db/installed", "P:musl\n");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", baseLayerFiles)
+            .build(new File("build/test/imageTarReader/alpine.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile);
+
+        assertEquals("alpine", metadata.getLinuxDistroId().get());
+        assertEquals(ImageInspectorOsEnum.ALPINE, metadata.getInspectorOs().get());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testReadMetadataWithoutLayers() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=alpine\n");
+        baseLayerFiles.put("lib/apk/db/installed", "P:musl\n");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", baseLayerFiles)
+            .build(new File("build/test/imageTarReader/noLayers.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile, null, false);
+
+        assertEquals("sha256:0123456789abcdef", metadata.getImageId());
+        assertEquals("sha256:diff0", metadata.getBaseLayerDiffId().get());
+        assertFalse(metadata.getInspectorOs().isPresent());
+        assertFalse(metadata.getPackageDbLayerDiffIds().isPresent());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testDetectInspectorOsHonorsWhiteouts() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=ubuntu\n");
+        baseLayerFiles.put("var/lib/dpkg/status", "Package: libc6\n");
+        final Map<String, String> topLayerFiles = new HashMap<>();
+        topLayerFiles.put("var/lib/.wh.dpkg", "");
+        topLayerFiles.put("etc/.wh..wh..opq", "");
+        topLayerFiles.put("lib/apk/db/installed", "P:musl\n");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", baseLayerFiles)
+            .addLayer("layer1", topLayerFiles)
+            .build(new File("build/test/imageTarReader/whiteouts.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile);
+
+        assertFalse(metadata.getLinuxDistroId().isPresent());
+        assertEquals(ImageInspectorOsEnum.ALPINE, metadata.getInspectorOs().get());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testAmbiguousPackageDbs() throws IOException, IntegrationException {
+        final Map<String, String> layerFiles = new HashMap<>();
+        layerFiles.put("var/lib/dpkg/status", "Package: libc6\n");
+        layerFiles.put("var/lib/rpm/Packages", "rpmdb");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", layerFiles)
+            .build(new File("build/test/imageTarReader/ambiguous.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile);
+
+        assertFalse(metadata.getInspectorOs().isPresent());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testPackageDbLayers() throws IOException, IntegrationException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=ubuntu\n");
+        baseLayerFiles.put("var/lib/dpkg/status", "Package: libc6\n");
+        final Map<String, String> appLayerFiles = new HashMap<>();
+        appLayerFiles.put("app/app.jar", "jar");
+        final Map<String, String> cleanupLayerFiles = new HashMap<>();
+        cleanupLayerFiles.put("var/lib/.wh.dpkg", "");
+        final File tarFile = new TestImageTarBuilder()
+            .addLayer("layer0", baseLayerFiles)
+            .addLayer("layer1", appLayerFiles)
+            .addLayer("layer2", cleanupLayerFiles)
+            .build(new File("build/test/imageTarReader/packageDbLayers.tar"), "0123456789abcdef");
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(tarFile);
+
+        assertEquals(new HashSet<>(Arrays.asList("sha256:diff0", "sha256:diff2")), metadata.getPackageDbLayerDiffIds().get());
+        FileUtils.deleteQuietly(tarFile.getParentFile());
+    }
+
+    @Test
+    public void testNotAnImageTar() throws IOException {
+        final File notATar = new File("build/test/imageTarReader/notATar.tar");
+        FileUtils.write(notATar, "not a tarfile", "UTF-8");
+        try {
+            imageTarReader.readMetadata(notATar);
+            fail("Expected exception");
+        } catch (final IntegrationException e) {
+            // expected
+        }
+        FileUtils.deleteQuietly(notATar.getParentFile());
+    }
+}
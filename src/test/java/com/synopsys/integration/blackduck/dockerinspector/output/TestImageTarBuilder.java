@@ -0,0 +1,76 @@
+package com.synopsys.integration.blackduck.dockerinspector.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+// Builds small docker-save-format image tarfiles for tests
+public class TestImageTarBuilder {
+    private final List<String> layerNames = new ArrayList<>();
+    private final Map<String, byte[]> entries = new LinkedHashMap<>();
+
+    public TestImageTarBuilder addLayer(final String layerDirName, final Map<String, String> files) throws IOException {
+        final String layerName = String.format("%s/layer.tar", layerDirName);
+        layerNames.add(layerName);
+        entries.put(layerName, createLayer(files));
+        return this;
+    }
+
+    // Just a layer tarfile, on its own
+    public File buildLayer(final Map<String, String> files, final File layerTarFile) throws IOException {
+        layerTarFile.getParentFile().mkdirs();
+        try (FileOutputStream layerOutputStream = new FileOutputStream(layerTarFile)) {
+            layerOutputStream.write(createLayer(files));
+        }
+        return layerTarFile;
+    }
+
+    private byte[] createLayer(final Map<String, String> files) throws IOException {
+        final ByteArrayOutputStream layerBytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream layerTar = new TarArchiveOutputStream(layerBytes)) {
+            for (final Map.Entry<String, String> file : files.entrySet()) {
+                addEntry(layerTar, file.getKey(), file.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return layerBytes.toByteArray();
+    }
+
+    public File build(final File tarFile, final String imageIdHex) throws IOException {
+        final StringBuilder diffIds = new StringBuilder();
+        final StringBuilder layers = new StringBuilder();
+        for (int layerIndex = 0; layerIndex < layerNames.size(); layerIndex++) {
+            final String separator = layerIndex == 0 ? "" : ",";
+            diffIds.append(String.format("%s\"sha256:diff%d\"", separator, layerIndex));
+            layers.append(String.format("%s\"%s\"", separator, layerNames.get(layerIndex)));
+        }
+        final String configName = String.format("%s.json", imageIdHex);
+        final String config = String.format("{\"rootfs\":{\"type\":\"layers\",\"diff_ids\":[%s]}}", diffIds);
+        final String manifest = String.format("[{\"Config\":\"%s\",\"RepoTags\":[\"test:latest\"],\"Layers\":[%s]}]", configName, layers);
+        tarFile.getParentFile().mkdirs();
+        try (TarArchiveOutputStream imageTar = new TarArchiveOutputStream(new FileOutputStream(tarFile))) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                addEntry(imageTar, entry.getKey(), entry.getValue());
+            }
+            addEntry(imageTar, configName, config.getBytes(StandardCharsets.UTF_8));
+            addEntry(imageTar, "manifest.json", manifest.getBytes(StandardCharsets.UTF_8));
+        }
+        return tarFile;
+    }
+
+    private void addEntry(final TarArchiveOutputStream tar, final String name, final byte[] content) throws IOException {
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+}
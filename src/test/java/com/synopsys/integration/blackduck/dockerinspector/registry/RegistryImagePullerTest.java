@@ -0,0 +1,189 @@
+package com.synopsys.integration.blackduck.dockerinspector.registry;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.synopsys.integration.blackduck.dockerinspector.cache.LayerStore;
+import com.synopsys.integration.blackduck.dockerinspector.config.Config;
+import com.synopsys.integration.blackduck.dockerinspector.config.ProgramPaths;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarAssembler;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarMetadata;
+import com.synopsys.integration.blackduck.dockerinspector.output.ImageTarReader;
+import com.synopsys.integration.blackduck.dockerinspector.output.TestImageTarBuilder;
+import com.synopsys.integration.exception.IntegrationException;
+
+// Pulls from a stand-in for a registry:2 registry that requires a (bearer) token and serves blobs via a redirect
+public class RegistryImagePullerTest {
+    private static final File TEST_DIR = new File("build/test/registryImagePuller");
+    private static final String TOKEN = "testToken";
+    private final Gson gson = new Gson();
+    private final Map<String, byte[]> blobs = new HashMap<>();
+    private final AtomicInteger blobDownloadCount = new AtomicInteger();
+    private HttpServer registry;
+    private String registryHost;
+    private Config config;
+    private RegistryImagePuller registryImagePuller;
+    private ImageTarReader imageTarReader;
+    private String imageId;
+    private List<String> layerDiffIds;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deleteQuietly(TEST_DIR);
+        createImage();
+        registry = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        registryHost = String.format("localhost:%d", registry.getAddress().getPort());
+        registry.createContext("/token", exchange -> respond(exchange, 200, String.format("{\"token\":\"%s\"}", TOKEN).getBytes(StandardCharsets.UTF_8)));
+        registry.createContext("/v2/", this::handleRegistryRequest);
+        registry.createContext("/cdn/", exchange -> {
+            if (exchange.getRequestHeaders().containsKey("Authorization")) {
+                respond(exchange, 400, "Registry credentials sent to the CDN".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            blobDownloadCount.incrementAndGet();
+            respond(exchange, 200, blobs.get(exchange.getRequestURI().getPath().substring("/cdn/".length())));
+        });
+        registry.start();
+
+        config = Mockito.mock(Config.class);
+        Mockito.when(config.getRegistryPlatform()).thenReturn("linux/amd64");
+        Mockito.when(config.getRegistryDownloadConcurrency()).thenReturn(2);
+        Mockito.when(config.getRegistryUsername()).thenReturn("");
+        final ProgramPaths programPaths = Mockito.mock(ProgramPaths.class);
+        Mockito.when(programPaths.getDockerInspectorCacheDirPath()).thenReturn(new File(TEST_DIR, "cache").getAbsolutePath());
+        final LayerStore layerStore = new LayerStore();
+        ReflectionTestUtils.setField(layerStore, "config", config);
+        ReflectionTestUtils.setField(layerStore, "programPaths", programPaths);
+        ReflectionTestUtils.setField(layerStore, "gson", gson);
+        final ImageTarAssembler imageTarAssembler = new ImageTarAssembler();
+        ReflectionTestUtils.setField(imageTarAssembler, "layerStore", layerStore);
+        ReflectionTestUtils.setField(imageTarAssembler, "gson", gson);
+        registryImagePuller = new RegistryImagePuller();
+        ReflectionTestUtils.setField(registryImagePuller, "config", config);
+        ReflectionTestUtils.setField(registryImagePuller, "layerStore", layerStore);
+        ReflectionTestUtils.setField(registryImagePuller, "imageTarAssembler", imageTarAssembler);
+        ReflectionTestUtils.setField(registryImagePuller, "gson", gson);
+        imageTarReader = new ImageTarReader();
+        ReflectionTestUtils.setField(imageTarReader, "gson", gson);
+    }
+
+    @After
+    public void tearDown() {
+        registry.stop(0);
+        FileUtils.deleteQuietly(TEST_DIR);
+    }
+
+    @Test
+    public void testPull() throws IntegrationException {
+        Mockito.when(config.getLayerStoreSizeMb()).thenReturn(0L);
+
+        final File imageTarFile = registryImagePuller.pullImageToFile(registryHost + "/test/image", "1.0", new File(TEST_DIR, "image.tar"));
+
+        final ImageTarMetadata metadata = imageTarReader.readMetadata(imageTarFile);
+        assertEquals(imageId, metadata.getImageId());
+        assertEquals(layerDiffIds, metadata.getLayerDiffIds());
+        assertEquals("alpine", metadata.getLinuxDistroId().get());
+        assertEquals(3, blobDownloadCount.get());
+    }
+
+    @Test
+    public void testStoredLayersAreNotDownloadedAgain() throws IntegrationException {
+        Mockito.when(config.getLayerStoreSizeMb()).thenReturn(100L);
+        registryImagePuller.pullImageToFile(registryHost + "/test/image", "1.0", new File(TEST_DIR, "first.tar"));
+        assertEquals(3, blobDownloadCount.get());
+
+        final File imageTarFile = registryImagePuller.pullImageToFile(registryHost + "/test/image", "1.0", new File(TEST_DIR, "second.tar"));
+
+        // Only the (small) config
+        assertEquals(4, blobDownloadCount.get());
+        assertEquals(layerDiffIds, imageTarReader.readMetadata(imageTarFile).getLayerDiffIds());
+    }
+
+    private void handleRegistryRequest(final HttpExchange exchange) throws IOException {
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (!("Bearer " + TOKEN).equals(authorization)) {
+            exchange.getResponseHeaders().add("WWW-Authenticate",
+                String.format("Bearer realm=\"http://%s/token\",service=\"test-registry\",scope=\"repository:test/image:pull\"", registryHost));
+            respond(exchange, 401, "{}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        final String path = exchange.getRequestURI().getPath();
+        if (path.equals("/v2/test/image/manifests/1.0")) {
+            respond(exchange, 200, blobs.get("manifest"));
+        } else if (path.startsWith("/v2/test/image/blobs/sha256:")) {
+            exchange.getResponseHeaders().add("Location", "/cdn/" + path.substring("/v2/test/image/blobs/".length()));
+            respond(exchange, 307, new byte[0]);
+        } else {
+            respond(exchange, 404, new byte[0]);
+        }
+    }
+
+    private void respond(final HttpExchange exchange, final int statusCode, final byte[] body) throws IOException {
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private void createImage() throws IOException {
+        final Map<String, String> baseLayerFiles = new HashMap<>();
+        baseLayerFiles.put("etc/os-release", "ID=alpine\n");
+        baseLayerFiles.put("lib/apk/db/installed", "P:musl\n");
+        final Map<String, String> topLayerFiles = new HashMap<>();
+        topLayerFiles.put("app/app.jar", "jar");
+        final byte[] baseLayer = Files.readAllBytes(new TestImageTarBuilder().buildLayer(baseLayerFiles, new File(TEST_DIR, "base.tar")).toPath());
+        final byte[] topLayer = Files.readAllBytes(new TestImageTarBuilder().buildLayer(topLayerFiles, new File(TEST_DIR, "top.tar")).toPath());
+        layerDiffIds = Arrays.asList(digest(baseLayer), digest(topLayer));
+        final byte[] imageConfig = String.format("{\"architecture\":\"amd64\",\"os\":\"linux\",\"rootfs\":{\"type\":\"layers\",\"diff_ids\":%s}}", gson.toJson(layerDiffIds)).getBytes(StandardCharsets.UTF_8);
+        imageId = digest(imageConfig);
+        blobs.put(imageId, imageConfig);
+        final StringBuilder layers = new StringBuilder();
+        for (final byte[] layer : Arrays.asList(baseLayer, topLayer)) {
+            final byte[] compressedLayer = gzip(layer);
+            final String layerDigest = digest(compressedLayer);
+            blobs.put(layerDigest, compressedLayer);
+            layers.append(layers.length() == 0 ? "" : ",");
+            layers.append(String.format("{\"mediaType\":\"application/vnd.docker.image.rootfs.diff.tar.gzip\",\"size\":%d,\"digest\":\"%s\"}", compressedLayer.length, layerDigest));
+        }
+        final String manifest = String.format("{\"schemaVersion\":2,\"mediaType\":\"application/vnd.docker.distribution.manifest.v2+json\","
+            + "\"config\":{\"mediaType\":\"application/vnd.docker.container.image.v1+json\",\"size\":%d,\"digest\":\"%s\"},\"layers\":[%s]}", imageConfig.length, imageId, layers);
+        blobs.put("manifest", manifest.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] gzip(final byte[] content) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    private String digest(final byte[] content) {
+        return "sha256:" + DigestUtils.sha256Hex(content);
+    }
+}